@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2014 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.ide.codeInsight;
+
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+import com.intellij.openapi.options.BeanConfigurable;
+import com.intellij.openapi.options.Configurable;
+
+/**
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpCodeInsightConfigurable extends BeanConfigurable<CSharpCodeInsightSettings> implements Configurable
+{
+	public CSharpCodeInsightConfigurable()
+	{
+		super(CSharpCodeInsightSettings.getInstance());
+		checkBox("PARALLEL_HIGHLIGHTING", "Highlight type members in parallel");
+		checkBox("PREWARM_RESOLVE_ON_OPEN", "Resolve type references in background on file open");
+	}
+
+	@Nls
+	@Override
+	public String getDisplayName()
+	{
+		return "C#";
+	}
+
+	@Nullable
+	@Override
+	public String getHelpTopic()
+	{
+		return null;
+	}
+}
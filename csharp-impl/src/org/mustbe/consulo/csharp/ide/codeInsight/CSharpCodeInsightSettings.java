@@ -42,6 +42,16 @@ public class CSharpCodeInsightSettings implements PersistentStateComponent<Eleme
 {
 	public boolean OPTIMIZE_IMPORTS_ON_THE_FLY = true;
 
+	/**
+	 * Precompute highlighting of type members in parallel, see {@link org.mustbe.consulo.csharp.ide.highlight.CSharpParallelHighlightUtil}
+	 */
+	public boolean PARALLEL_HIGHLIGHTING = false;
+
+	/**
+	 * Resolve type references of file in background on open, see {@link org.mustbe.consulo.csharp.ide.highlight.CSharpResolvePrewarmComponent}
+	 */
+	public boolean PREWARM_RESOLVE_ON_OPEN = false;
+
 	@Override
 	public void loadState(final Element state)
 	{
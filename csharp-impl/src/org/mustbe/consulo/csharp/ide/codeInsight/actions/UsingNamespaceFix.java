@@ -32,13 +32,13 @@ import org.mustbe.consulo.csharp.lang.psi.CSharpUsingListChild;
 import org.mustbe.consulo.csharp.lang.psi.impl.light.CSharpLightCallArgument;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMethodCallExpressionImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodResolver;
-import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpIndexKeys;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpNamespaceByShortNameCache;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpTypeNameTrie;
 import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.ExtensionMethodIndex;
 import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.MethodIndex;
 import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.TypeIndex;
 import org.mustbe.consulo.csharp.lang.psi.resolve.AttributeByNameSelector;
 import org.mustbe.consulo.dotnet.DotNetBundle;
-import org.mustbe.consulo.dotnet.lang.psi.impl.stub.MsilHelper;
 import org.mustbe.consulo.dotnet.libraryAnalyzer.DotNetLibraryAnalyzerComponent;
 import org.mustbe.consulo.dotnet.libraryAnalyzer.NamespaceReference;
 import org.mustbe.consulo.dotnet.psi.DotNetExpression;
@@ -55,7 +55,6 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Condition;
 import com.intellij.openapi.util.Conditions;
 import com.intellij.openapi.util.text.StringUtil;
@@ -63,12 +62,10 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.SmartPointerManager;
 import com.intellij.psi.SmartPsiElementPointer;
-import com.intellij.psi.stubs.StubIndex;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.IncorrectOperationException;
-import com.intellij.util.Processor;
+import com.intellij.util.ThreeState;
 import com.intellij.util.containers.ArrayListSet;
-import com.intellij.util.indexing.IdFilter;
 import lombok.val;
 
 /**
@@ -198,9 +195,21 @@ public class UsingNamespaceFix implements HintAction, HighPriorityAction
 		}
 		else
 		{
-			tempTypes = getTypesWithGeneric(ref, referenceName);
+			Set<String> namespaces = CSharpNamespaceByShortNameCache.getInstance(ref.getProject()).getTypeNamespaces(referenceName,
+					ref.getResolveScope());
+			if(namespaces != null)
+			{
+				for(String namespace : namespaces)
+				{
+					set.add(new NamespaceReference(namespace, null));
+				}
+			}
+			else
+			{
+				tempTypes = getTypesWithGeneric(ref, referenceName);
 
-			collect(set, tempTypes, Conditions.<DotNetTypeDeclaration>alwaysTrue());
+				collect(set, tempTypes, Conditions.<DotNetTypeDeclaration>alwaysTrue());
+			}
 
 			tempMethods = MethodIndex.getInstance().get(referenceName, ref.getProject(), ref.getResolveScope());
 
@@ -216,23 +225,9 @@ public class UsingNamespaceFix implements HintAction, HighPriorityAction
 		}
 	}
 
-	private static List<DotNetTypeDeclaration> getTypesWithGeneric(CSharpReferenceExpression ref, final String refName)
+	private static List<DotNetTypeDeclaration> getTypesWithGeneric(CSharpReferenceExpression ref, String refName)
 	{
-		final Set<String> set = new TreeSet<String>();
-		StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_INDEX, new Processor<String>()
-		{
-			@Override
-			public boolean process(String name)
-			{
-				String nameNoGeneric = MsilHelper.cutGenericMarker(name);
-				if(Comparing.equal(nameNoGeneric, refName))
-				{
-					set.add(name);
-				}
-				return true;
-			}
-		}, ref.getResolveScope(), IdFilter.getProjectIdFilter(ref.getProject(), true));
-
+		Set<String> set = new TreeSet<String>(CSharpTypeNameTrie.getInstance(ref.getProject()).getNamesByShortName(refName, ref.getResolveScope()));
 		if(set.isEmpty())
 		{
 			return Collections.emptyList();
@@ -262,6 +257,11 @@ public class UsingNamespaceFix implements HintAction, HighPriorityAction
 			return;
 		}
 
+		if(CSharpNamespaceByShortNameCache.getInstance(ref.getProject()).hasExtensionMethod(referenceName) == ThreeState.NO)
+		{
+			return;
+		}
+
 		CSharpCallArgument[] callArguments = ((CSharpMethodCallExpressionImpl) parent).getCallArguments();
 
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.ide.codeInspection.unusedSymbol;
+
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpLocalVariable;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.dotnet.psi.DotNetQualifiedElement;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.ResolveResult;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+
+/**
+ * Def-use table of local variables of one member(or file, if variable is not inside member).
+ * Built by one walk of member: references without qualifier, which name equal to name of any local variable,
+ * are resolved once, and targets are stored with their usages
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class LocalUsageTable
+{
+	@NotNull
+	@RequiredReadAction
+	public static LocalUsageTable getInstance(@NotNull CSharpLocalVariable variable)
+	{
+		PsiElement owner = PsiTreeUtil.getParentOfType(variable, DotNetQualifiedElement.class);
+		if(owner == null)
+		{
+			owner = variable.getContainingFile();
+		}
+
+		final PsiElement scope = owner;
+		return CachedValuesManager.getCachedValue(scope, new CachedValueProvider<LocalUsageTable>()
+		{
+			@Nullable
+			@Override
+			@RequiredReadAction
+			public Result<LocalUsageTable> compute()
+			{
+				return Result.create(build(scope), PsiModificationTracker.MODIFICATION_COUNT);
+			}
+		});
+	}
+
+	@NotNull
+	@RequiredReadAction
+	private static LocalUsageTable build(@NotNull PsiElement scope)
+	{
+		final Set<String> names = new THashSet<String>();
+		final List<CSharpReferenceExpression> references = new ArrayList<CSharpReferenceExpression>();
+
+		scope.accept(new PsiRecursiveElementWalkingVisitor()
+		{
+			@Override
+			@RequiredReadAction
+			public void visitElement(PsiElement element)
+			{
+				if(element instanceof CSharpLocalVariable)
+				{
+					String name = ((CSharpLocalVariable) element).getName();
+					if(name != null)
+					{
+						names.add(name);
+					}
+				}
+				else if(element instanceof CSharpReferenceExpression && ((CSharpReferenceExpression) element).getQualifier() == null)
+				{
+					references.add((CSharpReferenceExpression) element);
+				}
+
+				super.visitElement(element);
+			}
+		});
+
+		Map<PsiElement, List<CSharpReferenceExpression>> usages = new THashMap<PsiElement, List<CSharpReferenceExpression>>();
+		for(CSharpReferenceExpression reference : references)
+		{
+			if(!names.contains(reference.getReferenceName()))
+			{
+				continue;
+			}
+
+			for(ResolveResult resolveResult : reference.multiResolve(false))
+			{
+				PsiElement element = resolveResult.getElement();
+				if(element instanceof CSharpLocalVariable)
+				{
+					List<CSharpReferenceExpression> list = usages.get(element);
+					if(list == null)
+					{
+						usages.put(element, list = new ArrayList<CSharpReferenceExpression>());
+					}
+					list.add(reference);
+				}
+			}
+		}
+		return new LocalUsageTable(usages);
+	}
+
+	private final Map<PsiElement, List<CSharpReferenceExpression>> myUsages;
+
+	private LocalUsageTable(@NotNull Map<PsiElement, List<CSharpReferenceExpression>> usages)
+	{
+		myUsages = usages;
+	}
+
+	public boolean isUsed(@NotNull CSharpLocalVariable variable)
+	{
+		return myUsages.containsKey(variable);
+	}
+
+	@NotNull
+	public List<CSharpReferenceExpression> getUsages(@NotNull CSharpLocalVariable variable)
+	{
+		List<CSharpReferenceExpression> usages = myUsages.get(variable);
+		return usages == null ? Collections.<CSharpReferenceExpression>emptyList() : usages;
+	}
+}
@@ -3,10 +3,14 @@ package org.mustbe.consulo.csharp.ide.codeInspection.unusedSymbol;
 import java.util.Map;
 
 import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.ide.CSharpErrorBundle;
 import org.mustbe.consulo.csharp.ide.highlight.check.CompilerCheck;
 import org.mustbe.consulo.csharp.ide.highlight.check.impl.CS0168;
 import org.mustbe.consulo.csharp.ide.highlight.check.impl.CS0219;
 import org.mustbe.consulo.csharp.lang.psi.CSharpLocalVariable;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlow;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlowUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpForeachStatementImpl;
 import org.mustbe.consulo.dotnet.psi.DotNetExpression;
 import org.mustbe.consulo.dotnet.psi.DotNetParameter;
@@ -96,6 +100,7 @@ public class UnusedSymbolLocalInspection extends LocalInspectionTool
 		{
 			if(entry.getValue() == Boolean.TRUE)
 			{
+				registerUnusedValues(entry.getKey(), problemsHolder);
 				continue;
 			}
 
@@ -117,6 +122,32 @@ public class UnusedSymbolLocalInspection extends LocalInspectionTool
 		}
 	}
 
+	/**
+	 * Values which are assigned to used variable, but never read
+	 */
+	@RequiredReadAction
+	private static void registerUnusedValues(@NotNull PsiNameIdentifierOwner variable, @NotNull ProblemsHolder problemsHolder)
+	{
+		CSharpControlFlow controlFlow = CSharpControlFlowUtil.findControlFlow(variable);
+		if(controlFlow == null)
+		{
+			return;
+		}
+
+		for(PsiElement element : controlFlow.getUnusedWriteElements(variable))
+		{
+			// write of declaration - highlight initializer
+			PsiElement target = element == variable ? ((CSharpLocalVariable) variable).getInitializer() : element;
+			if(target == null)
+			{
+				continue;
+			}
+
+			problemsHolder.registerProblem(target, CSharpErrorBundle.message("value.assigned.to.0.is.never.used", variable.getName()),
+					ProblemHighlightType.LIKE_UNUSED_SYMBOL);
+		}
+	}
+
 	private static String getDesc(PsiElement target, PsiElement name)
 	{
 		if(target instanceof CSharpLocalVariable)
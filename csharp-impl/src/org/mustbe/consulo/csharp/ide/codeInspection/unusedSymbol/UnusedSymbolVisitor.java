@@ -8,9 +8,6 @@ import org.jetbrains.annotations.NotNull;
 import org.mustbe.consulo.csharp.lang.psi.CSharpElementVisitor;
 import org.mustbe.consulo.csharp.lang.psi.CSharpLocalVariable;
 import com.intellij.psi.PsiNameIdentifierOwner;
-import com.intellij.psi.PsiReference;
-import com.intellij.psi.search.searches.ReferencesSearch;
-import com.intellij.util.Query;
 
 /**
  * @author VISTALL
@@ -23,9 +20,7 @@ public class UnusedSymbolVisitor extends CSharpElementVisitor
 	@Override
 	public void visitLocalVariable(CSharpLocalVariable variable)
 	{
-		Query<PsiReference> query = ReferencesSearch.search(variable, variable.getUseScope());
-
-		myVariableStates.put(variable, query.findFirst() != null);
+		myVariableStates.put(variable, LocalUsageTable.getInstance(variable).isUsed(variable));
 	}
 
 	@NotNull
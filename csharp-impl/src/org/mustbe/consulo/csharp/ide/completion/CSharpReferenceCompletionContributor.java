@@ -57,7 +57,7 @@ import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpLambdaR
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpLambdaTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.util.CSharpMethodImplUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.util.CSharpResolveUtil;
-import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpIndexKeys;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpTypeNameTrie;
 import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.TypeIndex;
 import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpElementGroup;
 import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpResolveContext;
@@ -92,13 +92,11 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.ResolveResult;
 import com.intellij.psi.ResolveState;
-import com.intellij.psi.stubs.StubIndex;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.Function;
 import com.intellij.util.ProcessingContext;
 import com.intellij.util.Processor;
-import com.intellij.util.indexing.IdFilter;
 import lombok.val;
 
 /**
@@ -433,7 +431,7 @@ public class CSharpReferenceCompletionContributor extends CompletionContributor
 
 					val typeDeclarations = new LinkedList<DotNetTypeDeclaration>();
 
-					StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_INDEX, new Processor<String>()
+					CSharpTypeNameTrie.getInstance(project).processCandidates(matcher.getPrefix(), resolveScope, new Processor<String>()
 					{
 						@Override
 						public boolean process(String key)
@@ -447,7 +445,7 @@ public class CSharpReferenceCompletionContributor extends CompletionContributor
 							}
 							return true;
 						}
-					}, resolveScope, IdFilter.getProjectIdFilter(project, false));
+					});
 
 					if(typeDeclarations.isEmpty())
 					{
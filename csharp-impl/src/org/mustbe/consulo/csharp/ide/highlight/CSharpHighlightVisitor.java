@@ -23,6 +23,7 @@ import org.mustbe.consulo.csharp.ide.codeInsight.actions.ConvertToNormalCallFix;
 import org.mustbe.consulo.csharp.ide.highlight.util.ConstructorHighlightUtil;
 import org.mustbe.consulo.csharp.ide.highlight.util.GenericParameterHighlightUtil;
 import org.mustbe.consulo.csharp.lang.psi.*;
+import org.mustbe.consulo.csharp.lang.psi.impl.CSharpInheritableSession;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpArrayAccessExpressionImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpFileImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpLinqExpressionImpl;
@@ -337,7 +338,17 @@ public class CSharpHighlightVisitor extends CSharpElementVisitor implements High
 	public boolean analyze(@NotNull PsiFile psiFile, boolean b, @NotNull HighlightInfoHolder highlightInfoHolder, @NotNull Runnable runnable)
 	{
 		myHighlightInfoHolder = highlightInfoHolder;
-		runnable.run();
+		try
+		{
+			// fill resolve cache in parallel, highlighting itself will be done in tree order
+			CSharpParallelHighlightUtil.precompute(psiFile);
+
+			CSharpInheritableSession.runInSession(runnable);
+		}
+		finally
+		{
+			CSharpParallelHighlightUtil.clearPrecomputed(psiFile);
+		}
 		return true;
 	}
 
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.ide.highlight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.ide.codeInsight.CSharpCodeInsightSettings;
+import org.mustbe.consulo.csharp.ide.highlight.check.CSharpCompilerCheckVisitor;
+import org.mustbe.consulo.csharp.ide.highlight.check.CompilerCheck;
+import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgumentListOwner;
+import org.mustbe.consulo.csharp.lang.psi.CSharpFile;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.csharp.lang.psi.impl.CSharpInheritableSession;
+import org.mustbe.consulo.csharp.module.extension.CSharpLanguageVersion;
+import org.mustbe.consulo.dotnet.psi.DotNetElement;
+import org.mustbe.consulo.dotnet.psi.DotNetMemberOwner;
+import org.mustbe.consulo.dotnet.psi.DotNetNamedElement;
+import org.mustbe.consulo.dotnet.psi.DotNetNamespaceDeclaration;
+import org.mustbe.consulo.dotnet.psi.DotNetQualifiedElement;
+import org.mustbe.consulo.dotnet.psi.DotNetTypeDeclaration;
+import com.intellij.codeHighlighting.Pass;
+import com.intellij.codeInsight.daemon.impl.DaemonCodeAnalyzerEx;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressIndicatorProvider;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.util.Processor;
+
+/**
+ * Support for opt-in parallel highlighting: dirty part of file is split to independent chunks(members of types and namespaces),
+ * and chunks are processed concurrently under read action. Highlight visitors still add infos in tree order,
+ * parallel stage only precompute results, that why output is deterministic.
+ * <p/>
+ * Precompute is done once per pass by first visitor, it fills resolve cache and compiler check results, second visitor reuses it
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpParallelHighlightUtil
+{
+	public static class Precomputed
+	{
+		private final long myModificationStamp;
+		private final TextRange myRange;
+		private final Map<PsiElement, List<? extends CompilerCheck.HighlightInfoFactory>> myCompilerCheckResults = new
+				ConcurrentHashMap<PsiElement, List<? extends CompilerCheck.HighlightInfoFactory>>();
+
+		private Precomputed(long modificationStamp, @NotNull TextRange range)
+		{
+			myModificationStamp = modificationStamp;
+			myRange = range;
+		}
+
+		@Nullable
+		public List<? extends CompilerCheck.HighlightInfoFactory> removeCompilerCheckResults(@NotNull PsiElement element)
+		{
+			return myCompilerCheckResults.remove(element);
+		}
+	}
+
+	private static final Key<Precomputed> PRECOMPUTED = Key.create("csharp.parallel.highlight.precomputed");
+
+	public static boolean isEnabled(@NotNull PsiFile file)
+	{
+		return file instanceof CSharpFile && CSharpCodeInsightSettings.getInstance().PARALLEL_HIGHLIGHTING;
+	}
+
+	/**
+	 * @return results for current pass, computed by this call or by other visitor of this pass. Null if parallel highlighting is disabled
+	 */
+	@Nullable
+	@RequiredReadAction
+	public static Precomputed precompute(@NotNull PsiFile file)
+	{
+		if(!isEnabled(file))
+		{
+			return null;
+		}
+
+		TextRange range = getPassRange(file);
+		long modificationStamp = file.getModificationStamp();
+
+		Precomputed precomputed = file.getUserData(PRECOMPUTED);
+		if(precomputed != null && precomputed.myModificationStamp == modificationStamp && precomputed.myRange.equals(range))
+		{
+			return precomputed;
+		}
+
+		final Precomputed newPrecomputed = new Precomputed(modificationStamp, range);
+		final CSharpLanguageVersion languageVersion = CSharpCompilerCheckVisitor.calcLanguageVersion(file);
+		processElementsInParallel(collectChunks((CSharpFile) file, range), new Processor<PsiElement>()
+		{
+			@Override
+			@RequiredReadAction
+			public boolean process(PsiElement element)
+			{
+				if(element instanceof CSharpCallArgumentListOwner)
+				{
+					((CSharpCallArgumentListOwner) element).multiResolve(false);
+				}
+				else if(element instanceof CSharpReferenceExpression)
+				{
+					((CSharpReferenceExpression) element).multiResolve(false);
+				}
+
+				if(element instanceof DotNetElement)
+				{
+					newPrecomputed.myCompilerCheckResults.put(element, CSharpCompilerCheckVisitor.computeResults(element, languageVersion));
+				}
+				return true;
+			}
+		});
+		file.putUserData(PRECOMPUTED, newPrecomputed);
+		return newPrecomputed;
+	}
+
+	/**
+	 * Drop results after pass, they hold elements of file
+	 */
+	public static void clearPrecomputed(@NotNull PsiFile file)
+	{
+		file.putUserData(PRECOMPUTED, null);
+	}
+
+	/**
+	 * @return dirty scope of general highlighting pass, or range of file if it unknown
+	 */
+	@NotNull
+	private static TextRange getPassRange(@NotNull PsiFile file)
+	{
+		Document document = PsiDocumentManager.getInstance(file.getProject()).getCachedDocument(file);
+		if(document != null)
+		{
+			TextRange dirtyScope = DaemonCodeAnalyzerEx.getInstanceEx(file.getProject()).getFileStatusMap().getFileDirtyScope(document,
+					Pass.UPDATE_ALL);
+			if(dirtyScope != null)
+			{
+				return dirtyScope;
+			}
+		}
+		return file.getTextRange();
+	}
+
+	/**
+	 * Walk all elements of chunks in parallel. Return false if processing was stopped
+	 */
+	@RequiredReadAction
+	public static boolean processElementsInParallel(@NotNull List<PsiElement> chunks, @NotNull final Processor<PsiElement> processor)
+	{
+		if(chunks.isEmpty())
+		{
+			return true;
+		}
+
+		return JobLauncher.getInstance().invokeConcurrentlyUnderProgress(chunks, ProgressIndicatorProvider.getGlobalProgressIndicator(), false,
+				new Processor<PsiElement>()
+		{
+			@Override
+			public boolean process(final PsiElement chunk)
+			{
+				CSharpInheritableSession.runInSession(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						chunk.accept(new PsiRecursiveElementWalkingVisitor()
+						{
+							@Override
+							public void visitElement(PsiElement element)
+							{
+								ProgressIndicatorProvider.checkCanceled();
+								if(!processor.process(element))
+								{
+									stopWalking();
+									return;
+								}
+								super.visitElement(element);
+							}
+						});
+					}
+				});
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * @return members which are not namespaces or types (methods, fields, etc) and intersect range, they are independent for highlighting
+	 */
+	@NotNull
+	@RequiredReadAction
+	public static List<PsiElement> collectChunks(@NotNull CSharpFile file, @NotNull TextRange range)
+	{
+		List<PsiElement> chunks = new ArrayList<PsiElement>();
+		for(DotNetQualifiedElement element : file.getMembers())
+		{
+			collectChunks(element, range, chunks);
+		}
+		return chunks;
+	}
+
+	private static void collectChunks(@NotNull PsiElement element, @NotNull TextRange range, @NotNull List<PsiElement> chunks)
+	{
+		if(!range.intersects(element.getTextRange()))
+		{
+			return;
+		}
+
+		if(element instanceof DotNetMemberOwner && (element instanceof DotNetNamespaceDeclaration || element instanceof DotNetTypeDeclaration))
+		{
+			for(DotNetNamedElement member : ((DotNetMemberOwner) element).getMembers())
+			{
+				collectChunks(member, range, chunks);
+			}
+		}
+		else
+		{
+			chunks.add(element);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.ide.highlight;
+
+import gnu.trove.THashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.ide.codeInsight.CSharpCodeInsightSettings;
+import org.mustbe.consulo.csharp.lang.CSharpFileType;
+import org.mustbe.consulo.csharp.lang.psi.CSharpFile;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUserType;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUsingList;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUsingNamespaceStatement;
+import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpResolveContextUtil;
+import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpResolveContext;
+import org.mustbe.consulo.dotnet.psi.DotNetExpression;
+import org.mustbe.consulo.dotnet.psi.DotNetQualifiedElement;
+import org.mustbe.consulo.dotnet.psi.DotNetStatement;
+import org.mustbe.consulo.dotnet.resolve.DotNetGenericExtractor;
+import org.mustbe.consulo.dotnet.resolve.DotNetNamespaceAsElement;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.components.AbstractProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerAdapter;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.progress.util.ReadTask;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.ResolveResult;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+
+/**
+ * On open of C# file - resolve distinct type references of member signatures, using namespaces and type declarations of file
+ * in background, before daemon reaches them. Code blocks, initializers and other expressions are left to daemon.
+ * Resolve of references needs tree of file, so it will be loaded. Elements are processed in parallel under read actions
+ * which are canceled by write action
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpResolvePrewarmComponent extends AbstractProjectComponent
+{
+	private final Set<VirtualFile> myScheduledFiles = ContainerUtil.newConcurrentSet();
+
+	public CSharpResolvePrewarmComponent(Project project)
+	{
+		super(project);
+	}
+
+	@Override
+	public void initComponent()
+	{
+		myProject.getMessageBus().connect(myProject).subscribe(FileEditorManagerListener.FILE_EDITOR_MANAGER, new FileEditorManagerAdapter()
+		{
+			@Override
+			public void fileOpened(@NotNull FileEditorManager source, @NotNull VirtualFile file)
+			{
+				if(file.getFileType() != CSharpFileType.INSTANCE || !CSharpCodeInsightSettings.getInstance().PREWARM_RESOLVE_ON_OPEN)
+				{
+					return;
+				}
+
+				schedule(file);
+			}
+		});
+	}
+
+	private void schedule(@NotNull final VirtualFile virtualFile)
+	{
+		if(!myScheduledFiles.add(virtualFile))
+		{
+			return;
+		}
+
+		ProgressIndicatorUtils.scheduleWithWriteActionPriority(new ReadTask()
+		{
+			@Override
+			public void computeInReadAction(@NotNull ProgressIndicator indicator)
+			{
+				try
+				{
+					if(myProject.isDisposed() || DumbService.isDumb(myProject) || !virtualFile.isValid())
+					{
+						return;
+					}
+
+					PsiFile file = PsiManager.getInstance(myProject).findFile(virtualFile);
+					if(file instanceof CSharpFile)
+					{
+						prewarm(file, indicator);
+					}
+				}
+				finally
+				{
+					myScheduledFiles.remove(virtualFile);
+				}
+			}
+
+			@Override
+			public void onCanceled(@NotNull ProgressIndicator indicator)
+			{
+				// dont reschedule - if write action happened, daemon will be restarted and it will do all work
+				myScheduledFiles.remove(virtualFile);
+			}
+		});
+	}
+
+	@RequiredReadAction
+	private static void prewarm(@NotNull PsiFile file, @NotNull ProgressIndicator indicator)
+	{
+		final List<PsiElement> elements = collectElements(file);
+		if(elements.isEmpty())
+		{
+			return;
+		}
+
+		final GlobalSearchScope resolveScope = file.getResolveScope();
+
+		JobLauncher.getInstance().invokeConcurrentlyUnderProgress(elements, indicator, true, new Processor<PsiElement>()
+		{
+			@Override
+			@RequiredReadAction
+			public boolean process(PsiElement element)
+			{
+				prewarmElement(element, resolveScope);
+				return true;
+			}
+		});
+	}
+
+	@RequiredReadAction
+	private static void prewarmElement(@NotNull PsiElement element, @NotNull GlobalSearchScope resolveScope)
+	{
+		if(!element.isValid())
+		{
+			return;
+		}
+
+		if(element instanceof CSharpReferenceExpression)
+		{
+			for(ResolveResult result : ((CSharpReferenceExpression) element).multiResolve(false))
+			{
+				PsiElement resolvedElement = result.getElement();
+				if(resolvedElement instanceof CSharpTypeDeclaration)
+				{
+					prewarmContext(resolvedElement, resolveScope);
+				}
+			}
+		}
+		else if(element instanceof CSharpUsingNamespaceStatement)
+		{
+			DotNetNamespaceAsElement namespace = ((CSharpUsingNamespaceStatement) element).resolve();
+			if(namespace != null)
+			{
+				CSharpResolveContextUtil.createContext(DotNetGenericExtractor.EMPTY, resolveScope, namespace);
+			}
+		}
+		else if(element instanceof CSharpTypeDeclaration)
+		{
+			prewarmContext(element, resolveScope);
+		}
+		else
+		{
+			CSharpResolveContextUtil.createContext(DotNetGenericExtractor.EMPTY, resolveScope, element);
+		}
+	}
+
+	/**
+	 * Members of type context are collected lazily - process them, to collect and unwrap all named members
+	 */
+	@RequiredReadAction
+	private static void prewarmContext(@NotNull PsiElement element, @NotNull GlobalSearchScope resolveScope)
+	{
+		CSharpResolveContext context = CSharpResolveContextUtil.createContext(DotNetGenericExtractor.EMPTY, resolveScope, element);
+		context.processElements(CommonProcessors.<PsiElement>alwaysTrue(), false);
+	}
+
+	/**
+	 * @return type declarations, using lists, using namespace statements and references of user types from member signatures.
+	 * References with same text inside same owner are resolved only once
+	 */
+	@NotNull
+	@RequiredReadAction
+	private static List<PsiElement> collectElements(@NotNull PsiFile file)
+	{
+		final List<PsiElement> elements = new ArrayList<PsiElement>();
+		final Set<Pair<PsiElement, String>> visitedReferences = new THashSet<Pair<PsiElement, String>>();
+
+		file.accept(new PsiRecursiveElementWalkingVisitor()
+		{
+			@Override
+			@RequiredReadAction
+			public void visitElement(PsiElement element)
+			{
+				// bodies, initializers, attribute arguments. References are visited for type arguments of user types
+				if(element instanceof DotNetStatement || element instanceof DotNetExpression && !(element instanceof CSharpReferenceExpression))
+				{
+					return;
+				}
+
+				collectElement(element, elements, visitedReferences);
+				super.visitElement(element);
+			}
+		});
+		return elements;
+	}
+
+	@RequiredReadAction
+	private static void collectElement(PsiElement element, @NotNull List<PsiElement> elements, @NotNull Set<Pair<PsiElement, String>>
+			visitedReferences)
+	{
+		if(element instanceof CSharpTypeDeclaration || element instanceof CSharpUsingList || element instanceof CSharpUsingNamespaceStatement)
+		{
+			elements.add(element);
+		}
+		else if(element instanceof CSharpUserType)
+		{
+			CSharpUserType userType = (CSharpUserType) element;
+
+			DotNetQualifiedElement owner = PsiTreeUtil.getParentOfType(userType, DotNetQualifiedElement.class);
+			if(visitedReferences.add(Pair.<PsiElement, String>create(owner, userType.getReferenceText())))
+			{
+				elements.add(userType.getReferenceExpression());
+			}
+		}
+	}
+}
@@ -16,12 +16,16 @@
 
 package org.mustbe.consulo.csharp.ide.highlight.check;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.jetbrains.annotations.NotNull;
 import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.ide.highlight.CSharpParallelHighlightUtil;
 import org.mustbe.consulo.csharp.lang.psi.CSharpElementVisitor;
 import org.mustbe.consulo.csharp.lang.psi.CSharpFile;
+import org.mustbe.consulo.csharp.lang.psi.impl.CSharpInheritableSession;
 import org.mustbe.consulo.csharp.module.extension.CSharpLanguageVersion;
 import org.mustbe.consulo.csharp.module.extension.CSharpSimpleModuleExtension;
 import org.mustbe.consulo.dotnet.psi.DotNetElement;
@@ -44,6 +48,8 @@ import com.intellij.psi.PsiFile;
 public class CSharpCompilerCheckVisitor extends CSharpElementVisitor implements HighlightVisitor
 {
 	private HighlightInfoHolder myHighlightInfoHolder;
+	private CSharpLanguageVersion myLanguageVersion = CSharpLanguageVersion.HIGHEST;
+	private CSharpParallelHighlightUtil.Precomputed myPrecomputed;
 
 	@Override
 	@RequiredReadAction
@@ -52,43 +58,56 @@ public class CSharpCompilerCheckVisitor extends CSharpElementVisitor implements
 		ProgressIndicatorProvider.checkCanceled();
 		if(element instanceof DotNetElement)
 		{
-			CSharpLanguageVersion languageVersion = CSharpLanguageVersion.HIGHEST;
-			CSharpSimpleModuleExtension extension = ModuleUtilCore.getExtension(element, CSharpSimpleModuleExtension.class);
-			if(extension != null)
+			List<? extends CompilerCheck.HighlightInfoFactory> results = myPrecomputed == null ? null : myPrecomputed.removeCompilerCheckResults
+					(element);
+			if(results == null)
 			{
-				languageVersion = extension.getLanguageVersion();
+				results = computeResults(element, myLanguageVersion);
 			}
 
-			for(CSharpCompilerChecks classEntry : CSharpCompilerChecks.VALUES)
+			for(CompilerCheck.HighlightInfoFactory result : results)
 			{
-				ProgressIndicatorProvider.checkCanceled();
-
-				if(languageVersion.ordinal() >= classEntry.getLanguageVersion().ordinal() && classEntry.getTargetClass().isAssignableFrom(element
-						.getClass()))
+				HighlightInfo highlightInfo = result.create();
+				if(highlightInfo != null)
 				{
-					List<? extends CompilerCheck.HighlightInfoFactory> results = classEntry.check(languageVersion, element);
-					if(results.isEmpty())
-					{
-						continue;
-					}
-					for(CompilerCheck.HighlightInfoFactory result : results)
+					myHighlightInfoHolder.add(highlightInfo);
+
+					for(IntentionAction intentionAction : result.getQuickFixes())
 					{
-						HighlightInfo highlightInfo = result.create();
-						if(highlightInfo != null)
-						{
-							myHighlightInfoHolder.add(highlightInfo);
-
-							for(IntentionAction intentionAction : result.getQuickFixes())
-							{
-								QuickFixAction.registerQuickFixAction(highlightInfo, intentionAction);
-							}
-						}
+						QuickFixAction.registerQuickFixAction(highlightInfo, intentionAction);
 					}
 				}
 			}
 		}
 	}
 
+	@NotNull
+	@RequiredReadAction
+	public static List<? extends CompilerCheck.HighlightInfoFactory> computeResults(@NotNull PsiElement element,
+			@NotNull CSharpLanguageVersion languageVersion)
+	{
+		List<CompilerCheck.HighlightInfoFactory> list = null;
+		for(CSharpCompilerChecks classEntry : CSharpCompilerChecks.getChecks(element.getClass()))
+		{
+			ProgressIndicatorProvider.checkCanceled();
+
+			if(languageVersion.ordinal() >= classEntry.getLanguageVersion().ordinal())
+			{
+				List<? extends CompilerCheck.HighlightInfoFactory> results = classEntry.check(languageVersion, element);
+				if(results.isEmpty())
+				{
+					continue;
+				}
+				if(list == null)
+				{
+					list = new ArrayList<CompilerCheck.HighlightInfoFactory>(results.size());
+				}
+				list.addAll(results);
+			}
+		}
+		return list == null ? Collections.<CompilerCheck.HighlightInfoFactory>emptyList() : list;
+	}
+
 	@Override
 	public boolean suitableForFile(@NotNull PsiFile psiFile)
 	{
@@ -106,10 +125,29 @@ public class CSharpCompilerCheckVisitor extends CSharpElementVisitor implements
 	public boolean analyze(@NotNull PsiFile psiFile, boolean b, @NotNull HighlightInfoHolder highlightInfoHolder, @NotNull Runnable runnable)
 	{
 		myHighlightInfoHolder = highlightInfoHolder;
-		runnable.run();
+		myLanguageVersion = calcLanguageVersion(psiFile);
+
+		try
+		{
+			myPrecomputed = CSharpParallelHighlightUtil.precompute(psiFile);
+
+			CSharpInheritableSession.runInSession(runnable);
+		}
+		finally
+		{
+			myPrecomputed = null;
+			CSharpParallelHighlightUtil.clearPrecomputed(psiFile);
+		}
 		return true;
 	}
 
+	@NotNull
+	public static CSharpLanguageVersion calcLanguageVersion(@NotNull PsiElement element)
+	{
+		CSharpSimpleModuleExtension extension = ModuleUtilCore.getExtension(element, CSharpSimpleModuleExtension.class);
+		return extension == null ? CSharpLanguageVersion.HIGHEST : extension.getLanguageVersion();
+	}
+
 	@NotNull
 	@Override
 	public HighlightVisitor clone()
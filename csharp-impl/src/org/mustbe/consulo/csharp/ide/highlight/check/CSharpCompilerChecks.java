@@ -17,14 +17,17 @@
 package org.mustbe.consulo.csharp.ide.highlight.check;
 
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.jetbrains.annotations.NotNull;
 import org.mustbe.consulo.RequiredReadAction;
 import org.mustbe.consulo.csharp.module.extension.CSharpLanguageVersion;
 import com.intellij.codeInsight.daemon.impl.HighlightInfoType;
 import com.intellij.psi.PsiElement;
+import com.intellij.util.containers.ConcurrentFactoryMap;
 
 /**
  * @author VISTALL
@@ -50,6 +53,8 @@ public enum CSharpCompilerChecks
 	CS0145(CSharpLanguageVersion._1_0, HighlightInfoType.ERROR), // const cant be without value
 	CS0155(CSharpLanguageVersion._1_0, HighlightInfoType.ERROR), // throw object must be child of System.Exception
 	CS0157(CSharpLanguageVersion._1_0, HighlightInfoType.ERROR), // return is not allowed inside finally blocks
+	CS0162(CSharpLanguageVersion._1_0, HighlightInfoType.WARNING), // unreachable code
+	CS0165(CSharpLanguageVersion._1_0, HighlightInfoType.ERROR), // use of unassigned local variable
 	//CS0168(CSharpLanguageVersion._1_0, HighlightInfoType.UNUSED_SYMBOL), // local variable usage check
 	CS0214(CSharpLanguageVersion._1_0, HighlightInfoType.ERROR), // fixed can be used inside unsafe context
 	CS0122(CSharpLanguageVersion._1_0, HighlightInfoType.ERROR), // visibility checks
@@ -108,6 +113,35 @@ public enum CSharpCompilerChecks
 
 	public static final CSharpCompilerChecks[] VALUES = CSharpCompilerChecks.values();
 
+	private static final Map<Class<?>, CSharpCompilerChecks[]> ourChecksByClass = new ConcurrentFactoryMap<Class<?>, CSharpCompilerChecks[]>()
+	{
+		@NotNull
+		@Override
+		protected CSharpCompilerChecks[] create(Class<?> elementClass)
+		{
+			List<CSharpCompilerChecks> list = new ArrayList<CSharpCompilerChecks>();
+			for(CSharpCompilerChecks classEntry : VALUES)
+			{
+				if(classEntry.getTargetClass().isAssignableFrom(elementClass))
+				{
+					list.add(classEntry);
+				}
+			}
+			return list.isEmpty() ? EMPTY_ARRAY : list.toArray(new CSharpCompilerChecks[list.size()]);
+		}
+	};
+
+	private static final CSharpCompilerChecks[] EMPTY_ARRAY = new CSharpCompilerChecks[0];
+
+	/**
+	 * @return checks which target class is assignable from {@code elementClass}, in declaration order
+	 */
+	@NotNull
+	public static CSharpCompilerChecks[] getChecks(@NotNull Class<?> elementClass)
+	{
+		return ourChecksByClass.get(elementClass);
+	}
+
 	private final CSharpLanguageVersion myLanguageVersion;
 	private final HighlightInfoType myType;
 	private final CompilerCheck<PsiElement> myCheck;
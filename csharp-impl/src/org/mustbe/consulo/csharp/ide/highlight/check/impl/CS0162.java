@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2014 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.ide.highlight.check.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.ide.highlight.check.CompilerCheck;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlow;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlowUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpBlockStatementImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpEmptyStatementImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpLabeledStatementImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpSwitchLabelStatementImpl;
+import org.mustbe.consulo.csharp.module.extension.CSharpLanguageVersion;
+import org.mustbe.consulo.dotnet.psi.DotNetStatement;
+import com.intellij.psi.PsiElement;
+
+/**
+ * Only first statement of unreachable code is reported - statement which previous statement(or parent statement) is reachable
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CS0162 extends CompilerCheck<CSharpBlockStatementImpl>
+{
+	@RequiredReadAction
+	@NotNull
+	@Override
+	public List<CompilerCheckBuilder> check(@NotNull CSharpLanguageVersion languageVersion, @NotNull CSharpBlockStatementImpl element)
+	{
+		if(!CSharpControlFlowUtil.isFlowOwner(element))
+		{
+			return Collections.emptyList();
+		}
+
+		CSharpControlFlow controlFlow = CSharpControlFlowUtil.getControlFlow(element);
+
+		List<CompilerCheckBuilder> results = new ArrayList<CompilerCheckBuilder>();
+		checkChildren(controlFlow, element, results);
+		return results;
+	}
+
+	@RequiredReadAction
+	private void checkChildren(@NotNull CSharpControlFlow controlFlow, @NotNull PsiElement parent, @NotNull List<CompilerCheckBuilder> results)
+	{
+		boolean previousReachable = true;
+		for(PsiElement child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if(!(child instanceof DotNetStatement))
+			{
+				continue;
+			}
+
+			boolean reachable = controlFlow.isReachable(child);
+			if(reachable)
+			{
+				checkChildren(controlFlow, child, results);
+			}
+			else if(previousReachable)
+			{
+				if(child instanceof CSharpBlockStatementImpl || child instanceof CSharpLabeledStatementImpl)
+				{
+					// report first statement inside
+					checkChildren(controlFlow, child, results);
+				}
+				else if(!(child instanceof CSharpEmptyStatementImpl) && !(child instanceof CSharpSwitchLabelStatementImpl))
+				{
+					results.add(newBuilder(child));
+				}
+			}
+			previousReachable = reachable;
+		}
+	}
+}
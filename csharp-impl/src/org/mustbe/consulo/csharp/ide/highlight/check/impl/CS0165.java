@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2014 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.ide.highlight.check.impl;
+
+import gnu.trove.THashSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.ide.highlight.check.CompilerCheck;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlow;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlowUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpInstruction;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpBlockStatementImpl;
+import org.mustbe.consulo.csharp.module.extension.CSharpLanguageVersion;
+import com.intellij.psi.PsiElement;
+
+/**
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CS0165 extends CompilerCheck<CSharpBlockStatementImpl>
+{
+	@RequiredReadAction
+	@NotNull
+	@Override
+	public List<CompilerCheckBuilder> check(@NotNull CSharpLanguageVersion languageVersion, @NotNull CSharpBlockStatementImpl element)
+	{
+		if(!CSharpControlFlowUtil.isFlowOwner(element))
+		{
+			return Collections.emptyList();
+		}
+
+		CSharpControlFlow controlFlow = CSharpControlFlowUtil.getControlFlow(element);
+
+		List<CompilerCheckBuilder> results = new ArrayList<CompilerCheckBuilder>();
+		Set<PsiElement> reported = new THashSet<PsiElement>();
+		for(CSharpInstruction instruction : controlFlow.getInstructions())
+		{
+			if(instruction.getKind() != CSharpInstruction.Kind.READ || !controlFlow.isMaybeUnassigned(instruction))
+			{
+				continue;
+			}
+
+			PsiElement reference = instruction.getElement();
+			// 's.Field' - fields of struct variable are not tracked
+			PsiElement parent = reference.getParent();
+			if(parent instanceof CSharpReferenceExpression && ((CSharpReferenceExpression) parent).getQualifier() == reference)
+			{
+				continue;
+			}
+
+			// one read can have many instructions - copies of finally block
+			if(reported.add(reference))
+			{
+				results.add(newBuilder(reference, reference.getText()));
+			}
+		}
+		return results;
+	}
+}
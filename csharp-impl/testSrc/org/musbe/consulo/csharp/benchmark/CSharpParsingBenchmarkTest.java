@@ -0,0 +1,267 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.lang.CSharpFileType;
+import org.mustbe.consulo.csharp.lang.lexer.CSharpLexer;
+import org.mustbe.consulo.csharp.lang.lexer._CSharpLexer;
+import com.intellij.lang.ASTNode;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Lexer and parser throughput on generated sources. Each corpus is about {@link #LINE_COUNT} lines,
+ * tokens(or nodes) per second and allocated bytes are logged for each run. There no time limits - results depend on machine
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpParsingBenchmarkTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	private static final Logger LOG = Logger.getInstance(CSharpParsingBenchmarkTest.class);
+
+	private static final int LINE_COUNT = 50000;
+
+	public void testLinqLexer()
+	{
+		measureLexer("linq", buildLinqCorpus());
+	}
+
+	public void testLinqParser()
+	{
+		measureParser("linq", buildLinqCorpus());
+	}
+
+	public void testGenericLexer()
+	{
+		measureLexer("generic", buildGenericCorpus());
+	}
+
+	public void testGenericParser()
+	{
+		measureParser("generic", buildGenericCorpus());
+	}
+
+	public void testPreprocessorLexer()
+	{
+		measureLexer("preprocessor", buildPreprocessorCorpus());
+	}
+
+	public void testPreprocessorParser()
+	{
+		measureParser("preprocessor", buildPreprocessorCorpus());
+	}
+
+	public void testNestedExpressionLexer()
+	{
+		measureLexer("nested expression", buildNestedExpressionCorpus());
+	}
+
+	public void testNestedExpressionParser()
+	{
+		measureParser("nested expression", buildNestedExpressionCorpus());
+	}
+
+	private void measureLexer(@NotNull String name, @NotNull final String text)
+	{
+		measure(name + " _CSharpLexer", "tokens", new Computable<Integer>()
+		{
+			@Override
+			public Integer compute()
+			{
+				return countTokens(new _CSharpLexer(), text);
+			}
+		});
+
+		measure(name + " CSharpLexer", "tokens", new Computable<Integer>()
+		{
+			@Override
+			public Integer compute()
+			{
+				return countTokens(new CSharpLexer(), text);
+			}
+		});
+	}
+
+	private void measureParser(@NotNull String name, @NotNull final String text)
+	{
+		measure(name + " CSharpParser", "nodes", new Computable<Integer>()
+		{
+			@Override
+			public Integer compute()
+			{
+				PsiFile file = PsiFileFactory.getInstance(getProject()).createFileFromText("Benchmark.cs", CSharpFileType.INSTANCE, text);
+				return countNodes(file.getNode());
+			}
+		});
+	}
+
+	private static void measure(@NotNull String name, @NotNull String unit, @NotNull Computable<Integer> computable)
+	{
+		// warm up
+		assertTrue(computable.compute() > 0);
+
+		long allocatedBefore = getAllocatedBytes();
+		long start = System.nanoTime();
+
+		int count = computable.compute();
+
+		long time = System.nanoTime() - start;
+		long allocated = getAllocatedBytes() - allocatedBefore;
+
+		assertTrue(count > 0);
+		LOG.info(name + ": " + count + " " + unit + ", " + count * 1000000000L / Math.max(time, 1) + " " + unit + "/sec, " +
+				(allocatedBefore == -1 ? -1 : allocated / 1024) + " KB allocated");
+	}
+
+	private static int countTokens(@NotNull Lexer lexer, @NotNull String text)
+	{
+		int count = 0;
+		lexer.start(text);
+		while(lexer.getTokenType() != null)
+		{
+			count++;
+			lexer.advance();
+		}
+		return count;
+	}
+
+	private static int countNodes(@NotNull ASTNode node)
+	{
+		int count = 1;
+		for(ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext())
+		{
+			count += countNodes(child);
+		}
+		return count;
+	}
+
+	private static long getAllocatedBytes()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	@NotNull
+	private static String buildLinqCorpus()
+	{
+		StringBuilder builder = new StringBuilder("using System;\nusing System.Linq;\nusing System.Collections.Generic;\n\npublic class Linq\n{\n");
+		int lines = 6;
+		for(int i = 0; lines < LINE_COUNT; i++)
+		{
+			builder.append("\tpublic IEnumerable<int> Query").append(i).append("(List<int> list)\n\t{\n");
+			builder.append("\t\tvar q = from a in list\n");
+			builder.append("\t\t\tjoin b in list on a equals b into g\n");
+			builder.append("\t\t\tfrom c in g\n");
+			builder.append("\t\t\tlet d = a * c + ").append(i).append("\n");
+			builder.append("\t\t\twhere d > 10 && a != c\n");
+			builder.append("\t\t\torderby d descending, a\n");
+			builder.append("\t\t\tgroup d by a % 3 into x\n");
+			builder.append("\t\t\tselect x.Key;\n");
+			builder.append("\t\treturn q.Where(x => x > 0).Select((x, j) => x + j).OrderBy(x => x);\n");
+			builder.append("\t}\n\n");
+			lines += 13;
+		}
+		builder.append("}");
+		return builder.toString();
+	}
+
+	@NotNull
+	private static String buildGenericCorpus()
+	{
+		StringBuilder builder = new StringBuilder("using System;\nusing System.Collections.Generic;\n\n");
+		int lines = 3;
+		for(int i = 0; lines < LINE_COUNT; i++)
+		{
+			builder.append("public class Generic").append(i).append("<TKey, TValue> : Dictionary<TKey, List<KeyValuePair<TKey, TValue>>>\n");
+			builder.append("\twhere TKey : class, IComparable<TKey>, new()\n\twhere TValue : struct\n{\n");
+			builder.append("\tpublic Func<TKey, Dictionary<TKey, List<TValue>>> Field").append(i).append(";\n\n");
+			builder.append("\tpublic TResult Map<TResult, TOther>(Func<TKey, TValue, TResult> func, IList<TOther> other) where TResult : TOther\n");
+			builder.append("\t{\n");
+			builder.append("\t\tvar map = new Dictionary<TKey, List<Tuple<TValue, TOther>>>();\n");
+			builder.append("\t\tList<List<TValue?>> nested = new List<List<TValue?>>();\n");
+			builder.append("\t\treturn func(default(TKey), default(TValue));\n");
+			builder.append("\t}\n}\n\n");
+			lines += 13;
+		}
+		return builder.toString();
+	}
+
+	@NotNull
+	private static String buildPreprocessorCorpus()
+	{
+		StringBuilder builder = new StringBuilder("#define FEATURE_A\nusing System;\n\npublic class Preprocessor\n{\n");
+		int lines = 5;
+		for(int i = 0; lines < LINE_COUNT; i++)
+		{
+			builder.append("\t#region Method ").append(i).append("\n");
+			builder.append("#if DEBUG && !FEATURE_B\n");
+			builder.append("\tpublic void Method").append(i).append("(int a)\n\t{\n");
+			builder.append("#if FEATURE_A\n");
+			builder.append("\t\tConsole.WriteLine(a);\n");
+			builder.append("#elif FEATURE_C\n");
+			builder.append("\t\tConsole.WriteLine(a + 1);\n");
+			builder.append("#else\n");
+			builder.append("\t\tthrow new Exception();\n");
+			builder.append("#endif\n");
+			builder.append("\t}\n");
+			builder.append("#else\n");
+			builder.append("\tpublic void Method").append(i).append("()\n\t{\n\t}\n");
+			builder.append("#endif\n");
+			builder.append("\t#endregion\n\n");
+			lines += 20;
+		}
+		builder.append("}");
+		return builder.toString();
+	}
+
+	@NotNull
+	private static String buildNestedExpressionCorpus()
+	{
+		StringBuilder builder = new StringBuilder("public class Nested\n{\n");
+		int lines = 2;
+		for(int i = 0; lines < LINE_COUNT; i++)
+		{
+			builder.append("\tpublic int Method").append(i).append("(int a, int b)\n\t{\n\t\treturn ");
+			for(int depth = 0; depth < 30; depth++)
+			{
+				builder.append("(a + ");
+			}
+			builder.append(i);
+			for(int depth = 0; depth < 30; depth++)
+			{
+				builder.append(depth % 2 == 0 ? " * b)" : ") > 0 ? a : b");
+			}
+			builder.append(";\n\t}\n\n");
+			lines += 5;
+		}
+		builder.append("}");
+		return builder.toString();
+	}
+}
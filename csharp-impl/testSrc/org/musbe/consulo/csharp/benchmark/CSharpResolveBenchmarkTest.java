@@ -0,0 +1,293 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgumentListOwner;
+import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.impl.CSharpTypeUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpResolveContextUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpReferenceExpressionImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodResolver;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpResolveContext;
+import org.mustbe.consulo.dotnet.psi.DotNetNamedElement;
+import org.mustbe.consulo.dotnet.resolve.DotNetGenericExtractor;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Timing of hot resolve path on synthetic sources: deep hierarchy, wide overload set, many usings. Time per iteration is logged,
+ * there no time limits - results depend on machine.
+ * <p/>
+ * Each iteration runs after PSI modification: caches which depend on modification count(resolve results, resolve contexts, lazy type refs
+ * of interner) are dropped. Project caches which live across modifications(msil wrappers, canonical type refs, type name caches) stay warm
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpResolveBenchmarkTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	private static final Logger LOG = Logger.getInstance(CSharpResolveBenchmarkTest.class);
+
+	private static final int HIERARCHY_DEPTH = 40;
+	private static final int OVERLOAD_COUNT = 30;
+	private static final int USING_COUNT = 40;
+	private static final int ITERATIONS = 100;
+
+	private static final String[] OVERLOAD_TYPES = {"int", "string", "long", "double", "bool", "char"};
+
+	public void testDeepHierarchyMemberResolveAfterModification()
+	{
+		PsiFile file = myFixture.configureByText("Deep.cs", buildDeepHierarchy());
+
+		final CSharpReferenceExpressionImpl reference = findReference(file, "M0();");
+
+		measure("resolve member from deep hierarchy", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				assertTrue(reference.multiResolveImpl(reference.kind(), true).length > 0);
+			}
+		});
+	}
+
+	public void testDeepHierarchyIsInheritableAfterModification()
+	{
+		PsiFile file = myFixture.configureByText("Deep.cs", buildDeepHierarchy());
+
+		final PsiElement scope = file.getLastChild();
+		final DotNetTypeRef top = new CSharpTypeRefByTypeDeclaration(findType(file, "C0"));
+		final DotNetTypeRef target = new CSharpTypeRefByTypeDeclaration(findType(file, "C" + (HIERARCHY_DEPTH - 1)));
+
+		measure("isInheritable on deep hierarchy", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				assertTrue(CSharpTypeUtil.isInheritable(top, target, scope));
+				assertFalse(CSharpTypeUtil.isInheritable(target, top, scope));
+			}
+		});
+	}
+
+	public void testDeepHierarchyCreateContextAfterModification()
+	{
+		PsiFile file = myFixture.configureByText("Deep.cs", buildDeepHierarchy());
+
+		final CSharpTypeDeclaration typeDeclaration = findType(file, "C" + (HIERARCHY_DEPTH - 1));
+		final GlobalSearchScope resolveScope = typeDeclaration.getResolveScope();
+
+		measure("createContext on deep hierarchy", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				CSharpResolveContext context = CSharpResolveContextUtil.createContext(DotNetGenericExtractor.EMPTY, resolveScope,
+						typeDeclaration);
+				assertTrue(context.findByName("M0", true, typeDeclaration).length > 0);
+			}
+		});
+	}
+
+	public void testWideOverloadResolveAfterModification()
+	{
+		PsiFile file = myFixture.configureByText("Wide.cs", buildWideOverloads());
+
+		final CSharpReferenceExpressionImpl reference = findReference(file, "Foo(1, 2, 3)");
+
+		measure("resolve call with wide overload set", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				assertTrue(reference.multiResolveImpl(reference.kind(), true).length > 0);
+			}
+		});
+	}
+
+	public void testWideOverloadMethodCalcAfterModification()
+	{
+		PsiFile file = myFixture.configureByText("Wide.cs", buildWideOverloads());
+
+		CSharpReferenceExpressionImpl reference = findReference(file, "Foo(1, 2, 3)");
+		final CSharpCallArgumentListOwner callArgumentListOwner = (CSharpCallArgumentListOwner) reference.getParent();
+
+		final List<CSharpMethodDeclaration> methods = new ArrayList<CSharpMethodDeclaration>();
+		for(DotNetNamedElement element : findType(file, "Wide").getMembers())
+		{
+			if(element instanceof CSharpMethodDeclaration)
+			{
+				methods.add((CSharpMethodDeclaration) element);
+			}
+		}
+		assertEquals(OVERLOAD_COUNT, methods.size());
+
+		measure("MethodResolver.calc with wide overload set", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				int valid = 0;
+				for(CSharpMethodDeclaration method : methods)
+				{
+					if(MethodResolver.calc(callArgumentListOwner, method, callArgumentListOwner).isValidResult())
+					{
+						valid++;
+					}
+				}
+				assertTrue(valid > 0);
+			}
+		});
+	}
+
+	public void testManyUsingsTypeResolveAfterModification()
+	{
+		for(int i = 0; i < USING_COUNT; i++)
+		{
+			myFixture.addFileToProject("Ns" + i + ".cs", "namespace Bench.Ns" + i + "\n{\n\tpublic class Type" + i + "\n\t{\n\t}\n}");
+		}
+
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < USING_COUNT; i++)
+		{
+			builder.append("using Bench.Ns").append(i).append(";\n");
+		}
+		builder.append("\npublic class Usage\n{\n");
+		builder.append("\tpublic Type").append(USING_COUNT - 1).append(" myField;\n");
+		builder.append("}");
+
+		PsiFile file = myFixture.configureByText("Usage.cs", builder.toString());
+
+		final CSharpReferenceExpressionImpl reference = findReference(file, "Type" + (USING_COUNT - 1) + " myField");
+
+		measure("resolve type with many usings", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				assertTrue(reference.multiResolveImpl(reference.kind(), true).length > 0);
+			}
+		});
+	}
+
+	@NotNull
+	private static String buildDeepHierarchy()
+	{
+		StringBuilder builder = new StringBuilder("namespace Bench.Deep\n{\n");
+		for(int i = 0; i < HIERARCHY_DEPTH; i++)
+		{
+			builder.append("\tpublic class C").append(i);
+			if(i > 0)
+			{
+				builder.append(" : C").append(i - 1);
+			}
+			builder.append("\n\t{\n\t\tpublic void M").append(i).append("()\n\t\t{\n\t\t}\n\t}\n\n");
+		}
+		builder.append("\tpublic class Usage\n\t{\n\t\tpublic void Test()\n\t\t{\n");
+		builder.append("\t\t\tnew C").append(HIERARCHY_DEPTH - 1).append("().M0();\n");
+		builder.append("\t\t}\n\t}\n}");
+		return builder.toString();
+	}
+
+	@NotNull
+	private static String buildWideOverloads()
+	{
+		StringBuilder builder = new StringBuilder("namespace Bench.Wide\n{\n\tpublic class Wide\n\t{\n");
+		for(int i = 0; i < OVERLOAD_COUNT; i++)
+		{
+			String type = OVERLOAD_TYPES[i / 5 % OVERLOAD_TYPES.length];
+			builder.append("\t\tpublic void Foo(");
+			for(int p = 0; p <= i % 5; p++)
+			{
+				if(p != 0)
+				{
+					builder.append(", ");
+				}
+				builder.append(type).append(" p").append(p);
+			}
+			builder.append(")\n\t\t{\n\t\t}\n\n");
+		}
+		builder.append("\t\tpublic void Test()\n\t\t{\n\t\t\tFoo(1, 2, 3);\n\t\t}\n\t}\n}");
+		return builder.toString();
+	}
+
+	@NotNull
+	private static CSharpReferenceExpressionImpl findReference(@NotNull PsiFile file, @NotNull String marker)
+	{
+		int offset = file.getText().indexOf(marker);
+		assertTrue(marker, offset != -1);
+
+		CSharpReferenceExpressionImpl reference = PsiTreeUtil.getParentOfType(file.findElementAt(offset), CSharpReferenceExpressionImpl.class);
+		assertNotNull(marker, reference);
+		return reference;
+	}
+
+	@NotNull
+	private static CSharpTypeDeclaration findType(@NotNull PsiFile file, @NotNull String name)
+	{
+		for(CSharpTypeDeclaration typeDeclaration : PsiTreeUtil.findChildrenOfType(file, CSharpTypeDeclaration.class))
+		{
+			if(name.equals(typeDeclaration.getName()))
+			{
+				return typeDeclaration;
+			}
+		}
+		throw new AssertionError(name);
+	}
+
+	private void measure(@NotNull String name, @NotNull Runnable runnable)
+	{
+		// warm up
+		dropCaches();
+		runnable.run();
+
+		long prefilterChecked = MethodResolver.getPrefilterCheckedCount();
+		long prefilterPruned = MethodResolver.getPrefilterPrunedCount();
+
+		long start = System.nanoTime();
+		for(int i = 0; i < ITERATIONS; i++)
+		{
+			dropCaches();
+			runnable.run();
+		}
+		long time = System.nanoTime() - start;
+
+		prefilterChecked = MethodResolver.getPrefilterCheckedCount() - prefilterChecked;
+		prefilterPruned = MethodResolver.getPrefilterPrunedCount() - prefilterPruned;
+
+		LOG.info(name + ": " + time / ITERATIONS / 1000 + " us per iteration, overload prefilter pruned " + prefilterPruned + " of " +
+				prefilterChecked + " candidates");
+	}
+
+	private void dropCaches()
+	{
+		((PsiModificationTrackerImpl) PsiManager.getInstance(getProject()).getModificationTracker()).incCounter();
+	}
+}
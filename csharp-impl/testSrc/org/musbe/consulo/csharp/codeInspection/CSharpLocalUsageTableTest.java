@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.codeInspection;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.ide.codeInspection.unusedSymbol.LocalUsageTable;
+import org.mustbe.consulo.csharp.lang.psi.CSharpLocalVariable;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiReference;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Check that usages from {@link LocalUsageTable} are same as usages found by search for each variable
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpLocalUsageTableTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	public void testSimpleUsages()
+	{
+		doTest("public class A\n{\n\tpublic void Call(int p)\n\t{\n" +
+				"\t\tint a = 1;\n\t\tint b;\n\t\tint c = a + p;\n\t\tint unused = 0;\n\t\tb = c;\n\t}\n}");
+	}
+
+	public void testSameNamesInOtherScopes()
+	{
+		doTest("public class A\n{\n\tpublic int a;\n\n\tpublic void Call(int p)\n\t{\n" +
+				"\t\t{\n\t\t\tint a = 1;\n\t\t\tCall(a);\n\t\t}\n" +
+				"\t\t{\n\t\t\tint a = 2;\n\t\t\tthis.a = 0;\n\t\t}\n\t}\n\n" +
+				"\tpublic void Other()\n\t{\n\t\tint p = a;\n\t\tCall(p);\n\t}\n}");
+	}
+
+	public void testLambdasAndLoops()
+	{
+		doTest("using System;\n\npublic class A\n{\n\tpublic void Call(int[] array)\n\t{\n" +
+				"\t\tint sum = 0;\n\t\tforeach(int item in array)\n\t\t{\n\t\t\tsum += item;\n\t\t}\n" +
+				"\t\tfor(int i = 0; i < 10; i++)\n\t\t{\n\t\t}\n" +
+				"\t\tint captured = 1;\n\t\tFunc<int, int> func = x => x + captured;\n\t}\n}");
+	}
+
+	private void doTest(@NotNull String text)
+	{
+		myFixture.configureByText("Test.cs", text);
+
+		Collection<CSharpLocalVariable> variables = PsiTreeUtil.findChildrenOfType(myFixture.getFile(), CSharpLocalVariable.class);
+		assertFalse(variables.isEmpty());
+
+		for(CSharpLocalVariable variable : variables)
+		{
+			Set<PsiElement> expected = new HashSet<PsiElement>();
+			for(PsiReference reference : ReferencesSearch.search(variable, variable.getUseScope()).findAll())
+			{
+				expected.add(reference.getElement());
+			}
+
+			LocalUsageTable table = LocalUsageTable.getInstance(variable);
+			assertEquals(variable.getName(), expected, new HashSet<PsiElement>(table.getUsages(variable)));
+			assertEquals(variable.getName(), !expected.isEmpty(), table.isUsed(variable));
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.controlFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.lang.psi.CSharpLocalVariable;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlow;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpControlFlowUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.controlFlow.CSharpInstruction;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpBlockStatementImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpExpressionStatementImpl;
+import org.mustbe.consulo.dotnet.psi.DotNetMethodDeclaration;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpControlFlowTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	public void testAssignedInBothBranches()
+	{
+		assertEquals(0, getUnassignedReads("int a; if(b) { a = 1; } else { a = 2; } Use(a);").size());
+	}
+
+	public void testAssignedInOneBranch()
+	{
+		assertEquals(1, getUnassignedReads("int a; if(b) { a = 1; } Use(a);").size());
+	}
+
+	public void testShortCircuitCondition()
+	{
+		assertEquals(0, getUnassignedReads("int a; if(b && Try(out a)) { Use(a); }").size());
+		assertEquals(1, getUnassignedReads("int a; if(b || Try(out a)) { Use(a); }").size());
+	}
+
+	public void testInfiniteLoop()
+	{
+		assertEquals(0, getUnassignedReads("int a; while(true) { if(b) { a = 1; break; } } Use(a);").size());
+	}
+
+	public void testCatchAfterWriteInTry()
+	{
+		assertEquals(1, getUnassignedReads("int a; try { Call(); a = 1; } catch { Use(a); }").size());
+	}
+
+	public void testUnreachableAfterReturn()
+	{
+		assertFalse(isReachable("return; Call();", "Call();"));
+	}
+
+	public void testReachableAfterFinally()
+	{
+		assertTrue(isReachable("try { Call(); } finally { Other(); } Last();", "Last();"));
+		assertTrue(isReachable("try { return; } finally { Other(); } Last();", "Other();"));
+		assertFalse(isReachable("try { return; } finally { Other(); } Last();", "Last();"));
+	}
+
+	public void testUnusedWrite()
+	{
+		CSharpControlFlow controlFlow = configure("int a = 1; a = 2; Use(a);");
+		CSharpLocalVariable variable = PsiTreeUtil.findChildOfType(myFixture.getFile(), CSharpLocalVariable.class);
+		assertNotNull(variable);
+		assertEquals(1, controlFlow.getUnusedWriteElements(variable).size());
+		assertSame(variable, controlFlow.getUnusedWriteElements(variable).iterator().next());
+	}
+
+	public void testReadInsideLambda()
+	{
+		assertEquals(1, getUnassignedReads("int a; Action f = () => Use(a);").size());
+		assertEquals(0, getUnassignedReads("int a = 1; Action f = delegate { Use(a); };").size());
+	}
+
+	public void testWriteInsideLambda()
+	{
+		assertEquals(0, getUnassignedReads("int a; Action f = () => { a = 1; };").size());
+		assertEquals(0, getUnassignedReads("int a; Action f = () => Try(out a);").size());
+		// lambda can be not invoked
+		assertEquals(1, getUnassignedReads("int a; Action f = () => { a = 1; }; Use(a);").size());
+		assertEquals(1, getUnassignedReads("int a; Action f = () => { a += 1; };").size());
+	}
+
+	public void testWriteInsideLambdaIsNotUnused()
+	{
+		assertEquals(0, getUnusedWrites("int a = 1; Action f = () => { a = 2; }; Use(a);"));
+	}
+
+	public void testMemberAssignment()
+	{
+		assertEquals(0, getUnusedWrites("var p = new Person(); p.Name = \"a\"; Save(p);"));
+		assertEquals(0, getUnusedWrites("var p = new int[1]; p[0] = 1;"));
+		assertEquals(1, getUnassignedReads("Person p; p.Name = \"a\";").size());
+		// field assignment can assign struct variable - only qualifier read is unassigned
+		assertEquals(1, getUnassignedReads("Point s; s.X = 1; Use(s);").size());
+		assertEquals(0, getUnusedWrites("Point s; s.X = 1;"));
+	}
+
+	public void testOutAndRefArguments()
+	{
+		assertEquals(0, getUnassignedReads("int a; Try(out a); Use(a);").size());
+		assertEquals(1, getUnassignedReads("int a; Try(ref a);").size());
+		assertEquals(1, getUnusedWrites("int a = 1; Try(out a); Use(a);"));
+		assertEquals(0, getUnusedWrites("int a = 1; Try(ref a); Use(a);"));
+	}
+
+	public void testAwait()
+	{
+		assertEquals(0, getUnassignedReads("int a; a = await Get(); Use(a);").size());
+		assertEquals(1, getUnusedWrites("int a = await Get(); a = await Get(); Use(a);"));
+	}
+
+	private int getUnusedWrites(@NotNull String body)
+	{
+		CSharpControlFlow controlFlow = configure(body);
+		CSharpLocalVariable variable = PsiTreeUtil.findChildOfType(myFixture.getFile(), CSharpLocalVariable.class);
+		assertNotNull(variable);
+		return controlFlow.getUnusedWriteElements(variable).size();
+	}
+
+	@NotNull
+	private List<PsiElement> getUnassignedReads(@NotNull String body)
+	{
+		CSharpControlFlow controlFlow = configure(body);
+
+		List<PsiElement> reads = new ArrayList<PsiElement>();
+		for(CSharpInstruction instruction : controlFlow.getInstructions())
+		{
+			if(instruction.getKind() == CSharpInstruction.Kind.READ && controlFlow.isMaybeUnassigned(instruction))
+			{
+				reads.add(instruction.getElement());
+			}
+		}
+		return reads;
+	}
+
+	private boolean isReachable(@NotNull String body, @NotNull String statementText)
+	{
+		CSharpControlFlow controlFlow = configure(body);
+		for(CSharpExpressionStatementImpl statement : PsiTreeUtil.findChildrenOfType(myFixture.getFile(), CSharpExpressionStatementImpl.class))
+		{
+			if(statement.getText().equals(statementText))
+			{
+				return controlFlow.isReachable(statement);
+			}
+		}
+		throw new IllegalArgumentException(statementText);
+	}
+
+	@NotNull
+	private CSharpControlFlow configure(@NotNull String body)
+	{
+		myFixture.configureByText("Test.cs", "public class Test\n{\n\tpublic async void Method(bool b)\n\t{\n\t\t" + body + "\n\t}\n}");
+
+		DotNetMethodDeclaration method = PsiTreeUtil.findChildOfType(myFixture.getFile(), DotNetMethodDeclaration.class);
+		assertNotNull(method);
+		CSharpBlockStatementImpl block = PsiTreeUtil.getChildOfType(method, CSharpBlockStatementImpl.class);
+		assertNotNull(block);
+		return CSharpControlFlowUtil.getControlFlow(block);
+	}
+}
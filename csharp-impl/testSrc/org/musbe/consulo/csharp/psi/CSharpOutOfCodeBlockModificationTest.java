@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.psi;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Scripted editing session, which count out of code block modifications
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpOutOfCodeBlockModificationTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	private static final String TEXT = "using System;\n" +
+			"\n" +
+			"[assembly: CLSCompliant(true/*assembly*/)]\n" +
+			"\n" +
+			"public class Test : Attribute\n" +
+			"{\n" +
+			"\t[Obsolete(\"a/*attribute*/\")]\n" +
+			"\tpublic Func<int, int> myField = x => x/*lambda*/;\n" +
+			"\n" +
+			"\tpublic int myValue = 1/*field*/;\n" +
+			"\n" +
+			"\tpublic int Property { get; set; } = 1/*property*/;\n" +
+			"\n" +
+			"\tpublic int Expression => 1/*expression*/;\n" +
+			"\n" +
+			"\tpublic int Method() => 1/*method*/;\n" +
+			"\n" +
+			"\tpublic Test() : this(1/*super*/)\n" +
+			"\t{\n" +
+			"\t}\n" +
+			"\n" +
+			"\tpublic Test(int a = 1/*default*/)\n" +
+			"\t{\n" +
+			"\t\tint b = 1/*body*/;\n" +
+			"\t}\n" +
+			"\n" +
+			"\t/*member*/\n" +
+			"}";
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		myFixture.configureByText("Test.cs", TEXT);
+	}
+
+	public void testLambdaInFieldInitializer()
+	{
+		assertEquals(0, typeBefore("/*lambda*/", "x"));
+	}
+
+	public void testFieldInitializer()
+	{
+		assertEquals(0, typeBefore("/*field*/", "2"));
+	}
+
+	public void testPropertyInitializer()
+	{
+		assertEquals(0, typeBefore("/*property*/", "2"));
+	}
+
+	public void testExpressionBodies()
+	{
+		assertEquals(0, typeBefore("/*expression*/", "2"));
+		assertEquals(0, typeBefore("/*method*/", "2"));
+	}
+
+	public void testAttributeArgument()
+	{
+		assertEquals(0, typeBefore("/*attribute*/", "b"));
+	}
+
+	public void testAssemblyAttributeArgument()
+	{
+		assertTrue(typeBefore("/*assembly*/", "e") > 0);
+	}
+
+	public void testConstructorSuperCallArgument()
+	{
+		assertEquals(0, typeBefore("/*super*/", "2"));
+	}
+
+	public void testDefaultParameterValue()
+	{
+		assertEquals(0, typeBefore("/*default*/", "2"));
+	}
+
+	public void testMethodBody()
+	{
+		assertEquals(0, typeBefore("/*body*/", "2"));
+	}
+
+	public void testNewMember()
+	{
+		assertTrue(typeBefore("/*member*/", "public int myNewField;") > 0);
+	}
+
+	public void testEditingSession()
+	{
+		long count = 0;
+		count += typeBefore("/*lambda*/", "x");
+		count += typeBefore("/*field*/", "2");
+		count += typeBefore("/*property*/", "2");
+		count += typeBefore("/*expression*/", "2");
+		count += typeBefore("/*method*/", "2");
+		count += typeBefore("/*attribute*/", "b");
+		count += typeBefore("/*super*/", "2");
+		count += typeBefore("/*default*/", "2");
+		count += typeBefore("/*body*/", "2");
+		assertEquals(0, count);
+	}
+
+	/**
+	 * Type text char by char before marker
+	 *
+	 * @return count of out of code block modifications
+	 */
+	private long typeBefore(final String marker, final String text)
+	{
+		PsiModificationTracker modificationTracker = PsiModificationTracker.SERVICE.getInstance(getProject());
+		long oldCount = modificationTracker.getOutOfCodeBlockModificationCount();
+
+		final Document document = myFixture.getEditor().getDocument();
+		for(int i = 0; i < text.length(); i++)
+		{
+			final String ch = String.valueOf(text.charAt(i));
+			new WriteCommandAction.Simple(getProject())
+			{
+				@Override
+				protected void run() throws Throwable
+				{
+					int offset = document.getText().indexOf(marker);
+					assertTrue(marker, offset != -1);
+					document.insertString(offset, ch);
+					PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+				}
+			}.execute();
+		}
+		return modificationTracker.getOutOfCodeBlockModificationCount() - oldCount;
+	}
+}
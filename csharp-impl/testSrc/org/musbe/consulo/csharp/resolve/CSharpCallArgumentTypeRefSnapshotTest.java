@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgument;
+import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMethodCallExpressionImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.CallArgumentTypeRefSnapshot;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodCalcResult;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodResolver;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByQName;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Check that {@link CallArgumentTypeRefSnapshot} shared between overload candidates calculates each type ref once
+ * and gives same results as calculation without snapshot
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpCallArgumentTypeRefSnapshotTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	private static final String OVERLOADS = "void M(int a) {}\nvoid M(int a, string b) {}\nvoid M(long a, string b = null) {}\n" +
+			"void M(object a, params object[] b) {}\nvoid M(string a, int b) {}";
+
+	public void testTypeRefsAreCalculatedOnce()
+	{
+		CSharpMethodCallExpressionImpl call = configure("M(1, \"a\", this);");
+
+		CSharpCallArgument[] callArguments = call.getCallArguments();
+		assertEquals(3, callArguments.length);
+
+		CallArgumentTypeRefSnapshot snapshot = new CallArgumentTypeRefSnapshot(callArguments);
+		for(int i = 0; i < callArguments.length; i++)
+		{
+			DotNetTypeRef typeRef = snapshot.getTypeRef(i);
+			assertSame(typeRef, snapshot.getTypeRef(i));
+			assertSame(typeRef, snapshot.getTypeRef(callArguments[i]));
+		}
+	}
+
+	public void testSameResultsAsWithoutSnapshot()
+	{
+		for(String text : new String[]{"M(1);", "M(1, \"a\");", "M(1L);", "M(\"a\", 1);", "M(1, 2, 3);", "M(\"a\", \"b\");"})
+		{
+			CSharpMethodCallExpressionImpl call = configure(text);
+
+			CallArgumentTypeRefSnapshot snapshot = new CallArgumentTypeRefSnapshot(call.getCallArguments());
+			for(CSharpMethodDeclaration method : PsiTreeUtil.findChildrenOfType(myFixture.getFile(), CSharpMethodDeclaration.class))
+			{
+				if(!"M".equals(method.getName()))
+				{
+					continue;
+				}
+
+				MethodCalcResult expected = MethodResolver.calc(call.getCallArguments(), method, call);
+				MethodCalcResult actual = MethodResolver.calc(snapshot, method, call);
+
+				String message = text + " -> " + method.getText();
+				assertEquals(message, expected.isValidResult(), actual.isValidResult());
+				assertEquals(message, expected.getWeight(), actual.getWeight());
+			}
+		}
+	}
+
+	public void testLambdaTypeRefIsCachedByTarget()
+	{
+		CSharpMethodCallExpressionImpl call = configure("M(() => 1);");
+
+		CSharpCallArgument lambdaArgument = call.getCallArguments()[0];
+		CallArgumentTypeRefSnapshot snapshot = new CallArgumentTypeRefSnapshot(call.getCallArguments());
+
+		final int[] count = new int[1];
+		Computable<DotNetTypeRef> computable = new Computable<DotNetTypeRef>()
+		{
+			@Override
+			public DotNetTypeRef compute()
+			{
+				count[0]++;
+				return DotNetTypeRef.ERROR_TYPE;
+			}
+		};
+
+		snapshot.getLambdaTypeRef(lambdaArgument, new CSharpTypeRefByQName("System.Func`1"), computable);
+		snapshot.getLambdaTypeRef(lambdaArgument, new CSharpTypeRefByQName("System.Func`1"), computable);
+		assertEquals(1, count[0]);
+
+		snapshot.getLambdaTypeRef(lambdaArgument, new CSharpTypeRefByQName("System.Action"), computable);
+		assertEquals(2, count[0]);
+
+		// no key for target - never cached
+		snapshot.getLambdaTypeRef(lambdaArgument, DotNetTypeRef.ERROR_TYPE, computable);
+		snapshot.getLambdaTypeRef(lambdaArgument, DotNetTypeRef.ERROR_TYPE, computable);
+		assertEquals(4, count[0]);
+	}
+
+	@NotNull
+	private CSharpMethodCallExpressionImpl configure(@NotNull String call)
+	{
+		myFixture.configureByText("Test.cs", "public class A\n{\n" + OVERLOADS + "\n\nvoid Test()\n{\n" + call + "\n}\n}");
+
+		CSharpMethodCallExpressionImpl callExpression = PsiTreeUtil.findChildOfType(myFixture.getFile(), CSharpMethodCallExpressionImpl.class);
+		assertNotNull(callExpression);
+		return callExpression;
+	}
+}
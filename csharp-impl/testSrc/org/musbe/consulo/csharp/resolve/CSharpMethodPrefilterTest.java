@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMethodCallExpressionImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodResolver;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Check that {@link MethodResolver#isPossiblyApplicable} rejects only candidates which are not valid by {@link MethodResolver#calc}
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpMethodPrefilterTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	public void testParams()
+	{
+		doTest("void M(params int[] a) {}\nvoid M(int a, params int[] b) {}\nvoid M(string a, params string[] b) {}",
+				"M();\nM(1);\nM(1, 2, 3);\nM(new int[0]);\nM(\"a\", \"b\");");
+	}
+
+	public void testOptional()
+	{
+		doTest("void M(int a, int b = 1) {}\nvoid M(int a, string b = null, int c = 2) {}\nvoid M(string a = null) {}",
+				"M();\nM(1);\nM(1, 2);\nM(1, null, 3);\nM(1, 2, 3, 4);");
+	}
+
+	public void testNamed()
+	{
+		doTest("void M(int a, int b) {}\nvoid M(int a, int c = 0) {}\nvoid M(string d) {}",
+				"M(a: 1, b: 2);\nM(1, c: 2);\nM(b: 1, a: 2);\nM(d: \"d\");\nM(e: 1);\nM(a: 1);");
+	}
+
+	public void testTooManyArguments()
+	{
+		doTest("void M() {}\nvoid M(int a) {}\nvoid M(int a, int b) {}",
+				"M();\nM(1);\nM(1, 2);\nM(1, 2, 3);\nM(1, 2, 3, 4);");
+	}
+
+	private void doTest(@NotNull String methods, @NotNull String calls)
+	{
+		myFixture.configureByText("Test.cs", "public class A\n{\n" + methods + "\n\nvoid Test()\n{\n" + calls + "\n}\n}");
+
+		int pruned = 0;
+		for(CSharpMethodCallExpressionImpl call : PsiTreeUtil.findChildrenOfType(myFixture.getFile(), CSharpMethodCallExpressionImpl.class))
+		{
+			for(CSharpMethodDeclaration method : PsiTreeUtil.findChildrenOfType(myFixture.getFile(), CSharpMethodDeclaration.class))
+			{
+				if(!"M".equals(method.getName()) || MethodResolver.isPossiblyApplicable(call.getCallArguments(), method))
+				{
+					continue;
+				}
+
+				pruned++;
+				assertFalse(call.getText() + " -> " + method.getText(), MethodResolver.calc(call, method, call).isValidResult());
+			}
+		}
+		assertTrue(pruned > 0);
+	}
+}
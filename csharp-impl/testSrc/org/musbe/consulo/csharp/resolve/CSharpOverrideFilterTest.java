@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.musbe.consulo.csharp.resolve;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.csharp.lang.psi.CSharpElementCompareUtil;
+import org.mustbe.consulo.csharp.lang.psi.CSharpFile;
+import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpElementGroupImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.overrideSystem.OverrideProcessor;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.overrideSystem.OverrideUtil;
+import org.mustbe.consulo.dotnet.psi.DotNetQualifiedElement;
+import org.mustbe.consulo.dotnet.psi.DotNetVirtualImplementOwner;
+import com.intellij.psi.PsiElement;
+import com.intellij.testFramework.fixtures.LightPlatformCodeInsightFixtureTestCase;
+
+/**
+ * Check that filter by override keys gives same result as comparing of all element pairs
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpOverrideFilterTest extends LightPlatformCodeInsightFixtureTestCase
+{
+	public void testMethods()
+	{
+		doTest("public class A { public virtual void Call() {} public virtual void Call(A a) {} public void Call(B b) {}\n" +
+				"public void Call<T>() {} }\n" +
+				"public class B : A { public override void Call() {} public new void Call(A a) {} public void Call(A a, B b) {}\n" +
+				"public void Call<T>() {} }");
+	}
+
+	public void testPropertiesAndFields()
+	{
+		doTest("public class A { public virtual A Value { get; set; } public A Field; public event System.Action Event; }\n" +
+				"public class B : A { public override A Value { get; set; } public new B Field; public B Other { get; set; } }");
+	}
+
+	public void testExplicitImplementation()
+	{
+		doTest("public interface I { void Call(); A this[A a] { get; } }\n" +
+				"public class A : I { void I.Call() {} public void Call() {}\n" +
+				"A I.this[A a] { get { return a; } } public A this[A a] { get { return a; } } }");
+	}
+
+	public void testConstructorsAndNestedTypes()
+	{
+		doTest("public class A { public A() {} public A(A a) {} static A() {} public class N {} public class N<T> {} }\n" +
+				"public class B : A { public B() {} public B(A a) {} public class N {} }");
+	}
+
+	private void doTest(@NotNull String text)
+	{
+		myFixture.configureByText("Test.cs", text);
+
+		List<PsiElement> elements = new ArrayList<PsiElement>();
+		CSharpTypeDeclaration scope = null;
+		for(DotNetQualifiedElement member : ((CSharpFile) myFixture.getFile()).getMembers())
+		{
+			CSharpTypeDeclaration typeDeclaration = (CSharpTypeDeclaration) member;
+			Collections.addAll(elements, typeDeclaration.getMembers());
+			scope = typeDeclaration;
+		}
+		assertNotNull(scope);
+
+		OverrideProcessor.Collector expectedOverrides = new OverrideProcessor.Collector();
+		List<PsiElement> expected = filterPairwise(scope, elements, expectedOverrides);
+
+		OverrideProcessor.Collector actualOverrides = new OverrideProcessor.Collector();
+		List<PsiElement> actual = new ArrayList<PsiElement>();
+		for(PsiElement element : OverrideUtil.filterOverrideElements(scope, elements, actualOverrides))
+		{
+			if(element instanceof CSharpElementGroupImpl)
+			{
+				actual.addAll(((CSharpElementGroupImpl<?>) element).getElements());
+			}
+			else
+			{
+				actual.add(element);
+			}
+		}
+
+		assertEquals(expectedOverrides.getResults(), actualOverrides.getResults());
+		assertEquals(sortByOffset(expected), sortByOffset(actual));
+	}
+
+	/**
+	 * Previous implementation of {@link OverrideUtil#filterOverrideElements}, without grouping to methods
+	 */
+	@NotNull
+	private static List<PsiElement> filterPairwise(@NotNull PsiElement scopeElement,
+			@NotNull List<PsiElement> elements,
+			@NotNull OverrideProcessor overrideProcessor)
+	{
+		List<PsiElement> copyElements = new ArrayList<PsiElement>(elements);
+
+		for(PsiElement element : elements)
+		{
+			if(!copyElements.contains(element))
+			{
+				continue;
+			}
+
+			if(element instanceof DotNetVirtualImplementOwner)
+			{
+				if(element instanceof CSharpMethodDeclaration && ((CSharpMethodDeclaration) element).isDelegate())
+				{
+					continue;
+				}
+				DotNetVirtualImplementOwner virtualImplementOwner = (DotNetVirtualImplementOwner) element;
+
+				for(PsiElement tempIterateElement : elements)
+				{
+					if(tempIterateElement == element)
+					{
+						continue;
+					}
+
+					if(CSharpElementCompareUtil.isEqual(tempIterateElement, element, CSharpElementCompareUtil.CHECK_RETURN_TYPE, scopeElement))
+					{
+						overrideProcessor.elementOverride(virtualImplementOwner, (DotNetVirtualImplementOwner) tempIterateElement);
+						copyElements.remove(tempIterateElement);
+					}
+				}
+
+				if(virtualImplementOwner.getTypeForImplement() != null)
+				{
+					copyElements.remove(element);
+				}
+			}
+		}
+		return copyElements;
+	}
+
+	@NotNull
+	private static List<Integer> sortByOffset(@NotNull List<PsiElement> elements)
+	{
+		List<Integer> offsets = new ArrayList<Integer>(elements.size());
+		for(PsiElement element : elements)
+		{
+			offsets.add(element.getTextOffset());
+		}
+		Collections.sort(offsets);
+		return offsets;
+	}
+}
@@ -42,11 +42,11 @@ public class CSharpLexer extends MergingLexerAdapterBase
 
 	private static class MyMergeFunction implements MergeFunction
 	{
-		private List<TextRange> myRanges;
+		private final DisabledRangeIndex myRanges;
 
 		private MyMergeFunction(List<TextRange> ranges)
 		{
-			myRanges = ranges;
+			myRanges = new DisabledRangeIndex(ranges);
 		}
 
 		@Override
@@ -92,7 +92,7 @@ public class CSharpLexer extends MergingLexerAdapterBase
 		}
 
 		@Nullable
-		private static IElementType modifyNonActiveSymbols(Lexer originalLexer, List<TextRange> textRanges)
+		private static IElementType modifyNonActiveSymbols(Lexer originalLexer, DisabledRangeIndex textRanges)
 		{
 			IElementType tokenType = originalLexer.getTokenType();
 			if(tokenType == null)
@@ -105,13 +105,9 @@ public class CSharpLexer extends MergingLexerAdapterBase
 				return tokenType;
 			}
 
-			for(int i = 0; i < textRanges.size(); i++)
+			if(textRanges.contains(originalLexer.getTokenStart()))
 			{
-				TextRange textRange = textRanges.get(i);
-				if(textRange.contains(originalLexer.getTokenStart()))
-				{
-					return CSharpTokens.NON_ACTIVE_SYMBOL;
-				}
+				return CSharpTokens.NON_ACTIVE_SYMBOL;
 			}
 			return tokenType;
 		}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.lexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import com.intellij.openapi.util.TextRange;
+
+/**
+ * Sorted and merged disabled ranges(from #if blocks). Lexer asks offsets in increasing order, that why we store cursor
+ * and move it forward. If offset is less than previous - cursor is reset by binary search
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+class DisabledRangeIndex
+{
+	private static final Comparator<TextRange> ourStartComparator = new Comparator<TextRange>()
+	{
+		@Override
+		public int compare(TextRange o1, TextRange o2)
+		{
+			return o1.getStartOffset() - o2.getStartOffset();
+		}
+	};
+
+	private final int[] myStarts;
+	private final int[] myEnds;
+	private int myCursor;
+
+	DisabledRangeIndex(@NotNull List<TextRange> ranges)
+	{
+		List<TextRange> sorted = new ArrayList<TextRange>(ranges.size());
+		for(TextRange range : ranges)
+		{
+			if(!range.isEmpty())
+			{
+				sorted.add(range);
+			}
+		}
+		Collections.sort(sorted, ourStartComparator);
+
+		int[] starts = new int[sorted.size()];
+		int[] ends = new int[sorted.size()];
+		int size = 0;
+		for(TextRange range : sorted)
+		{
+			if(size > 0 && range.getStartOffset() <= ends[size - 1])
+			{
+				ends[size - 1] = Math.max(ends[size - 1], range.getEndOffset());
+			}
+			else
+			{
+				starts[size] = range.getStartOffset();
+				ends[size] = range.getEndOffset();
+				size++;
+			}
+		}
+
+		myStarts = size == starts.length ? starts : copyOf(starts, size);
+		myEnds = size == ends.length ? ends : copyOf(ends, size);
+	}
+
+	public boolean isEmpty()
+	{
+		return myStarts.length == 0;
+	}
+
+	public boolean contains(int offset)
+	{
+		int length = myStarts.length;
+		if(length == 0)
+		{
+			return false;
+		}
+
+		if(myCursor > 0 && offset < myEnds[myCursor - 1])
+		{
+			myCursor = findCursor(offset);
+		}
+
+		while(myCursor < length && myEnds[myCursor] <= offset)
+		{
+			myCursor++;
+		}
+
+		return myCursor < length && myStarts[myCursor] <= offset;
+	}
+
+	/**
+	 * @return index of first range which end offset is greater than offset
+	 */
+	private int findCursor(int offset)
+	{
+		int low = 0;
+		int high = myEnds.length;
+		while(low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if(myEnds[mid] <= offset)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	@NotNull
+	private static int[] copyOf(@NotNull int[] array, int size)
+	{
+		int[] result = new int[size];
+		System.arraycopy(array, 0, result, 0, size);
+		return result;
+	}
+}
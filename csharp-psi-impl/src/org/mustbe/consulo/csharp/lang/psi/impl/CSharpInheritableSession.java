@@ -0,0 +1,177 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl;
+
+import gnu.trove.THashMap;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.consulo.lombok.annotations.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.cache.Quaternary;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpStaticTypeRef;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefKeyUtil;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiElement;
+
+/**
+ * Memo table for {@link CSharpTypeUtil#isInheritable(DotNetTypeRef, DotNetTypeRef, PsiElement, CSharpStaticTypeRef)} results.
+ * Table lives only while session is active (one highlighting pass, or one resolve), that why we dont need invalidation - psi can not be
+ * changed inside read action.
+ * <p/>
+ * Type refs with canonical keys (see {@link CSharpTypeRefKeyUtil}) are compared by key and resolve scope, other - by identity.
+ * Only top level checks are stored, checks which called from another check are computed without key
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+@Logger
+public class CSharpInheritableSession
+{
+	private static final ThreadLocal<CSharpInheritableSession> ourCurrentSession = new ThreadLocal<CSharpInheritableSession>();
+
+	private static final AtomicLong ourHits = new AtomicLong();
+	private static final AtomicLong ourMisses = new AtomicLong();
+
+	private final Map<Object, CSharpTypeUtil.InheritResult> myResults = new THashMap<Object, CSharpTypeUtil.InheritResult>();
+
+	private int myHits;
+	private int myMisses;
+	private int myCheckDepth;
+
+	@RequiredReadAction
+	public static <T> T computeInSession(@NotNull Computable<T> computable)
+	{
+		CSharpInheritableSession session = ourCurrentSession.get();
+		if(session != null)
+		{
+			return computable.compute();
+		}
+
+		session = new CSharpInheritableSession();
+		ourCurrentSession.set(session);
+		try
+		{
+			return computable.compute();
+		}
+		finally
+		{
+			ourCurrentSession.remove();
+
+			ourHits.addAndGet(session.myHits);
+			ourMisses.addAndGet(session.myMisses);
+			if(LOGGER.isDebugEnabled())
+			{
+				LOGGER.debug("Inheritable session: saved " + session.myHits + " checks, computed " + session.myMisses + " checks");
+			}
+		}
+	}
+
+	@RequiredReadAction
+	public static void runInSession(@NotNull final Runnable runnable)
+	{
+		computeInSession(new Computable<Object>()
+		{
+			@Override
+			public Object compute()
+			{
+				runnable.run();
+				return null;
+			}
+		});
+	}
+
+	@Nullable
+	static CSharpInheritableSession getCurrentSession()
+	{
+		return ourCurrentSession.get();
+	}
+
+	/**
+	 * @return count of isInheritable checks, which was taken from memo tables of all finished sessions
+	 */
+	public static long getSavedCheckCount()
+	{
+		return ourHits.get();
+	}
+
+	/**
+	 * @return count of isInheritable checks, which was computed inside sessions
+	 */
+	public static long getComputedCheckCount()
+	{
+		return ourMisses.get();
+	}
+
+	@NotNull
+	@RequiredReadAction
+	static Object createKey(@NotNull DotNetTypeRef top,
+			@NotNull DotNetTypeRef target,
+			@NotNull PsiElement scope,
+			@Nullable CSharpStaticTypeRef explicitOrImplicit)
+	{
+		String topKey = CSharpTypeRefKeyUtil.getKey(top);
+		String targetKey = topKey == null ? null : CSharpTypeRefKeyUtil.getKey(target);
+		if(topKey != null && targetKey != null)
+		{
+			String key = (explicitOrImplicit == null ? "" : explicitOrImplicit.getPresentableText()) + "|" + topKey + "|" + targetKey;
+			// same names can be resolved to different types in other module
+			return Pair.create(scope.getResolveScope(), key);
+		}
+		return Quaternary.create(top, target, scope, explicitOrImplicit);
+	}
+
+	/**
+	 * @return true if check is called from another check of this session
+	 */
+	boolean isInsideCheck()
+	{
+		return myCheckDepth > 0;
+	}
+
+	void enterCheck()
+	{
+		myCheckDepth++;
+	}
+
+	void exitCheck()
+	{
+		myCheckDepth--;
+	}
+
+	@Nullable
+	CSharpTypeUtil.InheritResult get(@NotNull Object key)
+	{
+		CSharpTypeUtil.InheritResult result = myResults.get(key);
+		if(result != null)
+		{
+			myHits++;
+		}
+		return result;
+	}
+
+	void put(@NotNull Object key, @NotNull CSharpTypeUtil.InheritResult result)
+	{
+		myMisses++;
+		myResults.put(key, result);
+	}
+}
@@ -18,13 +18,29 @@ package org.mustbe.consulo.csharp.lang.psi.impl;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.csharp.lang.psi.CSharpAttribute;
+import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgumentList;
 import org.mustbe.consulo.csharp.lang.psi.CSharpFile;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTokens;
+import org.mustbe.consulo.csharp.lang.psi.impl.partial.CSharpPartialElementManager;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpConstructorSuperCallImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.cache.CSharpResolveCache;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpNamespaceByShortNameCache;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpTypeNameTrie;
+import org.mustbe.consulo.dotnet.psi.DotNetAttributeList;
+import org.mustbe.consulo.dotnet.psi.DotNetAttributeTargetType;
+import org.mustbe.consulo.dotnet.psi.DotNetExpression;
+import org.mustbe.consulo.dotnet.psi.DotNetLikeMethodDeclaration;
 import org.mustbe.consulo.dotnet.psi.DotNetStatement;
+import org.mustbe.consulo.dotnet.psi.DotNetVariable;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
 import com.intellij.psi.impl.PsiTreeChangePreprocessorBase;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtilCore;
 
 /**
  * @author VISTALL
@@ -32,9 +48,77 @@ import com.intellij.psi.util.PsiTreeUtil;
  */
 public class CSharpPsiTreeChangePreprocessor extends PsiTreeChangePreprocessorBase
 {
+	/**
+	 * @return outermost code block which contains element(method body, initializer, etc), or null if element is not inside code block
+	 */
+	@Nullable
+	public static PsiElement getTopmostCodeBlock(@Nullable PsiElement element)
+	{
+		PsiElement codeBlock = null;
+		PsiElement current = element;
+		while(current != null && !(current instanceof PsiFile))
+		{
+			if(isCodeBlock(current))
+			{
+				codeBlock = current;
+			}
+			current = current.getParent();
+		}
+		return codeBlock;
+	}
+
+	/**
+	 * Code block - is statement, or expression which can not change declarations: initializers of fields, properties, events,
+	 * default values of parameters, expression bodies, arguments of attributes and constructor super calls
+	 */
+	private static boolean isCodeBlock(@NotNull PsiElement element)
+	{
+		if(element instanceof DotNetStatement)
+		{
+			return true;
+		}
+
+		PsiElement parent = element.getParent();
+		if(element instanceof DotNetExpression)
+		{
+			if(parent instanceof DotNetVariable && ((DotNetVariable) parent).getInitializer() == element)
+			{
+				return true;
+			}
+
+			if(parent instanceof DotNetLikeMethodDeclaration)
+			{
+				PsiElement prevSibling = PsiTreeUtil.skipSiblingsBackward(element, PsiWhiteSpace.class, PsiComment.class);
+				return PsiUtilCore.getElementType(prevSibling) == CSharpTokens.DARROW;
+			}
+		}
+		else if(element instanceof CSharpCallArgumentList)
+		{
+			if(parent instanceof CSharpConstructorSuperCallImpl)
+			{
+				return true;
+			}
+
+			// assembly attributes can change visibility(InternalsVisibleTo)
+			if(parent instanceof CSharpAttribute)
+			{
+				PsiElement attributeList = parent.getParent();
+				if(attributeList instanceof DotNetAttributeList)
+				{
+					DotNetAttributeTargetType targetType = ((DotNetAttributeList) attributeList).getTargetType();
+					return targetType != DotNetAttributeTargetType.ASSEMBLY && targetType != DotNetAttributeTargetType.MODULE;
+				}
+			}
+		}
+		return false;
+	}
+
+	private final Project myProject;
+
 	public CSharpPsiTreeChangePreprocessor(@NotNull Project project)
 	{
 		super(project);
+		myProject = project;
 	}
 
 	@Override
@@ -46,6 +130,16 @@ public class CSharpPsiTreeChangePreprocessor extends PsiTreeChangePreprocessorBa
 	@Override
 	protected boolean isInsideCodeBlock(@Nullable PsiElement element)
 	{
-		return PsiTreeUtil.getParentOfType(element, DotNetStatement.class, false) != null;
+		PsiElement codeBlock = getTopmostCodeBlock(element);
+		if(codeBlock == null)
+		{
+			PsiFile file = element == null ? null : element.getContainingFile();
+			CSharpPartialElementManager.getInstance(myProject).fileStructureChanged(file);
+			CSharpTypeNameTrie.getInstance(myProject).fileChanged(file);
+			CSharpNamespaceByShortNameCache.getInstance(myProject).fileChanged(file);
+			return false;
+		}
+		CSharpResolveCache.getInstance(myProject).codeBlockChanged(codeBlock);
+		return true;
 	}
 }
@@ -46,6 +46,8 @@ import org.mustbe.consulo.dotnet.resolve.DotNetTypeRefWithInnerTypeRef;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeResolveResult;
 import org.mustbe.consulo.dotnet.util.ArrayUtil2;
 import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.RecursionGuard;
+import com.intellij.openapi.util.RecursionManager;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.util.ObjectUtils;
@@ -251,6 +253,44 @@ public class CSharpTypeUtil
 			@NotNull DotNetTypeRef target,
 			@NotNull PsiElement scope,
 			@Nullable CSharpStaticTypeRef explicitOrImplicit)
+	{
+		CSharpInheritableSession session = CSharpInheritableSession.getCurrentSession();
+		// key is built only for top level check
+		if(session == null || session.isInsideCheck())
+		{
+			return isInheritableImpl(top, target, scope, explicitOrImplicit);
+		}
+
+		Object key = CSharpInheritableSession.createKey(top, target, scope, explicitOrImplicit);
+		InheritResult result = session.get(key);
+		if(result != null)
+		{
+			return result;
+		}
+
+		RecursionGuard.StackStamp stamp = RecursionManager.markStack();
+		session.enterCheck();
+		try
+		{
+			result = isInheritableImpl(top, target, scope, explicitOrImplicit);
+		}
+		finally
+		{
+			session.exitCheck();
+		}
+		// dont store results which computed with prevented recursion
+		if(stamp.mayCacheNow())
+		{
+			session.put(key, result);
+		}
+		return result;
+	}
+
+	@NotNull
+	private static InheritResult isInheritableImpl(@NotNull DotNetTypeRef top,
+			@NotNull DotNetTypeRef target,
+			@NotNull PsiElement scope,
+			@Nullable CSharpStaticTypeRef explicitOrImplicit)
 	{
 		if(top == DotNetTypeRef.ERROR_TYPE || target == DotNetTypeRef.ERROR_TYPE)
 		{
@@ -607,6 +647,12 @@ public class CSharpTypeUtil
 			return false;
 		}
 
+		// same instance - for example interned type ref
+		if(t1 == t2)
+		{
+			return true;
+		}
+
 		t1 = GenericUnwrapTool.exchangeTypeRef(t1, GenericUnwrapTool.TypeDefCleanFunction.INSTANCE, scope);
 		t2 = GenericUnwrapTool.exchangeTypeRef(t2, GenericUnwrapTool.TypeDefCleanFunction.INSTANCE, scope);
 
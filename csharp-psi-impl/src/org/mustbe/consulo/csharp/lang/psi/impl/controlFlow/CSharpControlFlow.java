@@ -0,0 +1,308 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.controlFlow;
+
+import gnu.trove.THashMap;
+import gnu.trove.TIntArrayList;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.consulo.lombok.annotations.LazyInstance;
+import org.jetbrains.annotations.NotNull;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.containers.MultiMap;
+
+/**
+ * Control flow graph of one member body, see {@link CSharpControlFlowUtil#getControlFlow}.
+ * First instruction is {@link CSharpInstruction.Kind#START}, last is {@link CSharpInstruction.Kind#END}.
+ * <p/>
+ * Tracked variables are local variables declared inside body(not inside lambdas). Statements of finally blocks can have many instructions -
+ * one copy per exit path
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpControlFlow
+{
+	private final List<CSharpInstruction> myInstructions;
+	private final List<PsiElement> myVariables;
+	private final TObjectIntHashMap<PsiElement> myVariableIndexes;
+	private final Set<PsiElement> myCapturedVariables;
+	private final Map<PsiElement, TIntArrayList> myElementInstructions = new THashMap<PsiElement, TIntArrayList>();
+	// variable index of each definition
+	private final TIntArrayList myDefinitionVariables = new TIntArrayList();
+
+	CSharpControlFlow(@NotNull List<CSharpInstruction> instructions,
+			@NotNull List<PsiElement> variables,
+			@NotNull TObjectIntHashMap<PsiElement> variableIndexes,
+			@NotNull Set<PsiElement> capturedVariables)
+	{
+		myInstructions = instructions;
+		myVariables = variables;
+		myVariableIndexes = variableIndexes;
+		myCapturedVariables = capturedVariables;
+
+		for(int i = 0; i < variables.size(); i++)
+		{
+			myDefinitionVariables.add(i);
+		}
+
+		for(CSharpInstruction instruction : instructions)
+		{
+			instruction.finish();
+
+			if(instruction.getKind() == CSharpInstruction.Kind.WRITE)
+			{
+				instruction.setDefinitionIndex(myDefinitionVariables.size());
+				myDefinitionVariables.add(variableIndexes.get(instruction.getVariable()));
+			}
+
+			PsiElement element = instruction.getElement();
+			if(element != null)
+			{
+				TIntArrayList list = myElementInstructions.get(element);
+				if(list == null)
+				{
+					myElementInstructions.put(element, list = new TIntArrayList(1));
+				}
+				list.add(instruction.getIndex());
+			}
+		}
+	}
+
+	@NotNull
+	public List<CSharpInstruction> getInstructions()
+	{
+		return myInstructions;
+	}
+
+	@NotNull
+	public List<PsiElement> getVariables()
+	{
+		return myVariables;
+	}
+
+	/**
+	 * @return true if variable is used inside lambda or anonymous method - reads and writes inside it are not tracked
+	 */
+	public boolean isCaptured(@NotNull PsiElement variable)
+	{
+		return myCapturedVariables.contains(variable);
+	}
+
+	/**
+	 * @return instructions of element - statement, reference of read, or element of write
+	 */
+	@NotNull
+	public List<CSharpInstruction> getInstructions(@NotNull PsiElement element)
+	{
+		TIntArrayList list = myElementInstructions.get(element);
+		if(list == null)
+		{
+			return Collections.emptyList();
+		}
+		List<CSharpInstruction> instructions = new ArrayList<CSharpInstruction>(list.size());
+		for(int i = 0; i < list.size(); i++)
+		{
+			instructions.add(myInstructions.get(list.get(i)));
+		}
+		return instructions;
+	}
+
+	public boolean isReachable(@NotNull CSharpInstruction instruction)
+	{
+		return getReachableInstructions().get(instruction.getIndex());
+	}
+
+	/**
+	 * @return true if any instruction of element is reachable from start. Elements without instructions(for example statements of lambdas)
+	 * are reachable
+	 */
+	public boolean isReachable(@NotNull PsiElement element)
+	{
+		TIntArrayList list = myElementInstructions.get(element);
+		if(list == null)
+		{
+			return true;
+		}
+
+		BitSet reachable = getReachableInstructions();
+		for(int i = 0; i < list.size(); i++)
+		{
+			if(reachable.get(list.get(i)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if instruction is reachable and on some path to it variable of read is not assigned
+	 */
+	public boolean isMaybeUnassigned(@NotNull CSharpInstruction read)
+	{
+		PsiElement variable = read.getVariable();
+		if(variable == null || !isReachable(read))
+		{
+			return false;
+		}
+		// uninitialized definition of variable has same index as variable
+		return getReachingDefinitions().isReaching(read.getIndex(), myVariableIndexes.get(variable));
+	}
+
+	/**
+	 * @return writes which value can be read by instruction
+	 */
+	@NotNull
+	public List<CSharpInstruction> getReachingWrites(@NotNull CSharpInstruction read)
+	{
+		PsiElement variable = read.getVariable();
+		if(variable == null)
+		{
+			return Collections.emptyList();
+		}
+
+		int variableIndex = myVariableIndexes.get(variable);
+		CSharpReachingDefinitions definitions = getReachingDefinitions();
+
+		List<CSharpInstruction> writes = new ArrayList<CSharpInstruction>();
+		for(CSharpInstruction instruction : myInstructions)
+		{
+			if(instruction.getKind() == CSharpInstruction.Kind.WRITE && myDefinitionVariables.get(instruction.getDefinitionIndex()) == variableIndex &&
+					definitions.isReaching(read.getIndex(), instruction.getDefinitionIndex()))
+			{
+				writes.add(instruction);
+			}
+		}
+		return writes;
+	}
+
+	/**
+	 * @return elements of reachable writes of variable, which values are never read. For variables captured by lambdas - always empty
+	 */
+	@NotNull
+	public Collection<PsiElement> getUnusedWriteElements(@NotNull PsiElement variable)
+	{
+		return getUnusedWrites().get(variable);
+	}
+
+	@NotNull
+	@LazyInstance
+	private MultiMap<PsiElement, PsiElement> getUnusedWrites()
+	{
+		CSharpReachingDefinitions definitions = getReachingDefinitions();
+
+		// definitions reaching reads - one pass over reads with bitsets of reaching definitions
+		long[] usedDefinitions = definitions.newDefinitionSet();
+		for(CSharpInstruction instruction : myInstructions)
+		{
+			if(instruction.getKind() == CSharpInstruction.Kind.READ && isReachable(instruction))
+			{
+				definitions.collectReaching(instruction.getIndex(), myVariableIndexes.get(instruction.getVariable()), usedDefinitions);
+			}
+		}
+
+		// write is unused only if all copies of it(copies of finally block) are unused
+		Map<CSharpInstruction, Boolean> states = new LinkedHashMap<CSharpInstruction, Boolean>();
+		Map<PsiElement, CSharpInstruction> firstWrites = new THashMap<PsiElement, CSharpInstruction>();
+		for(CSharpInstruction instruction : myInstructions)
+		{
+			if(instruction.getKind() != CSharpInstruction.Kind.WRITE || instruction.isMemberWrite() || !isReachable(instruction) ||
+					isCaptured(instruction.getVariable()))
+			{
+				continue;
+			}
+
+			boolean unused = !CSharpReachingDefinitions.contains(usedDefinitions, instruction.getDefinitionIndex());
+
+			CSharpInstruction firstWrite = firstWrites.get(instruction.getElement());
+			if(firstWrite == null)
+			{
+				firstWrites.put(instruction.getElement(), instruction);
+				states.put(instruction, unused);
+			}
+			else
+			{
+				states.put(firstWrite, states.get(firstWrite) && unused);
+			}
+		}
+
+		MultiMap<PsiElement, PsiElement> elements = new MultiMap<PsiElement, PsiElement>();
+		for(Map.Entry<CSharpInstruction, Boolean> entry : states.entrySet())
+		{
+			if(entry.getValue())
+			{
+				elements.putValue(entry.getKey().getVariable(), entry.getKey().getElement());
+			}
+		}
+		return elements;
+	}
+
+	int getDefinitionCount()
+	{
+		return myDefinitionVariables.size();
+	}
+
+	int getDefinitionVariableIndex(int definitionIndex)
+	{
+		return myDefinitionVariables.get(definitionIndex);
+	}
+
+	@NotNull
+	@LazyInstance
+	private BitSet getReachableInstructions()
+	{
+		BitSet reachable = new BitSet(myInstructions.size());
+		if(myInstructions.isEmpty())
+		{
+			return reachable;
+		}
+
+		TIntArrayList stack = new TIntArrayList();
+		stack.add(0);
+		reachable.set(0);
+		while(!stack.isEmpty())
+		{
+			int index = stack.remove(stack.size() - 1);
+			for(int successor : myInstructions.get(index).getSuccessors())
+			{
+				if(!reachable.get(successor))
+				{
+					reachable.set(successor);
+					stack.add(successor);
+				}
+			}
+		}
+		return reachable;
+	}
+
+	@NotNull
+	@LazyInstance
+	private CSharpReachingDefinitions getReachingDefinitions()
+	{
+		return new CSharpReachingDefinitions(this);
+	}
+}
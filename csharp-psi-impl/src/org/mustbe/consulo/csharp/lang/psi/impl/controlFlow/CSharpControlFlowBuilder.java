@@ -0,0 +1,1100 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.controlFlow;
+
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import gnu.trove.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTokens;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.*;
+import org.mustbe.consulo.dotnet.psi.DotNetExpression;
+import org.mustbe.consulo.dotnet.psi.DotNetStatement;
+import org.mustbe.consulo.dotnet.psi.DotNetVariable;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiTreeUtil;
+
+/**
+ * Builds {@link CSharpControlFlow} of member body.
+ * <p/>
+ * Instructions are linked by instances, jump targets are created before they are placed. Lambdas and anonymous methods are not entered -
+ * tracked variables used inside them are read(or possibly written) at point of creation and marked as captured.
+ * Paths out of try(return, break, continue) get own copy of finally block, exceptions go to catches from start of try and after each write
+ * inside try body
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+class CSharpControlFlowBuilder
+{
+	private static abstract class Scope
+	{
+	}
+
+	private static class JumpScope extends Scope
+	{
+		private final CSharpInstruction myBreakTarget;
+		// null for switch
+		private final CSharpInstruction myContinueTarget;
+
+		private JumpScope(@NotNull CSharpInstruction breakTarget, @Nullable CSharpInstruction continueTarget)
+		{
+			myBreakTarget = breakTarget;
+			myContinueTarget = continueTarget;
+		}
+	}
+
+	private static class FinallyScope extends Scope
+	{
+		private final CSharpFinallyStatementImpl myFinallyStatement;
+
+		private FinallyScope(@NotNull CSharpFinallyStatementImpl finallyStatement)
+		{
+			myFinallyStatement = finallyStatement;
+		}
+	}
+
+	private static class HandlerScope extends Scope
+	{
+		private final CSharpInstruction myExceptionTarget;
+
+		private HandlerScope(@NotNull CSharpInstruction exceptionTarget)
+		{
+			myExceptionTarget = exceptionTarget;
+		}
+	}
+
+	@NotNull
+	@RequiredReadAction
+	static CSharpControlFlow build(@NotNull CSharpBlockStatementImpl body)
+	{
+		CSharpControlFlowBuilder builder = new CSharpControlFlowBuilder();
+		builder.add(new CSharpInstruction(CSharpInstruction.Kind.START, null, null));
+		builder.buildStatement(body);
+		builder.add(builder.myEnd);
+		return new CSharpControlFlow(builder.myInstructions, builder.myVariables, builder.myVariableIndexes, builder.myCapturedVariables);
+	}
+
+	private final List<CSharpInstruction> myInstructions = new ArrayList<CSharpInstruction>();
+	private final CSharpInstruction myEnd = new CSharpInstruction(CSharpInstruction.Kind.END, null, null);
+
+	private final List<PsiElement> myVariables = new ArrayList<PsiElement>();
+	private final TObjectIntHashMap<PsiElement> myVariableIndexes = new TObjectIntHashMap<PsiElement>();
+	private final Set<String> myVariableNames = new THashSet<String>();
+	private final Set<PsiElement> myCapturedVariables = new THashSet<PsiElement>();
+
+	private final Map<String, CSharpInstruction> myLabels = new THashMap<String, CSharpInstruction>();
+
+	private List<Scope> myScopes = new ArrayList<Scope>();
+
+	// last instruction of current path, null if current point is unreachable by fall through
+	private CSharpInstruction myCurrent;
+
+	private CSharpControlFlowBuilder()
+	{
+	}
+
+	@NotNull
+	private static CSharpInstruction newLabel()
+	{
+		return new CSharpInstruction(CSharpInstruction.Kind.NOP, null, null);
+	}
+
+	private void add(@NotNull CSharpInstruction instruction)
+	{
+		instruction.setIndex(myInstructions.size());
+		myInstructions.add(instruction);
+
+		if(myCurrent != null)
+		{
+			myCurrent.addNext(instruction);
+		}
+		myCurrent = instruction;
+	}
+
+	/**
+	 * Place label which is reachable only by jumps
+	 */
+	private void addDetached(@NotNull CSharpInstruction label)
+	{
+		myCurrent = null;
+		add(label);
+	}
+
+	private void jump(@NotNull CSharpInstruction target)
+	{
+		if(myCurrent != null)
+		{
+			myCurrent.addNext(target);
+		}
+		myCurrent = null;
+	}
+
+	private void addEdge(@Nullable CSharpInstruction from, @NotNull CSharpInstruction to)
+	{
+		if(from != null)
+		{
+			from.addNext(to);
+		}
+	}
+
+	@NotNull
+	private CSharpInstruction getLabel(@NotNull String name)
+	{
+		CSharpInstruction label = myLabels.get(name);
+		if(label == null)
+		{
+			myLabels.put(name, label = newLabel());
+		}
+		return label;
+	}
+
+	@RequiredReadAction
+	private void registerVariable(@NotNull DotNetVariable variable)
+	{
+		if(myVariableIndexes.containsKey(variable))
+		{
+			return;
+		}
+		myVariableIndexes.put(variable, myVariables.size());
+		myVariables.add(variable);
+
+		String name = variable.getName();
+		if(name != null)
+		{
+			myVariableNames.add(name);
+		}
+	}
+
+	/**
+	 * Register variable, and write initializer value if any
+	 */
+	@RequiredReadAction
+	private void buildVariable(@NotNull DotNetVariable variable)
+	{
+		registerVariable(variable);
+
+		DotNetExpression initializer = variable.getInitializer();
+		if(initializer != null)
+		{
+			buildExpression(initializer);
+			addWrite(variable, variable);
+		}
+	}
+
+	private void addRead(@NotNull PsiElement element, @NotNull PsiElement variable)
+	{
+		add(new CSharpInstruction(CSharpInstruction.Kind.READ, element, variable));
+	}
+
+	private void addWrite(@NotNull PsiElement element, @NotNull PsiElement variable)
+	{
+		addWrite(element, variable, false);
+	}
+
+	private void addWrite(@NotNull PsiElement element, @NotNull PsiElement variable, boolean memberWrite)
+	{
+		CSharpInstruction write = new CSharpInstruction(CSharpInstruction.Kind.WRITE, element, variable);
+		write.setMemberWrite(memberWrite);
+		add(write);
+
+		// new value is visible for catches of try
+		HandlerScope handlerScope = findHandlerScope();
+		if(handlerScope != null)
+		{
+			write.addNext(handlerScope.myExceptionTarget);
+		}
+	}
+
+	@Nullable
+	private HandlerScope findHandlerScope()
+	{
+		for(int i = myScopes.size() - 1; i >= 0; i--)
+		{
+			Scope scope = myScopes.get(i);
+			if(scope instanceof HandlerScope)
+			{
+				return (HandlerScope) scope;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return tracked variable if expression is simple name of it
+	 */
+	@Nullable
+	@RequiredReadAction
+	private PsiElement getTrackedVariable(@Nullable PsiElement expression)
+	{
+		while(expression instanceof CSharpParenthesesExpressionImpl)
+		{
+			expression = ((CSharpParenthesesExpressionImpl) expression).getInnerExpression();
+		}
+
+		if(!(expression instanceof CSharpReferenceExpression))
+		{
+			return null;
+		}
+
+		CSharpReferenceExpression referenceExpression = (CSharpReferenceExpression) expression;
+		if(referenceExpression.getQualifier() != null || !myVariableNames.contains(referenceExpression.getReferenceName()))
+		{
+			return null;
+		}
+
+		PsiElement target = referenceExpression.resolve();
+		return target != null && myVariableIndexes.containsKey(target) ? target : null;
+	}
+
+	/**
+	 * @return tracked variable if expression is member access of it('s.Field', 's.Field.Other')
+	 */
+	@Nullable
+	@RequiredReadAction
+	private PsiElement getMemberOwnerVariable(@Nullable PsiElement expression)
+	{
+		PsiElement qualifier = expression instanceof CSharpReferenceExpression ? ((CSharpReferenceExpression) expression).getQualifier() : null;
+		while(qualifier instanceof CSharpReferenceExpression && ((CSharpReferenceExpression) qualifier).getQualifier() != null)
+		{
+			qualifier = ((CSharpReferenceExpression) qualifier).getQualifier();
+		}
+		return qualifier == null ? null : getTrackedVariable(qualifier);
+	}
+
+	@RequiredReadAction
+	private void buildStatement(@Nullable PsiElement statement)
+	{
+		if(statement == null)
+		{
+			return;
+		}
+
+		if(statement instanceof CSharpLabeledStatementImpl)
+		{
+			CSharpLabeledStatementImpl labeledStatement = (CSharpLabeledStatementImpl) statement;
+			String name = labeledStatement.getName();
+			CSharpInstruction label = name == null ? null : getLabel(name);
+			// label can be already placed - if it's inside copy of finally block
+			add(label == null || label.isPlaced() ? newLabel() : label);
+			add(new CSharpInstruction(CSharpInstruction.Kind.STATEMENT, statement, null));
+
+			for(DotNetStatement child : labeledStatement.getStatements())
+			{
+				buildStatement(child);
+			}
+			return;
+		}
+
+		add(new CSharpInstruction(CSharpInstruction.Kind.STATEMENT, statement, null));
+
+		if(statement instanceof CSharpBlockStatementImpl)
+		{
+			for(DotNetStatement child : ((CSharpBlockStatementImpl) statement).getStatements())
+			{
+				buildStatement(child);
+			}
+		}
+		else if(statement instanceof CSharpLocalVariableDeclarationStatementImpl)
+		{
+			for(DotNetVariable variable : ((CSharpLocalVariableDeclarationStatementImpl) statement).getVariables())
+			{
+				buildVariable(variable);
+			}
+		}
+		else if(statement instanceof CSharpExpressionStatementImpl)
+		{
+			buildExpression(((CSharpExpressionStatementImpl) statement).getExpression());
+		}
+		else if(statement instanceof CSharpIfStatementImpl)
+		{
+			buildIf((CSharpIfStatementImpl) statement);
+		}
+		else if(statement instanceof CSharpWhileStatementImpl)
+		{
+			CSharpWhileStatementImpl whileStatement = (CSharpWhileStatementImpl) statement;
+			buildWhile(whileStatement.getConditionExpression(), whileStatement.getChildStatement());
+		}
+		else if(statement instanceof CSharpDoWhileStatementImpl)
+		{
+			buildDoWhile((CSharpDoWhileStatementImpl) statement);
+		}
+		else if(statement instanceof CSharpForStatementImpl)
+		{
+			buildFor((CSharpForStatementImpl) statement);
+		}
+		else if(statement instanceof CSharpForeachStatementImpl)
+		{
+			buildForeach((CSharpForeachStatementImpl) statement);
+		}
+		else if(statement instanceof CSharpSwitchStatementImpl)
+		{
+			buildSwitch((CSharpSwitchStatementImpl) statement);
+		}
+		else if(statement instanceof CSharpTryStatementImpl)
+		{
+			buildTry((CSharpTryStatementImpl) statement);
+		}
+		else if(statement instanceof CSharpReturnStatementImpl)
+		{
+			buildExpression(((CSharpReturnStatementImpl) statement).getExpression());
+			buildReturn();
+		}
+		else if(statement instanceof CSharpYieldStatementImpl)
+		{
+			CSharpReturnStatementImpl returnStatement = PsiTreeUtil.getChildOfType((CSharpYieldStatementImpl) statement, CSharpReturnStatementImpl.class);
+			if(returnStatement != null)
+			{
+				// yield return - continue after it
+				buildExpression(returnStatement.getExpression());
+			}
+			else
+			{
+				buildReturn();
+			}
+		}
+		else if(statement instanceof CSharpThrowStatementImpl)
+		{
+			buildExpression(((CSharpThrowStatementImpl) statement).getExpression());
+			buildThrow();
+		}
+		else if(statement instanceof CSharpBreakStatementImpl)
+		{
+			buildBreakOrContinue(true);
+		}
+		else if(statement instanceof CSharpContinueStatementImpl)
+		{
+			buildBreakOrContinue(false);
+		}
+		else if(statement instanceof CSharpGotoStatementImpl)
+		{
+			CSharpReferenceExpression labelReference = PsiTreeUtil.getChildOfType((CSharpGotoStatementImpl) statement, CSharpReferenceExpression.class);
+			String name = labelReference == null ? null : labelReference.getReferenceName();
+			if(name == null)
+			{
+				myCurrent = null;
+			}
+			else
+			{
+				jump(getLabel(name));
+			}
+		}
+		else if(statement instanceof CSharpUsingStatementImpl)
+		{
+			CSharpUsingStatementImpl usingStatement = (CSharpUsingStatementImpl) statement;
+			DotNetVariable variable = usingStatement.getVariable();
+			if(variable != null)
+			{
+				buildVariable(variable);
+			}
+			else
+			{
+				buildExpression(usingStatement.getExpression());
+			}
+			buildStatement(usingStatement.getChildStatement());
+		}
+		else if(statement instanceof CSharpFixedStatementImpl)
+		{
+			CSharpFixedStatementImpl fixedStatement = (CSharpFixedStatementImpl) statement;
+			for(DotNetVariable variable : fixedStatement.getVariables())
+			{
+				buildVariable(variable);
+			}
+			buildStatement(fixedStatement.getChildStatement());
+		}
+		else
+		{
+			// lock, checked, unsafe and etc
+			buildChildren(statement);
+		}
+	}
+
+	@RequiredReadAction
+	private void buildChildren(@NotNull PsiElement element)
+	{
+		for(PsiElement child = element.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if(child instanceof DotNetStatement)
+			{
+				buildStatement(child);
+			}
+			else if(child instanceof DotNetExpression)
+			{
+				buildExpression((DotNetExpression) child);
+			}
+			else if(child.getFirstChild() != null)
+			{
+				// call argument lists, array initializers and etc
+				buildChildren(child);
+			}
+		}
+	}
+
+	@RequiredReadAction
+	private void buildIf(@NotNull CSharpIfStatementImpl statement)
+	{
+		CSharpInstruction thenLabel = newLabel();
+		CSharpInstruction elseLabel = newLabel();
+		CSharpInstruction endLabel = newLabel();
+
+		buildCondition(statement.getConditionExpression(), thenLabel, elseLabel);
+
+		addDetached(thenLabel);
+		buildStatement(statement.getTrueStatement());
+		jump(endLabel);
+
+		addDetached(elseLabel);
+		buildStatement(statement.getFalseStatement());
+		add(endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildWhile(@Nullable DotNetExpression condition, @Nullable DotNetStatement body)
+	{
+		CSharpInstruction conditionLabel = newLabel();
+		CSharpInstruction bodyLabel = newLabel();
+		CSharpInstruction endLabel = newLabel();
+
+		add(conditionLabel);
+		buildCondition(condition, bodyLabel, endLabel);
+
+		addDetached(bodyLabel);
+		buildLoopBody(body, endLabel, conditionLabel);
+		jump(conditionLabel);
+
+		addDetached(endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildDoWhile(@NotNull CSharpDoWhileStatementImpl statement)
+	{
+		CSharpInstruction bodyLabel = newLabel();
+		CSharpInstruction conditionLabel = newLabel();
+		CSharpInstruction endLabel = newLabel();
+
+		add(bodyLabel);
+		buildLoopBody(statement.getChildStatement(), endLabel, conditionLabel);
+
+		add(conditionLabel);
+		buildCondition(statement.getConditionExpression(), bodyLabel, endLabel);
+
+		addDetached(endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildFor(@NotNull CSharpForStatementImpl statement)
+	{
+		// for( initializers ; condition ; iterators ) - parts are split by semicolons
+		List<PsiElement> initializers = new ArrayList<PsiElement>();
+		DotNetExpression condition = null;
+		List<DotNetExpression> iterators = new ArrayList<DotNetExpression>();
+
+		int part = 0;
+		for(PsiElement child = statement.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			IElementType elementType = child.getNode().getElementType();
+			if(elementType == CSharpTokens.SEMICOLON)
+			{
+				part++;
+			}
+			else if(elementType == CSharpTokens.RPAR)
+			{
+				break;
+			}
+			else if(child instanceof DotNetVariable || child instanceof DotNetExpression)
+			{
+				if(part == 0)
+				{
+					initializers.add(child);
+				}
+				else if(part == 1 && child instanceof DotNetExpression)
+				{
+					condition = (DotNetExpression) child;
+				}
+				else if(child instanceof DotNetExpression)
+				{
+					iterators.add((DotNetExpression) child);
+				}
+			}
+		}
+
+		for(PsiElement initializer : initializers)
+		{
+			if(initializer instanceof DotNetVariable)
+			{
+				buildVariable((DotNetVariable) initializer);
+			}
+			else
+			{
+				buildExpression((DotNetExpression) initializer);
+			}
+		}
+
+		CSharpInstruction conditionLabel = newLabel();
+		CSharpInstruction bodyLabel = newLabel();
+		CSharpInstruction iteratorLabel = newLabel();
+		CSharpInstruction endLabel = newLabel();
+
+		add(conditionLabel);
+		buildCondition(condition, bodyLabel, endLabel);
+
+		addDetached(bodyLabel);
+		buildLoopBody(statement.getChildStatement(), endLabel, iteratorLabel);
+
+		add(iteratorLabel);
+		for(DotNetExpression iterator : iterators)
+		{
+			buildExpression(iterator);
+		}
+		jump(conditionLabel);
+
+		addDetached(endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildForeach(@NotNull CSharpForeachStatementImpl statement)
+	{
+		buildExpression(statement.getIterableExpression());
+
+		CSharpInstruction headLabel = newLabel();
+		CSharpInstruction endLabel = newLabel();
+
+		add(headLabel);
+		addEdge(headLabel, endLabel);
+
+		DotNetVariable variable = statement.getVariable();
+		if(variable != null)
+		{
+			registerVariable(variable);
+			addWrite(variable, variable);
+		}
+
+		buildLoopBody(statement.getChildStatement(), endLabel, headLabel);
+		jump(headLabel);
+
+		addDetached(endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildLoopBody(@Nullable DotNetStatement body, @NotNull CSharpInstruction breakTarget, @NotNull CSharpInstruction continueTarget)
+	{
+		myScopes.add(new JumpScope(breakTarget, continueTarget));
+		buildStatement(body);
+		myScopes.remove(myScopes.size() - 1);
+	}
+
+	@RequiredReadAction
+	private void buildSwitch(@NotNull CSharpSwitchStatementImpl statement)
+	{
+		buildExpression(PsiTreeUtil.getChildOfType(statement, DotNetExpression.class));
+
+		CSharpBlockStatementImpl body = PsiTreeUtil.getChildOfType(statement, CSharpBlockStatementImpl.class);
+		if(body == null)
+		{
+			return;
+		}
+
+		CSharpInstruction endLabel = newLabel();
+
+		myScopes.add(new JumpScope(endLabel, null));
+
+		add(new CSharpInstruction(CSharpInstruction.Kind.STATEMENT, body, null));
+		CSharpInstruction dispatch = myCurrent;
+		myCurrent = null;
+
+		boolean hasDefault = false;
+		for(DotNetStatement child : body.getStatements())
+		{
+			if(child instanceof CSharpSwitchLabelStatementImpl)
+			{
+				CSharpInstruction labelInstruction = new CSharpInstruction(CSharpInstruction.Kind.STATEMENT, child, null);
+				add(labelInstruction);
+				addEdge(dispatch, labelInstruction);
+
+				DotNetExpression caseExpression = PsiTreeUtil.getChildOfType((CSharpSwitchLabelStatementImpl) child, DotNetExpression.class);
+				if(caseExpression == null)
+				{
+					hasDefault = true;
+				}
+				else
+				{
+					buildExpression(caseExpression);
+				}
+			}
+			else
+			{
+				buildStatement(child);
+			}
+		}
+
+		myScopes.remove(myScopes.size() - 1);
+
+		if(!hasDefault)
+		{
+			addEdge(dispatch, endLabel);
+		}
+		add(endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildTry(@NotNull CSharpTryStatementImpl statement)
+	{
+		CSharpFinallyStatementImpl finallyStatement = statement.getFinallyStatement();
+		CSharpCatchStatementImpl[] catchStatements = statement.getCatchStatements();
+
+		CSharpInstruction exceptionLabel = newLabel();
+		CSharpInstruction uncaughtLabel = newLabel();
+		CSharpInstruction normalEndLabel = newLabel();
+
+		if(finallyStatement != null)
+		{
+			myScopes.add(new FinallyScope(finallyStatement));
+		}
+
+		// try body - any exception goes to catches
+		myScopes.add(new HandlerScope(exceptionLabel));
+		addEdge(myCurrent, exceptionLabel);
+		buildStatement(PsiTreeUtil.getChildOfType(statement, CSharpBlockStatementImpl.class));
+		jump(normalEndLabel);
+		myScopes.remove(myScopes.size() - 1);
+
+		// catches - exception inside it, goes to finally and outside
+		if(finallyStatement != null)
+		{
+			myScopes.add(new HandlerScope(uncaughtLabel));
+		}
+
+		addDetached(exceptionLabel);
+
+		boolean catchAll = false;
+		for(CSharpCatchStatementImpl catchStatement : catchStatements)
+		{
+			myCurrent = exceptionLabel;
+			add(new CSharpInstruction(CSharpInstruction.Kind.STATEMENT, catchStatement, null));
+
+			DotNetVariable variable = catchStatement.getVariable();
+			if(variable != null)
+			{
+				registerVariable(variable);
+				addWrite(variable, variable);
+			}
+
+			DotNetExpression filterExpression = catchStatement.getFilterExpression();
+			if(filterExpression != null)
+			{
+				buildExpression(filterExpression);
+			}
+			else if(variable == null)
+			{
+				catchAll = true;
+			}
+
+			buildStatement(PsiTreeUtil.getChildOfType(catchStatement, CSharpBlockStatementImpl.class));
+			jump(normalEndLabel);
+		}
+
+		if(!catchAll)
+		{
+			exceptionLabel.addNext(uncaughtLabel);
+		}
+
+		if(finallyStatement != null)
+		{
+			myScopes.remove(myScopes.size() - 1);
+			myScopes.remove(myScopes.size() - 1);
+		}
+
+		// normal completion of try or catches
+		addDetached(normalEndLabel);
+		if(finallyStatement != null)
+		{
+			buildStatement(finallyStatement);
+		}
+		CSharpInstruction normalExit = myCurrent;
+
+		// exception is not handled - run finally, and go outside
+		addDetached(uncaughtLabel);
+		if(finallyStatement != null)
+		{
+			buildStatement(finallyStatement);
+		}
+		buildThrow();
+
+		myCurrent = normalExit;
+	}
+
+	@RequiredReadAction
+	private void buildFinallyCopies(int fromScopeIndex, int toScopeIndex)
+	{
+		for(int i = fromScopeIndex; i > toScopeIndex; i--)
+		{
+			Scope scope = myScopes.get(i);
+			if(scope instanceof FinallyScope)
+			{
+				// finally is built with scopes outside of its try
+				List<Scope> oldScopes = myScopes;
+				myScopes = new ArrayList<Scope>(oldScopes.subList(0, i));
+				buildStatement(((FinallyScope) scope).myFinallyStatement);
+				myScopes = oldScopes;
+			}
+		}
+	}
+
+	@RequiredReadAction
+	private void buildReturn()
+	{
+		buildFinallyCopies(myScopes.size() - 1, -1);
+		jump(myEnd);
+	}
+
+	private void buildThrow()
+	{
+		HandlerScope handlerScope = findHandlerScope();
+		jump(handlerScope == null ? myEnd : handlerScope.myExceptionTarget);
+	}
+
+	@RequiredReadAction
+	private void buildBreakOrContinue(boolean isBreak)
+	{
+		for(int i = myScopes.size() - 1; i >= 0; i--)
+		{
+			Scope scope = myScopes.get(i);
+			if(scope instanceof JumpScope)
+			{
+				JumpScope jumpScope = (JumpScope) scope;
+				CSharpInstruction target = isBreak ? jumpScope.myBreakTarget : jumpScope.myContinueTarget;
+				if(target != null)
+				{
+					buildFinallyCopies(myScopes.size() - 1, i);
+					jump(target);
+					return;
+				}
+			}
+		}
+		// break outside loop - error by compiler
+		myCurrent = null;
+	}
+
+	/**
+	 * Build condition with jumps to targets. Constant, '!', '&&' and '||' conditions are not evaluated as values
+	 *
+	 * @param condition null if condition is absent - it's always true(for(;;))
+	 */
+	@RequiredReadAction
+	private void buildCondition(@Nullable DotNetExpression condition, @NotNull CSharpInstruction trueTarget, @NotNull CSharpInstruction falseTarget)
+	{
+		if(condition == null)
+		{
+			jump(trueTarget);
+			return;
+		}
+
+		if(condition instanceof CSharpParenthesesExpressionImpl)
+		{
+			buildCondition(((CSharpParenthesesExpressionImpl) condition).getInnerExpression(), trueTarget, falseTarget);
+			return;
+		}
+
+		if(condition instanceof CSharpConstantExpressionImpl && ((CSharpConstantExpressionImpl) condition).getLiteralType() == CSharpTokens.BOOL_LITERAL)
+		{
+			jump(Boolean.TRUE.equals(((CSharpConstantExpressionImpl) condition).getValue()) ? trueTarget : falseTarget);
+			return;
+		}
+
+		if(condition instanceof CSharpPrefixExpressionImpl && getOperator(condition) == CSharpTokens.EXCL)
+		{
+			buildCondition(((CSharpPrefixExpressionImpl) condition).getExpression(), falseTarget, trueTarget);
+			return;
+		}
+
+		if(condition instanceof CSharpBinaryExpressionImpl)
+		{
+			IElementType operator = getOperator(condition);
+			if(operator == CSharpTokens.ANDAND || operator == CSharpTokens.OROR)
+			{
+				CSharpBinaryExpressionImpl binaryExpression = (CSharpBinaryExpressionImpl) condition;
+				CSharpInstruction rightLabel = newLabel();
+
+				if(operator == CSharpTokens.ANDAND)
+				{
+					buildCondition(binaryExpression.getLeftExpression(), rightLabel, falseTarget);
+				}
+				else
+				{
+					buildCondition(binaryExpression.getLeftExpression(), trueTarget, rightLabel);
+				}
+
+				addDetached(rightLabel);
+				buildCondition(binaryExpression.getRightExpression(), trueTarget, falseTarget);
+				return;
+			}
+		}
+
+		buildExpression(condition);
+		addEdge(myCurrent, trueTarget);
+		jump(falseTarget);
+	}
+
+	@Nullable
+	private static IElementType getOperator(@NotNull PsiElement expression)
+	{
+		CSharpOperatorReferenceImpl operatorElement = ((CSharpExpressionWithOperatorImpl) expression).getOperatorElement();
+		return operatorElement == null ? null : operatorElement.getOperatorElementType();
+	}
+
+	@RequiredReadAction
+	private void buildExpression(@Nullable DotNetExpression expression)
+	{
+		if(expression == null || expression instanceof CSharpNameOfExpressionImpl)
+		{
+			return;
+		}
+
+		if(expression instanceof CSharpLambdaExpressionImpl || expression instanceof CSharpDelegateExpressionImpl)
+		{
+			buildCapturedReads(expression);
+		}
+		else if(expression instanceof CSharpReferenceExpression)
+		{
+			PsiElement variable = getTrackedVariable(expression);
+			if(variable != null)
+			{
+				addRead(expression, variable);
+			}
+			else
+			{
+				buildChildren(expression);
+			}
+		}
+		else if(expression instanceof CSharpAssignmentExpressionImpl)
+		{
+			buildAssignment((CSharpAssignmentExpressionImpl) expression);
+		}
+		else if(expression instanceof CSharpPrefixExpressionImpl || expression instanceof CSharpPostfixExpressionImpl)
+		{
+			IElementType operator = getOperator(expression);
+			DotNetExpression operand = expression instanceof CSharpPrefixExpressionImpl ? ((CSharpPrefixExpressionImpl) expression).getExpression() :
+					((CSharpPostfixExpressionImpl) expression).getExpression();
+
+			PsiElement variable = operator == CSharpTokens.PLUSPLUS || operator == CSharpTokens.MINUSMINUS ? getTrackedVariable(operand) : null;
+			if(variable != null)
+			{
+				addRead(operand, variable);
+				addWrite(expression, variable);
+			}
+			else
+			{
+				buildExpression(operand);
+			}
+		}
+		else if(expression instanceof CSharpOutRefWrapExpressionImpl)
+		{
+			CSharpOutRefWrapExpressionImpl wrapExpression = (CSharpOutRefWrapExpressionImpl) expression;
+			DotNetExpression innerExpression = wrapExpression.getInnerExpression();
+
+			PsiElement variable = getTrackedVariable(innerExpression);
+			if(variable != null)
+			{
+				if(wrapExpression.getStartElement().getNode().getElementType() == CSharpTokens.REF_KEYWORD)
+				{
+					addRead(innerExpression, variable);
+				}
+				addWrite(expression, variable);
+			}
+			else
+			{
+				buildExpression(innerExpression);
+			}
+		}
+		else if(expression instanceof CSharpBinaryExpressionImpl && (getOperator(expression) == CSharpTokens.ANDAND || getOperator(expression) ==
+				CSharpTokens.OROR))
+		{
+			CSharpBinaryExpressionImpl binaryExpression = (CSharpBinaryExpressionImpl) expression;
+			buildShortCircuit(binaryExpression.getLeftExpression(), binaryExpression.getRightExpression());
+		}
+		else if(expression instanceof CSharpNullCoalescingExpressionImpl)
+		{
+			CSharpNullCoalescingExpressionImpl coalescingExpression = (CSharpNullCoalescingExpressionImpl) expression;
+			buildShortCircuit(coalescingExpression.getCondition(), coalescingExpression.getResult());
+		}
+		else if(expression instanceof CSharpConditionalExpressionImpl)
+		{
+			CSharpConditionalExpressionImpl conditionalExpression = (CSharpConditionalExpressionImpl) expression;
+
+			CSharpInstruction trueLabel = newLabel();
+			CSharpInstruction falseLabel = newLabel();
+			CSharpInstruction endLabel = newLabel();
+
+			buildCondition(conditionalExpression.getCondition(), trueLabel, falseLabel);
+
+			addDetached(trueLabel);
+			buildExpression(conditionalExpression.getTrueExpression());
+			jump(endLabel);
+
+			addDetached(falseLabel);
+			buildExpression(conditionalExpression.getFalseExpression());
+			add(endLabel);
+		}
+		else
+		{
+			buildChildren(expression);
+		}
+	}
+
+	/**
+	 * Right expression is evaluated or skipped
+	 */
+	@RequiredReadAction
+	private void buildShortCircuit(@Nullable DotNetExpression left, @Nullable DotNetExpression right)
+	{
+		buildExpression(left);
+
+		CSharpInstruction fork = myCurrent;
+		CSharpInstruction endLabel = newLabel();
+
+		buildExpression(right);
+		add(endLabel);
+		addEdge(fork, endLabel);
+	}
+
+	@RequiredReadAction
+	private void buildAssignment(@NotNull CSharpAssignmentExpressionImpl expression)
+	{
+		DotNetExpression[] expressions = expression.getParameterExpressions();
+		DotNetExpression left = expressions.length > 0 ? expressions[0] : null;
+		DotNetExpression right = expressions.length > 1 ? expressions[1] : null;
+
+		// only simple name is assigned, qualifier of member or indexer target('p.Name = v', 'a[i] = v') is read
+		PsiElement variable = getTrackedVariable(left);
+		if(variable == null)
+		{
+			buildExpression(left);
+			buildExpression(right);
+
+			// 's.Field = v' can be last field assignment of struct variable - after it variable can be assigned
+			PsiElement memberOwner = getMemberOwnerVariable(left);
+			if(memberOwner != null)
+			{
+				addWrite(expression, memberOwner, true);
+			}
+			return;
+		}
+
+		if(getOperator(expression) != CSharpTokens.EQ)
+		{
+			addRead(left, variable);
+		}
+		buildExpression(right);
+		addWrite(expression, variable);
+	}
+
+	/**
+	 * Tracked variables used inside lambda are read at point of creation. Assignments inside lambda are possible definitions -
+	 * lambda can be not invoked, or invoked later
+	 */
+	@RequiredReadAction
+	private void buildCapturedReads(@NotNull DotNetExpression expression)
+	{
+		if(myVariableNames.isEmpty())
+		{
+			return;
+		}
+
+		final List<CSharpReferenceExpression> references = new ArrayList<CSharpReferenceExpression>();
+		expression.accept(new PsiRecursiveElementWalkingVisitor()
+		{
+			@Override
+			public void visitElement(PsiElement element)
+			{
+				if(element instanceof CSharpReferenceExpression)
+				{
+					references.add((CSharpReferenceExpression) element);
+				}
+				super.visitElement(element);
+			}
+		});
+
+		for(CSharpReferenceExpression reference : references)
+		{
+			PsiElement variable = getTrackedVariable(reference);
+			if(variable == null)
+			{
+				continue;
+			}
+			myCapturedVariables.add(variable);
+
+			PsiElement child = reference;
+			PsiElement parent = reference.getParent();
+			while(parent instanceof CSharpParenthesesExpressionImpl)
+			{
+				child = parent;
+				parent = parent.getParent();
+			}
+
+			PsiElement writeElement = null;
+			boolean read = true;
+			if(parent instanceof CSharpAssignmentExpressionImpl)
+			{
+				DotNetExpression[] expressions = ((CSharpAssignmentExpressionImpl) parent).getParameterExpressions();
+				if(expressions.length > 0 && expressions[0] == child)
+				{
+					writeElement = parent;
+					read = getOperator(parent) != CSharpTokens.EQ;
+				}
+			}
+			else if(parent instanceof CSharpOutRefWrapExpressionImpl)
+			{
+				writeElement = parent;
+				read = ((CSharpOutRefWrapExpressionImpl) parent).getStartElement().getNode().getElementType() == CSharpTokens.REF_KEYWORD;
+			}
+			else if(parent instanceof CSharpPrefixExpressionImpl || parent instanceof CSharpPostfixExpressionImpl)
+			{
+				IElementType operator = getOperator(parent);
+				if(operator == CSharpTokens.PLUSPLUS || operator == CSharpTokens.MINUSMINUS)
+				{
+					writeElement = parent;
+				}
+			}
+
+			if(read)
+			{
+				addRead(reference, variable);
+			}
+
+			if(writeElement != null)
+			{
+				// write is skipped if lambda is not invoked - previous definitions are still reaching
+				CSharpInstruction fork = myCurrent;
+				CSharpInstruction endLabel = newLabel();
+				addWrite(writeElement, variable);
+				add(endLabel);
+				addEdge(fork, endLabel);
+			}
+		}
+	}
+}
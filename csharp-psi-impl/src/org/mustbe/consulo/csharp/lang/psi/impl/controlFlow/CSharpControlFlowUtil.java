@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.controlFlow;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpBlockStatementImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpDelegateExpressionImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpLambdaExpressionImpl;
+import org.mustbe.consulo.dotnet.psi.DotNetModifierListOwner;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+
+/**
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpControlFlowUtil
+{
+	/**
+	 * @return true if block is body of member(method, accessor, constructor and etc)
+	 */
+	public static boolean isFlowOwner(@NotNull CSharpBlockStatementImpl blockStatement)
+	{
+		return blockStatement.getParent() instanceof DotNetModifierListOwner;
+	}
+
+	/**
+	 * @return control flow of body which contains element, or null if element is not inside body, or it's inside lambda
+	 */
+	@Nullable
+	@RequiredReadAction
+	public static CSharpControlFlow findControlFlow(@NotNull PsiElement element)
+	{
+		for(PsiElement parent = element; parent != null && !(parent instanceof PsiFile); parent = parent.getParent())
+		{
+			if(parent instanceof CSharpLambdaExpressionImpl || parent instanceof CSharpDelegateExpressionImpl)
+			{
+				return null;
+			}
+
+			if(parent instanceof CSharpBlockStatementImpl && isFlowOwner((CSharpBlockStatementImpl) parent))
+			{
+				return getControlFlow((CSharpBlockStatementImpl) parent);
+			}
+		}
+		return null;
+	}
+
+	@NotNull
+	@RequiredReadAction
+	public static CSharpControlFlow getControlFlow(@NotNull final CSharpBlockStatementImpl body)
+	{
+		return CachedValuesManager.getCachedValue(body, new CachedValueProvider<CSharpControlFlow>()
+		{
+			@Nullable
+			@Override
+			@RequiredReadAction
+			public Result<CSharpControlFlow> compute()
+			{
+				return Result.create(CSharpControlFlowBuilder.build(body), PsiModificationTracker.MODIFICATION_COUNT);
+			}
+		});
+	}
+}
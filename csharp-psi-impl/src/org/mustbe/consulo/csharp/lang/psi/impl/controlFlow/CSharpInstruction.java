@@ -0,0 +1,168 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.controlFlow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.ArrayUtil;
+
+/**
+ * Node of {@link CSharpControlFlow}. Successors are linked by instances while flow is building, and stored as indexes after it
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpInstruction
+{
+	public enum Kind
+	{
+		START,
+		END,
+		// entry of statement
+		STATEMENT,
+		// read of tracked local variable
+		READ,
+		// write of tracked local variable
+		WRITE,
+		// jump target, or merge point
+		NOP
+	}
+
+	private final Kind myKind;
+	private final PsiElement myElement;
+	private final PsiElement myVariable;
+
+	private int myIndex = -1;
+	private int myDefinitionIndex = -1;
+	private boolean myMemberWrite;
+
+	private List<CSharpInstruction> myNextInstructions = new ArrayList<CSharpInstruction>(2);
+	private int[] mySuccessors = ArrayUtil.EMPTY_INT_ARRAY;
+
+	CSharpInstruction(@NotNull Kind kind, @Nullable PsiElement element, @Nullable PsiElement variable)
+	{
+		myKind = kind;
+		myElement = element;
+		myVariable = variable;
+	}
+
+	@NotNull
+	public Kind getKind()
+	{
+		return myKind;
+	}
+
+	/**
+	 * @return statement for {@link Kind#STATEMENT}, reference(or declaration) for {@link Kind#READ} and {@link Kind#WRITE}
+	 */
+	@Nullable
+	public PsiElement getElement()
+	{
+		return myElement;
+	}
+
+	/**
+	 * @return tracked variable for {@link Kind#READ} and {@link Kind#WRITE}
+	 */
+	@Nullable
+	public PsiElement getVariable()
+	{
+		return myVariable;
+	}
+
+	public int getIndex()
+	{
+		return myIndex;
+	}
+
+	/**
+	 * @return index of definition for {@link Kind#WRITE}, otherwise -1
+	 */
+	public int getDefinitionIndex()
+	{
+		return myDefinitionIndex;
+	}
+
+	/**
+	 * @return true for {@link Kind#WRITE} of member of variable('s.Field = v'), it can assign struct variable but does not replace its value
+	 */
+	public boolean isMemberWrite()
+	{
+		return myMemberWrite;
+	}
+
+	@NotNull
+	public int[] getSuccessors()
+	{
+		return mySuccessors;
+	}
+
+	boolean isPlaced()
+	{
+		return myIndex != -1;
+	}
+
+	void setIndex(int index)
+	{
+		myIndex = index;
+	}
+
+	void setDefinitionIndex(int definitionIndex)
+	{
+		myDefinitionIndex = definitionIndex;
+	}
+
+	void setMemberWrite(boolean memberWrite)
+	{
+		myMemberWrite = memberWrite;
+	}
+
+	void addNext(@NotNull CSharpInstruction instruction)
+	{
+		if(!myNextInstructions.contains(instruction))
+		{
+			myNextInstructions.add(instruction);
+		}
+	}
+
+	void finish()
+	{
+		int[] successors = new int[myNextInstructions.size()];
+		int count = 0;
+		for(CSharpInstruction next : myNextInstructions)
+		{
+			// jumps to labels which are not placed(goto to unknown label)
+			if(next.isPlaced())
+			{
+				successors[count++] = next.getIndex();
+			}
+		}
+		mySuccessors = count == successors.length ? successors : ArrayUtil.realloc(successors, count);
+		myNextInstructions = null;
+	}
+
+	@Override
+	public String toString()
+	{
+		return myIndex + ": " + myKind + (myElement == null ? "" : " " + myElement.getText()) + " -> " + Arrays.toString(mySuccessors);
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.controlFlow;
+
+import gnu.trove.TIntArrayList;
+
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Forward may analysis of definitions over {@link CSharpControlFlow}. Sets of definitions are bitsets in long arrays.
+ * First definitions(one per tracked variable) are 'uninitialized' definitions generated by start instruction,
+ * other definitions are write instructions
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+class CSharpReachingDefinitions
+{
+	private final int myWordCount;
+	// definitions which reach entry of instruction
+	private final long[][] myIn;
+	// definitions of each variable - for kill
+	private final long[][] myVariableMasks;
+
+	CSharpReachingDefinitions(@NotNull CSharpControlFlow controlFlow)
+	{
+		List<CSharpInstruction> instructions = controlFlow.getInstructions();
+		int size = instructions.size();
+		int definitionCount = controlFlow.getDefinitionCount();
+		int variableCount = controlFlow.getVariables().size();
+
+		myWordCount = (definitionCount + 63) >>> 6;
+		myIn = new long[size][myWordCount];
+
+		myVariableMasks = new long[variableCount][myWordCount];
+		for(int i = 0; i < definitionCount; i++)
+		{
+			set(myVariableMasks[controlFlow.getDefinitionVariableIndex(i)], i);
+		}
+
+		TIntArrayList[] predecessors = new TIntArrayList[size];
+		for(CSharpInstruction instruction : instructions)
+		{
+			for(int successor : instruction.getSuccessors())
+			{
+				TIntArrayList list = predecessors[successor];
+				if(list == null)
+				{
+					predecessors[successor] = list = new TIntArrayList(2);
+				}
+				list.add(instruction.getIndex());
+			}
+		}
+
+		long[][] out = new long[size][myWordCount];
+		long[] startOut = out[0];
+		for(int i = 0; i < variableCount; i++)
+		{
+			set(startOut, i);
+		}
+
+		// instructions are mostly in flow order, so worklist in index order converges after few passes
+		boolean[] inQueue = new boolean[size];
+		TIntArrayList queue = new TIntArrayList(size);
+		for(int i = 1; i < size; i++)
+		{
+			queue.add(i);
+			inQueue[i] = true;
+		}
+
+		long[] newOut = new long[myWordCount];
+		int position = 0;
+		while(position < queue.size())
+		{
+			int index = queue.get(position++);
+			if(position > size)
+			{
+				// compact processed part of queue
+				queue.remove(0, position);
+				position = 0;
+			}
+			inQueue[index] = false;
+
+			long[] in = myIn[index];
+			TIntArrayList list = predecessors[index];
+			if(list != null)
+			{
+				for(int i = 0; i < list.size(); i++)
+				{
+					or(in, out[list.get(i)]);
+				}
+			}
+
+			System.arraycopy(in, 0, newOut, 0, myWordCount);
+
+			CSharpInstruction instruction = instructions.get(index);
+			if(instruction.getKind() == CSharpInstruction.Kind.WRITE)
+			{
+				int definitionIndex = instruction.getDefinitionIndex();
+				andNot(newOut, myVariableMasks[controlFlow.getDefinitionVariableIndex(definitionIndex)]);
+				set(newOut, definitionIndex);
+			}
+
+			if(!equal(newOut, out[index]))
+			{
+				System.arraycopy(newOut, 0, out[index], 0, myWordCount);
+
+				for(int successor : instruction.getSuccessors())
+				{
+					if(!inQueue[successor])
+					{
+						inQueue[successor] = true;
+						queue.add(successor);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if definition reaches entry of instruction
+	 */
+	boolean isReaching(int instructionIndex, int definitionIndex)
+	{
+		return contains(myIn[instructionIndex], definitionIndex);
+	}
+
+	@NotNull
+	long[] newDefinitionSet()
+	{
+		return new long[myWordCount];
+	}
+
+	/**
+	 * Add definitions of variable, which reach entry of instruction, to set
+	 */
+	void collectReaching(int instructionIndex, int variableIndex, @NotNull long[] target)
+	{
+		long[] in = myIn[instructionIndex];
+		long[] mask = myVariableMasks[variableIndex];
+		for(int i = 0; i < myWordCount; i++)
+		{
+			target[i] |= in[i] & mask[i];
+		}
+	}
+
+	static boolean contains(@NotNull long[] words, int index)
+	{
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void set(long[] words, int index)
+	{
+		words[index >>> 6] |= 1L << index;
+	}
+
+	private static void or(long[] target, long[] source)
+	{
+		for(int i = 0; i < target.length; i++)
+		{
+			target[i] |= source[i];
+		}
+	}
+
+	private static void andNot(long[] target, long[] source)
+	{
+		for(int i = 0; i < target.length; i++)
+		{
+			target[i] &= ~source[i];
+		}
+	}
+
+	private static boolean equal(long[] a, long[] b)
+	{
+		for(int i = 0; i < a.length; i++)
+		{
+			if(a[i] != b[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
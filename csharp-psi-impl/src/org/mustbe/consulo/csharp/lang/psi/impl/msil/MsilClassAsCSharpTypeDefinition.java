@@ -16,9 +16,12 @@
 
 package org.mustbe.consulo.csharp.lang.psi.impl.msil;
 
+import gnu.trove.THashSet;
+import gnu.trove.TObjectHashingStrategy;
+
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.consulo.lombok.annotations.LazyInstance;
 import org.jetbrains.annotations.NonNls;
@@ -66,13 +69,14 @@ public class MsilClassAsCSharpTypeDefinition extends MsilElementWrapper<MsilClas
 			MsilClassAsCSharpTypeDefinition parentThis = MsilClassAsCSharpTypeDefinition.this;
 
 			DotNetNamedElement[] temp = myOriginal.getMembers();
-			List<DotNetNamedElement> copy = new ArrayList<DotNetNamedElement>(temp.length);
-			Collections.addAll(copy, temp);
 
 			List<DotNetNamedElement> list = new ArrayList<DotNetNamedElement>(temp.length);
 
+			// accessor methods of properties & events, they are not visible as methods
+			Set<MsilMethodEntry> accessorMethods = new THashSet<MsilMethodEntry>(TObjectHashingStrategy.IDENTITY);
+
 			boolean isEnum = isEnum();
-			List<String> bannedFieldNames = new ArrayList<String>();
+			Set<String> bannedFieldNames = new THashSet<String>();
 			for(DotNetNamedElement element : temp)
 			{
 				if(element instanceof MsilFieldEntry)
@@ -110,7 +114,7 @@ public class MsilClassAsCSharpTypeDefinition extends MsilElementWrapper<MsilClas
 							if(methodEntry != null)
 							{
 								pairs.add(Pair.create(accessor, methodEntry));
-								copy.remove(methodEntry);
+								accessorMethods.add(methodEntry);
 							}
 						}
 					}
@@ -143,7 +147,7 @@ public class MsilClassAsCSharpTypeDefinition extends MsilElementWrapper<MsilClas
 							if(methodEntry != null)
 							{
 								pairs.add(Pair.create(accessor, methodEntry));
-								copy.remove(methodEntry);
+								accessorMethods.add(methodEntry);
 							}
 						}
 					}
@@ -172,9 +176,9 @@ public class MsilClassAsCSharpTypeDefinition extends MsilElementWrapper<MsilClas
 				}
 			}
 
-			for(DotNetNamedElement member : copy)
+			for(DotNetNamedElement member : temp)
 			{
-				if(member instanceof MsilMethodEntry)
+				if(member instanceof MsilMethodEntry && !accessorMethods.contains(member))
 				{
 					String nameFromBytecode = ((MsilMethodEntry) member).getNameFromBytecode();
 					if(Comparing.equal(nameFromBytecode, MsilHelper.STATIC_CONSTRUCTOR_NAME) || StringUtil.startsWith(nameFromBytecode, "<"))
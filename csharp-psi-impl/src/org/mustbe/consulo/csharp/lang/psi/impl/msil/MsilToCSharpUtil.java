@@ -16,9 +16,6 @@
 
 package org.mustbe.consulo.csharp.lang.psi.impl.msil;
 
-import java.util.Map;
-
-import org.jboss.netty.util.internal.ConcurrentWeakKeyHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.mustbe.consulo.RequiredReadAction;
@@ -30,9 +27,9 @@ import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpArrayTy
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpPointerTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpRefTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefFromGenericParameter;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefInterner;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.lazy.CSharpLazyGenericWrapperTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.lazy.CSharpLazyLambdaTypeRef;
-import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.lazy.CSharpLazyTypeRefByQName;
 import org.mustbe.consulo.dotnet.DotNetTypes;
 import org.mustbe.consulo.dotnet.psi.DotNetAttribute;
 import org.mustbe.consulo.dotnet.psi.DotNetGenericParameter;
@@ -47,7 +44,6 @@ import org.mustbe.consulo.dotnet.resolve.DotNetPointerTypeRef;
 import org.mustbe.consulo.dotnet.resolve.DotNetRefTypeRef;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 import org.mustbe.consulo.msil.lang.psi.MsilClassEntry;
-import org.mustbe.consulo.msil.lang.psi.MsilEntry;
 import org.mustbe.consulo.msil.lang.psi.MsilMethodEntry;
 import org.mustbe.consulo.msil.lang.psi.MsilModifierElementType;
 import org.mustbe.consulo.msil.lang.psi.MsilTokens;
@@ -55,8 +51,10 @@ import org.mustbe.consulo.msil.lang.psi.impl.type.MsilArrayTypRefImpl;
 import org.mustbe.consulo.msil.lang.psi.impl.type.MsilNativeTypeRefImpl;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.NotNullLazyValue;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.util.containers.ContainerUtil;
 import lombok.val;
 
@@ -66,8 +64,6 @@ import lombok.val;
  */
 public class MsilToCSharpUtil
 {
-	private static Map<MsilEntry, PsiElement> ourCache = new ConcurrentWeakKeyHashMap<MsilEntry, PsiElement>();
-
 	public static boolean hasCSharpInMsilModifierList(CSharpModifier modifier, DotNetModifierList modifierList)
 	{
 		MsilModifierElementType elementType = null;
@@ -182,7 +178,8 @@ public class MsilToCSharpUtil
 	{
 		if(element instanceof MsilClassEntry)
 		{
-			PsiElement cache = ourCache.get(element);
+			MsilToCSharpWrapperCache wrapperCache = MsilToCSharpWrapperCache.getInstance(element.getProject());
+			PsiElement cache = wrapperCache.get((MsilClassEntry) element);
 			if(cache != null)
 			{
 				return cache;
@@ -202,8 +199,7 @@ public class MsilToCSharpUtil
 			{
 				cache = new MsilClassAsCSharpTypeDefinition(parent, (MsilClassEntry) element);
 			}
-			ourCache.put((MsilClassEntry) element, cache);
-			return cache;
+			return wrapperCache.put((MsilClassEntry) element, cache);
 		}
 		return element;
 	}
@@ -233,7 +229,25 @@ public class MsilToCSharpUtil
 	}
 
 	@NotNull
-	public static DotNetTypeRef extractToCSharp(@NotNull DotNetTypeRef typeRef, @NotNull PsiElement scope)
+	public static DotNetTypeRef extractToCSharp(@NotNull DotNetTypeRef typeRef, @NotNull final PsiElement scope)
+	{
+		// resolve scope is calculated once for all type refs of tree
+		NotNullLazyValue<GlobalSearchScope> resolveScope = new NotNullLazyValue<GlobalSearchScope>()
+		{
+			@NotNull
+			@Override
+			protected GlobalSearchScope compute()
+			{
+				return scope.getResolveScope();
+			}
+		};
+		return extractToCSharp(typeRef, scope, resolveScope);
+	}
+
+	@NotNull
+	private static DotNetTypeRef extractToCSharp(@NotNull DotNetTypeRef typeRef,
+			@NotNull PsiElement scope,
+			@NotNull NotNullLazyValue<GlobalSearchScope> resolveScope)
 	{
 		if(typeRef == DotNetTypeRef.ERROR_TYPE)
 		{
@@ -242,32 +256,34 @@ public class MsilToCSharpUtil
 
 		if(typeRef instanceof MsilNativeTypeRefImpl)
 		{
-			return new CSharpLazyTypeRefByQName(scope, typeRef.getQualifiedText());
+			return CSharpTypeRefInterner.getInstance(scope.getProject()).getLazyTypeRefByQName(scope, resolveScope.getValue(),
+					typeRef.getQualifiedText());
 		}
 		else if(typeRef instanceof MsilArrayTypRefImpl)
 		{
 			int[] lowerValues = ((MsilArrayTypRefImpl) typeRef).getLowerValues();
-			return new CSharpArrayTypeRef(extractToCSharp(((MsilArrayTypRefImpl) typeRef).getInnerTypeRef(), scope),
+			return new CSharpArrayTypeRef(extractToCSharp(((MsilArrayTypRefImpl) typeRef).getInnerTypeRef(), scope, resolveScope),
 					lowerValues.length == 0 ? 0 : lowerValues.length - 1);
 		}
 		else if(typeRef instanceof DotNetPointerTypeRef)
 		{
-			return new CSharpPointerTypeRef(extractToCSharp(((DotNetPointerTypeRef) typeRef).getInnerTypeRef(), scope));
+			return new CSharpPointerTypeRef(extractToCSharp(((DotNetPointerTypeRef) typeRef).getInnerTypeRef(), scope, resolveScope));
 		}
 		else if(typeRef instanceof DotNetRefTypeRef)
 		{
-			return new CSharpRefTypeRef(CSharpRefTypeRef.Type.ref, extractToCSharp(((DotNetRefTypeRef) typeRef).getInnerTypeRef(), scope));
+			return new CSharpRefTypeRef(CSharpRefTypeRef.Type.ref, extractToCSharp(((DotNetRefTypeRef) typeRef).getInnerTypeRef(), scope,
+					resolveScope));
 		}
 		else if(typeRef instanceof DotNetGenericWrapperTypeRef)
 		{
 			DotNetTypeRef innerTypeRef = ((DotNetGenericWrapperTypeRef) typeRef).getInnerTypeRef();
 			DotNetTypeRef[] arguments = ((DotNetGenericWrapperTypeRef) typeRef).getArgumentTypeRefs();
 
-			val inner = extractToCSharp(innerTypeRef, scope);
+			val inner = extractToCSharp(innerTypeRef, scope, resolveScope);
 			DotNetTypeRef[] newArguments = new DotNetTypeRef[arguments.length];
 			for(int i = 0; i < newArguments.length; i++)
 			{
-				newArguments[i] = extractToCSharp(arguments[i], scope);
+				newArguments[i] = extractToCSharp(arguments[i], scope, resolveScope);
 			}
 
 			return new CSharpLazyGenericWrapperTypeRef(scope, inner, newArguments);
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.msil;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.consulo.lombok.annotations.ProjectService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.msil.lang.psi.MsilEntry;
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.containers.ContainerUtil;
+
+/**
+ * Project cache for C# wrappers of MSIL entries. Keys are weak and wrappers are soft - cache never holds MSIL psi or wrappers
+ * which are not used by anyone, and while wrapper is reachable, same wrapper is returned for entry.
+ * Cache is dropped when project roots(and libraries) are changed
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+@ProjectService
+public class MsilToCSharpWrapperCache implements Disposable
+{
+	private final ConcurrentMap<MsilEntry, PsiElement> myCache = ContainerUtil.createConcurrentWeakKeySoftValueMap(100, 0.75f,
+			Runtime.getRuntime().availableProcessors(), ContainerUtil.<MsilEntry>canonicalStrategy());
+
+	private final AtomicLong myHits = new AtomicLong();
+	private final AtomicLong myMisses = new AtomicLong();
+
+	public MsilToCSharpWrapperCache(@NotNull Project project)
+	{
+		project.getMessageBus().connect(project).subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter()
+		{
+			@Override
+			public void rootsChanged(ModuleRootEvent event)
+			{
+				clear();
+			}
+		});
+	}
+
+	@Nullable
+	public PsiElement get(@NotNull MsilEntry entry)
+	{
+		PsiElement element = myCache.get(entry);
+		if(element == null)
+		{
+			myMisses.incrementAndGet();
+		}
+		else
+		{
+			myHits.incrementAndGet();
+		}
+		return element;
+	}
+
+	/**
+	 * @return old value if wrapper was created by other thread, or new value
+	 */
+	@NotNull
+	public PsiElement put(@NotNull MsilEntry entry, @NotNull PsiElement element)
+	{
+		PsiElement oldValue = myCache.putIfAbsent(entry, element);
+		return oldValue == null ? element : oldValue;
+	}
+
+	public void clear()
+	{
+		myCache.clear();
+	}
+
+	public long getHitCount()
+	{
+		return myHits.get();
+	}
+
+	public long getMissCount()
+	{
+		return myMisses.get();
+	}
+
+	@Override
+	public void dispose()
+	{
+		clear();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "MsilToCSharpWrapperCache{hits=" + getHitCount() + ", misses=" + getMissCount() + "}";
+	}
+}
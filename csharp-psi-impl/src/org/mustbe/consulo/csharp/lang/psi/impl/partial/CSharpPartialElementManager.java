@@ -17,10 +17,16 @@
 package org.mustbe.consulo.csharp.lang.psi.impl.partial;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.consulo.lombok.annotations.ProjectService;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.csharp.lang.CSharpFileType;
 import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
 import com.intellij.ProjectTopics;
 import com.intellij.openapi.Disposable;
@@ -28,44 +34,116 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ModuleRootAdapter;
 import com.intellij.openapi.roots.ModuleRootEvent;
 import com.intellij.openapi.util.Factory;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtilCore;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.messages.MessageBusConnection;
 
 /**
+ * Composite types are not dropped on each modification. Composite is reused while it built from same partial declarations,
+ * and files of this declarations have no out of code block modifications or changes of file outside of editor.
+ * Caches of composite must depend on {@link #getStructureModificationTracker}
+ *
  * @author VISTALL
  * @since 02.05.2015
  */
 @ProjectService
 public class CSharpPartialElementManager implements Disposable
 {
+	private static final Key<long[]> STRUCTURE_STAMPS = Key.create("csharp.partial.structure.stamps");
+
 	private final Map<GlobalSearchScope, Map<String, CSharpTypeDeclaration>> myCache = ContainerUtil.createConcurrentWeakMap();
-	private long myOutOfCodeModification;
 
-	public CSharpPartialElementManager(@NotNull Project project, @NotNull final PsiModificationTracker modificationTracker)
+	private final ConcurrentMap<VirtualFile, Long> myFileStructureStamps = ContainerUtil.createConcurrentWeakMap();
+	private final AtomicLong myStructureModificationCount = new AtomicLong();
+	private volatile long myGlobalStructureStamp;
+
+	public CSharpPartialElementManager(@NotNull Project project)
 	{
-		project.getMessageBus().connect().subscribe(PsiModificationTracker.TOPIC, new PsiModificationTracker.Listener()
+		MessageBusConnection connection = project.getMessageBus().connect(this);
+		connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter()
+		{
+			@Override
+			public void rootsChanged(ModuleRootEvent event)
+			{
+				myGlobalStructureStamp = myStructureModificationCount.incrementAndGet();
+				myCache.clear();
+			}
+		});
+		// file can be changed without psi events, if it not loaded(stubs only)
+		connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter()
 		{
 			@Override
-			public void modificationCountChanged()
+			public void after(@NotNull List<? extends VFileEvent> events)
 			{
-				long l = modificationTracker.getOutOfCodeBlockModificationCount();
-				if(l != myOutOfCodeModification)
+				for(VFileEvent event : events)
 				{
-					myOutOfCodeModification = l;
-					myCache.clear();
+					VirtualFile file = event.getFile();
+					if(file != null && !file.isDirectory() && file.getFileType() == CSharpFileType.INSTANCE)
+					{
+						myFileStructureStamps.put(file, myStructureModificationCount.incrementAndGet());
+					}
 				}
 			}
 		});
+	}
 
-		project.getMessageBus().connect().subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter()
+	/**
+	 * Called on out of code block modification of file
+	 *
+	 * @param file changed file, or null if file is unknown - all composites will be dropped
+	 */
+	public void fileStructureChanged(@Nullable PsiFile file)
+	{
+		long count = myStructureModificationCount.incrementAndGet();
+		VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+		if(virtualFile == null)
+		{
+			myGlobalStructureStamp = count;
+		}
+		else
+		{
+			myFileStructureStamps.put(virtualFile, count);
+		}
+	}
+
+	/**
+	 * Stamps are taken from one counter, so max stamp of composite changes on any change of its files
+	 *
+	 * @return tracker which changes when composite is out of date
+	 */
+	@NotNull
+	public ModificationTracker getStructureModificationTracker(@NotNull final CSharpCompositeTypeDeclaration compositeType)
+	{
+		return new ModificationTracker()
 		{
 			@Override
-			public void rootsChanged(ModuleRootEvent event)
+			public long getModificationCount()
 			{
-				myCache.clear();
+				CSharpTypeDeclaration[] declarations = compositeType.getTypeDeclarations();
+				for(CSharpTypeDeclaration declaration : declarations)
+				{
+					if(!declaration.isValid())
+					{
+						return -1;
+					}
+				}
+
+				long max = 0;
+				for(long stamp : calcStructureStamps(declarations))
+				{
+					max = Math.max(max, stamp);
+				}
+				return max;
 			}
-		});
+		};
 	}
 
 	@NotNull
@@ -82,19 +160,70 @@ public class CSharpPartialElementManager implements Disposable
 			}
 		});
 
-		return ContainerUtil.getOrCreate(scopeMap, vmQName, new Factory<CSharpTypeDeclaration>()
+		// one composite per type - caches of composite are not duplicated
+		synchronized(scopeMap)
 		{
-			@Override
-			public CSharpTypeDeclaration create()
+			CSharpTypeDeclaration cached = scopeMap.get(vmQName);
+			if(cached instanceof CSharpCompositeTypeDeclaration && isUpToDate((CSharpCompositeTypeDeclaration) cached, typeDeclarations))
 			{
-				return new CSharpCompositeTypeDeclaration(ContainerUtil.toArray(typeDeclarations, CSharpTypeDeclaration.ARRAY_FACTORY));
+				return cached;
 			}
-		});
+
+			CSharpTypeDeclaration[] declarations = ContainerUtil.toArray(typeDeclarations, CSharpTypeDeclaration.ARRAY_FACTORY);
+			CSharpCompositeTypeDeclaration compositeType = new CSharpCompositeTypeDeclaration(declarations);
+			compositeType.putUserData(STRUCTURE_STAMPS, calcStructureStamps(declarations));
+			scopeMap.put(vmQName, compositeType);
+			return compositeType;
+		}
+	}
+
+	private boolean isUpToDate(@NotNull CSharpCompositeTypeDeclaration compositeType, @NotNull Collection<CSharpTypeDeclaration> typeDeclarations)
+	{
+		CSharpTypeDeclaration[] declarations = compositeType.getTypeDeclarations();
+		if(declarations.length != typeDeclarations.size())
+		{
+			return false;
+		}
+
+		Iterator<CSharpTypeDeclaration> iterator = typeDeclarations.iterator();
+		for(CSharpTypeDeclaration declaration : declarations)
+		{
+			if(declaration != iterator.next() || !declaration.isValid())
+			{
+				return false;
+			}
+		}
+
+		long[] stamps = compositeType.getUserData(STRUCTURE_STAMPS);
+		long[] newStamps = calcStructureStamps(declarations);
+		for(int i = 0; i < newStamps.length; i++)
+		{
+			if(stamps == null || stamps[i] != newStamps[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@NotNull
+	private long[] calcStructureStamps(@NotNull CSharpTypeDeclaration[] declarations)
+	{
+		long[] stamps = new long[declarations.length + 1];
+		stamps[0] = myGlobalStructureStamp;
+		for(int i = 0; i < declarations.length; i++)
+		{
+			VirtualFile virtualFile = PsiUtilCore.getVirtualFile(declarations[i]);
+			Long stamp = virtualFile == null ? null : myFileStructureStamps.get(virtualFile);
+			stamps[i + 1] = stamp == null ? 0 : stamp;
+		}
+		return stamps;
 	}
 
 	@Override
 	public void dispose()
 	{
 		myCache.clear();
+		myFileStructureStamps.clear();
 	}
 }
@@ -3,10 +3,13 @@ package org.mustbe.consulo.csharp.lang.psi.impl.resolve;
 import gnu.trove.THashMap;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.consulo.lombok.annotations.LazyInstance;
 import org.jetbrains.annotations.NotNull;
@@ -29,12 +32,13 @@ import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.util.ArrayUtil;
+import com.intellij.util.ConcurrencyUtil;
 import com.intellij.util.Consumer;
+import com.intellij.util.ObjectUtils;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
 import com.intellij.util.containers.ContainerUtil;
 import com.intellij.util.containers.MultiMap;
-import lombok.val;
 
 /**
  * @author VISTALL
@@ -42,21 +46,20 @@ import lombok.val;
  */
 public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetModifierListOwner> implements CSharpResolveContext
 {
+	private static final Object NULL_GROUP = new Object();
+
+	/**
+	 * Collect members by categories, without unwrapping generics - it done on demand for each category
+	 */
 	protected static class Collector extends CSharpElementVisitor
 	{
-		private final DotNetGenericExtractor myGenericExtractor;
 		private List<CSharpConstructorDeclaration> myDeConstructors;
 		private List<CSharpConstructorDeclaration> myConstructors;
 		private MultiMap<IElementType, CSharpMethodDeclaration> myOperatorsMap;
 		private MultiMap<String, CSharpMethodDeclaration> myExtensionMap;
 		private MultiMap<DotNetTypeRef, CSharpConversionMethodDeclaration> myConversionMap;
 		private List<CSharpArrayMethodDeclaration> myIndexMethods;
-		private MultiMap<String, PsiElement> myOtherElements = new MultiMap<String, PsiElement>();
-
-		public Collector(DotNetGenericExtractor genericExtractor)
-		{
-			myGenericExtractor = genericExtractor;
-		}
+		private MultiMap<String, DotNetNamedElement> myOtherElements = new MultiMap<String, DotNetNamedElement>();
 
 		@Override
 		public void visitConstructorDeclaration(CSharpConstructorDeclaration declaration)
@@ -75,7 +78,7 @@ public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetM
 				{
 					myConstructors = new SmartList<CSharpConstructorDeclaration>();
 				}
-				myConstructors.add(GenericUnwrapTool.extract(declaration, myGenericExtractor));
+				myConstructors.add(declaration);
 			}
 		}
 
@@ -137,7 +140,7 @@ public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetM
 			{
 				myIndexMethods = new SmartList<CSharpArrayMethodDeclaration>();
 			}
-			myIndexMethods.add(GenericUnwrapTool.extract(declaration, myGenericExtractor));
+			myIndexMethods.add(declaration);
 		}
 
 		@Override
@@ -170,13 +173,13 @@ public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetM
 			putIfNotNull(declaration.getName(), declaration, myOtherElements);
 		}
 
-		private <K, V extends DotNetNamedElement> void putIfNotNull(@Nullable K key, @NotNull V value, @NotNull MultiMap<K, PsiElement> map)
+		private static <K> void putIfNotNull(@Nullable K key, @NotNull DotNetNamedElement value, @NotNull MultiMap<K, DotNetNamedElement> map)
 		{
 			if(key == null)
 			{
 				return;
 			}
-			map.putValue(key, GenericUnwrapTool.extract(value, myGenericExtractor));
+			map.putValue(key, value);
 		}
 	}
 
@@ -184,54 +187,171 @@ public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetM
 	protected final T myElement;
 	@NotNull
 	protected final DotNetGenericExtractor myExtractor;
-	@Nullable
-	private CSharpElementGroup<CSharpArrayMethodDeclaration> myIndexMethodGroup;
-	@Nullable
-	private CSharpElementGroup<CSharpConstructorDeclaration> myConstructorGroup;
-	@Nullable
-	private CSharpElementGroup<CSharpConstructorDeclaration> myDeConstructorGroup;
 
-	@Nullable
-	private final Map<DotNetTypeRef, CSharpElementGroup<CSharpConversionMethodDeclaration>> myConversionMap;
-	@Nullable
-	private final Map<IElementType, CSharpElementGroup<CSharpMethodDeclaration>> myOperatorMap;
-	@Nullable
-	private final Map<String, CSharpElementGroup<CSharpMethodDeclaration>> myExtensionMap;
-	@Nullable
-	private final Map<String, CSharpElementGroup<PsiElement>> myOtherElements;
+	// each category is materialized on first access, NULL_GROUP if category is empty
+	private volatile Collector myCollector;
+	private final AtomicReference<Object> myIndexMethodGroup = new AtomicReference<Object>();
+	private final AtomicReference<Object> myConstructorGroup = new AtomicReference<Object>();
+	private final AtomicReference<Object> myDeConstructorGroup = new AtomicReference<Object>();
+	private final AtomicReference<Map<DotNetTypeRef, CSharpElementGroup<CSharpConversionMethodDeclaration>>> myConversionMap = new
+			AtomicReference<Map<DotNetTypeRef, CSharpElementGroup<CSharpConversionMethodDeclaration>>>();
+	private final AtomicReference<Map<IElementType, CSharpElementGroup<CSharpMethodDeclaration>>> myOperatorMap = new
+			AtomicReference<Map<IElementType, CSharpElementGroup<CSharpMethodDeclaration>>>();
+	private final AtomicReference<Map<String, CSharpElementGroup<CSharpMethodDeclaration>>> myExtensionMap = new AtomicReference<Map<String,
+			CSharpElementGroup<CSharpMethodDeclaration>>>();
+	// name groups are unwrapped per name
+	private final ConcurrentMap<String, Object> myOtherElements = ContainerUtil.newConcurrentMap();
+
+	// deep lookups over flattened hierarchy, context lives until out of code block modification
+	private final ConcurrentMap<String, PsiElement[]> myDeepElementsByName = ContainerUtil.newConcurrentMap();
+	private final ConcurrentMap<IElementType, Object> myDeepOperatorGroups = ContainerUtil.newConcurrentMap();
+	private final ConcurrentMap<DotNetTypeRef, Object> myDeepConversionGroups = ContainerUtil.newConcurrentMap();
+	private final AtomicReference<Object> myDeepIndexMethodGroup = new AtomicReference<Object>();
 
-	@RequiredReadAction
 	public CSharpBaseResolveContext(@NotNull T element, @NotNull DotNetGenericExtractor extractor)
 	{
 		myElement = element;
 		myExtractor = extractor;
-		val project = element.getProject();
+	}
 
-		val collector = new Collector(extractor);
+	@NotNull
+	@RequiredReadAction
+	private Collector getCollector()
+	{
+		Collector collector = myCollector;
+		if(collector == null)
+		{
+			final Collector newCollector = new Collector();
 
-		processMembers(element, collector);
+			processMembers(myElement, newCollector);
 
-		Consumer<DotNetElement> elementConsumer = new Consumer<DotNetElement>()
-		{
-			@Override
-			public void consume(DotNetElement dotNetElement)
+			Consumer<DotNetElement> elementConsumer = new Consumer<DotNetElement>()
+			{
+				@Override
+				public void consume(DotNetElement dotNetElement)
+				{
+					dotNetElement.accept(newCollector);
+				}
+			};
+
+			for(CSharpAdditionalMemberProvider provider : getAdditionalTypeMemberProviders())
 			{
-				dotNetElement.accept(collector);
+				provider.processAdditionalMembers(myElement, myExtractor, elementConsumer);
 			}
-		};
 
-		for(CSharpAdditionalMemberProvider provider : getAdditionalTypeMemberProviders())
+			myCollector = collector = newCollector;
+		}
+		return collector;
+	}
+
+	@Nullable
+	@RequiredReadAction
+	private <E extends DotNetNamedElement> CSharpElementGroup<E> toUnwrappedGroup(@NotNull String key, @Nullable Collection<E> elements)
+	{
+		if(ContainerUtil.isEmpty(elements))
+		{
+			return null;
+		}
+
+		List<E> unwrapped = new ArrayList<E>(elements.size());
+		for(E element : elements)
+		{
+			unwrapped.add(GenericUnwrapTool.extract(element, myExtractor));
+		}
+		return new CSharpElementGroupImpl<E>(myElement.getProject(), key, unwrapped);
+	}
+
+	@Nullable
+	@RequiredReadAction
+	private CSharpElementGroup<CSharpArrayMethodDeclaration> getIndexMethodGroup()
+	{
+		Object group = myIndexMethodGroup.get();
+		if(group == null)
+		{
+			group = setIfAbsent(myIndexMethodGroup, ObjectUtils.notNull(toUnwrappedGroup("[]", getCollector().myIndexMethods), NULL_GROUP));
+		}
+		return unwrapNull(group);
+	}
+
+	@Nullable
+	@RequiredReadAction
+	private CSharpElementGroup<CSharpConstructorDeclaration> getConstructorGroup()
+	{
+		Object group = myConstructorGroup.get();
+		if(group == null)
+		{
+			group = setIfAbsent(myConstructorGroup, ObjectUtils.notNull(toUnwrappedGroup(MsilHelper.CONSTRUCTOR_NAME, getCollector().myConstructors),
+					NULL_GROUP));
+		}
+		return unwrapNull(group);
+	}
+
+	@Nullable
+	@RequiredReadAction
+	private CSharpElementGroup<CSharpConstructorDeclaration> getDeConstructorGroup()
+	{
+		Object group = myDeConstructorGroup.get();
+		if(group == null)
+		{
+			List<CSharpConstructorDeclaration> deConstructors = getCollector().myDeConstructors;
+			group = setIfAbsent(myDeConstructorGroup, ContainerUtil.isEmpty(deConstructors) ? NULL_GROUP : new
+					CSharpElementGroupImpl<CSharpConstructorDeclaration>(myElement.getProject(), "~" + MsilHelper.CONSTRUCTOR_NAME, deConstructors));
+		}
+		return unwrapNull(group);
+	}
+
+	@NotNull
+	@RequiredReadAction
+	private Map<IElementType, CSharpElementGroup<CSharpMethodDeclaration>> getOperatorMap()
+	{
+		Map<IElementType, CSharpElementGroup<CSharpMethodDeclaration>> map = myOperatorMap.get();
+		if(map == null)
+		{
+			map = convertToGroup(myElement.getProject(), getCollector().myOperatorsMap);
+			map = setIfAbsent(myOperatorMap, map == null ? Collections.<IElementType, CSharpElementGroup<CSharpMethodDeclaration>>emptyMap() : map);
+		}
+		return map;
+	}
+
+	@NotNull
+	@RequiredReadAction
+	private Map<DotNetTypeRef, CSharpElementGroup<CSharpConversionMethodDeclaration>> getConversionMap()
+	{
+		Map<DotNetTypeRef, CSharpElementGroup<CSharpConversionMethodDeclaration>> map = myConversionMap.get();
+		if(map == null)
 		{
-			provider.processAdditionalMembers(element, extractor, elementConsumer);
+			map = convertToGroup(myElement.getProject(), getCollector().myConversionMap);
+			map = setIfAbsent(myConversionMap, map == null ? Collections.<DotNetTypeRef,
+					CSharpElementGroup<CSharpConversionMethodDeclaration>>emptyMap() : map);
 		}
+		return map;
+	}
 
-		myOtherElements = convertToGroup(project, collector.myOtherElements);
-		myIndexMethodGroup = toGroup(project, "[]", collector.myIndexMethods);
-		myConstructorGroup = toGroup(project, MsilHelper.CONSTRUCTOR_NAME, collector.myConstructors);
-		myDeConstructorGroup = toGroup(project, "~" + MsilHelper.CONSTRUCTOR_NAME, collector.myDeConstructors);
-		myOperatorMap = convertToGroup(project, collector.myOperatorsMap);
-		myExtensionMap = convertToGroup(project, collector.myExtensionMap);
-		myConversionMap = convertToGroup(project, collector.myConversionMap);
+	@NotNull
+	@RequiredReadAction
+	private Map<String, CSharpElementGroup<CSharpMethodDeclaration>> getExtensionMap()
+	{
+		Map<String, CSharpElementGroup<CSharpMethodDeclaration>> map = myExtensionMap.get();
+		if(map == null)
+		{
+			map = convertToGroup(myElement.getProject(), getCollector().myExtensionMap);
+			map = setIfAbsent(myExtensionMap, map == null ? Collections.<String, CSharpElementGroup<CSharpMethodDeclaration>>emptyMap() : map);
+		}
+		return map;
+	}
+
+	@Nullable
+	@RequiredReadAction
+	private CSharpElementGroup<PsiElement> getOtherElementGroup(@NotNull String name)
+	{
+		Object group = myOtherElements.get(name);
+		if(group == null)
+		{
+			Collection<DotNetNamedElement> elements = getCollector().myOtherElements.get(name);
+			CSharpElementGroup<DotNetNamedElement> unwrappedGroup = toUnwrappedGroup(name, elements);
+			group = ConcurrencyUtil.cacheOrGet(myOtherElements, name, ObjectUtils.notNull(unwrappedGroup, NULL_GROUP));
+		}
+		return unwrapNull(group);
 	}
 
 	public abstract void processMembers(T element, Collector collector);
@@ -271,21 +391,85 @@ public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetM
 		return new CSharpCompositeResolveContext(myElement.getProject(), contexts.toArray(new CSharpResolveContext[contexts.size()]));
 	}
 
-	@NotNull
+	/**
+	 * All super contexts of hierarchy in lookup order(depth first, in order of extend list). Each context is included only once.
+	 * {@link CSharpBaseResolveContext} contexts must be queried not deep, other contexts - deep
+	 */
 	@LazyInstance
-	private static CSharpAdditionalMemberProvider[] getAdditionalTypeMemberProviders()
+	@NotNull
+	protected CSharpResolveContext[] getFlattenedSuperContexts()
 	{
-		return CSharpAdditionalMemberProvider.EP_NAME.getExtensions();
+		Set<CSharpResolveContext> visited = ContainerUtil.newIdentityTroveSet();
+		visited.add(this);
+
+		List<CSharpResolveContext> contexts = new ArrayList<CSharpResolveContext>();
+		collectSuperContexts(getSuperContext(), visited, contexts);
+		return contexts.toArray(new CSharpResolveContext[contexts.size()]);
+	}
+
+	private static void collectSuperContexts(@NotNull CSharpResolveContext context,
+			@NotNull Set<CSharpResolveContext> visited,
+			@NotNull List<CSharpResolveContext> contexts)
+	{
+		if(context == EMPTY || !visited.add(context))
+		{
+			return;
+		}
+
+		if(context instanceof CSharpCompositeResolveContext)
+		{
+			for(CSharpResolveContext childContext : ((CSharpCompositeResolveContext) context).getContexts())
+			{
+				collectSuperContexts(childContext, visited, contexts);
+			}
+		}
+		else if(context instanceof CSharpBaseResolveContext)
+		{
+			contexts.add(context);
+			collectSuperContexts(((CSharpBaseResolveContext<?>) context).getSuperContext(), visited, contexts);
+		}
+		else
+		{
+			contexts.add(context);
+		}
+	}
+
+	@NotNull
+	private static <V> V setIfAbsent(@NotNull AtomicReference<V> reference, @NotNull V value)
+	{
+		return reference.compareAndSet(null, value) ? value : reference.get();
 	}
 
 	@Nullable
-	private static <T extends PsiElement> CSharpElementGroup<T> toGroup(@NotNull Project project, @NotNull String key, @Nullable List<T> elements)
+	@SuppressWarnings("unchecked")
+	private static <E> E unwrapNull(@NotNull Object value)
 	{
-		if(ContainerUtil.isEmpty(elements))
+		return value == NULL_GROUP ? null : (E) value;
+	}
+
+	@Nullable
+	private <E extends PsiElement> CSharpElementGroup<E> mergeGroups(@Nullable CSharpElementGroup<E> thisGroup,
+			@NotNull List<CSharpElementGroup<E>> superGroups)
+	{
+		if(superGroups.isEmpty())
 		{
-			return null;
+			return thisGroup;
 		}
-		return new CSharpElementGroupImpl<T>(project, key, elements);
+
+		List<CSharpElementGroup<E>> groups = new ArrayList<CSharpElementGroup<E>>(superGroups.size() + 1);
+		if(thisGroup != null)
+		{
+			groups.add(thisGroup);
+		}
+		groups.addAll(superGroups);
+		return groups.size() == 1 ? groups.get(0) : new CSharpCompositeElementGroupImpl<E>(myElement.getProject(), groups);
+	}
+
+	@NotNull
+	@LazyInstance
+	private static CSharpAdditionalMemberProvider[] getAdditionalTypeMemberProviders()
+	{
+		return CSharpAdditionalMemberProvider.EP_NAME.getExtensions();
 	}
 
 	@Nullable
@@ -307,146 +491,169 @@ public abstract class CSharpBaseResolveContext<T extends DotNetElement & DotNetM
 	@Override
 	public CSharpElementGroup<CSharpArrayMethodDeclaration> indexMethodGroup(boolean deep)
 	{
-		if(myIndexMethodGroup == null)
+		CSharpElementGroup<CSharpArrayMethodDeclaration> thisGroup = getIndexMethodGroup();
+		if(!deep)
 		{
-			return deep ? getSuperContext().indexMethodGroup(deep) : null;
+			return thisGroup;
 		}
-		else
-		{
-			CSharpElementGroup<CSharpArrayMethodDeclaration> deepGroup = deep ? getSuperContext().indexMethodGroup(deep) : null;
 
-			if(deepGroup == null)
+		Object deepGroup = myDeepIndexMethodGroup.get();
+		if(deepGroup == null)
+		{
+			List<CSharpElementGroup<CSharpArrayMethodDeclaration>> superGroups = new SmartList<CSharpElementGroup<CSharpArrayMethodDeclaration>>();
+			for(CSharpResolveContext context : getFlattenedSuperContexts())
 			{
-				return myIndexMethodGroup;
+				ContainerUtil.addIfNotNull(superGroups, context.indexMethodGroup(!(context instanceof CSharpBaseResolveContext)));
 			}
-			return new CSharpCompositeElementGroupImpl<CSharpArrayMethodDeclaration>(myElement.getProject(), Arrays.asList(myIndexMethodGroup,
-					deepGroup));
+			deepGroup = setIfAbsent(myDeepIndexMethodGroup, ObjectUtils.notNull(mergeGroups(thisGroup, superGroups), NULL_GROUP));
 		}
+		return unwrapNull(deepGroup);
 	}
 
 	@Nullable
 	@Override
 	public CSharpElementGroup<CSharpConstructorDeclaration> constructorGroup()
 	{
-		return myConstructorGroup;
+		return getConstructorGroup();
 	}
 
 	@Nullable
 	@Override
 	public CSharpElementGroup<CSharpConstructorDeclaration> deConstructorGroup()
 	{
-		return myDeConstructorGroup;
+		return getDeConstructorGroup();
 	}
 
 	@Nullable
 	@Override
 	public CSharpElementGroup<CSharpMethodDeclaration> findOperatorGroupByTokenType(@NotNull IElementType type, boolean deep)
 	{
-		if(myOperatorMap == null)
+		CSharpElementGroup<CSharpMethodDeclaration> thisGroup = getOperatorMap().get(type);
+		if(!deep)
 		{
-			return deep ? getSuperContext().findOperatorGroupByTokenType(type, deep) : null;
+			return thisGroup;
 		}
-		else
-		{
-			CSharpElementGroup<CSharpMethodDeclaration> deepGroup = deep ? getSuperContext().findOperatorGroupByTokenType(type, deep) : null;
-
-			if(deepGroup == null)
-			{
-				return myOperatorMap.get(type);
-			}
 
-			CSharpElementGroup<CSharpMethodDeclaration> thisGroup = myOperatorMap.get(type);
-			if(thisGroup == null)
+		Object deepGroup = myDeepOperatorGroups.get(type);
+		if(deepGroup == null)
+		{
+			List<CSharpElementGroup<CSharpMethodDeclaration>> superGroups = new SmartList<CSharpElementGroup<CSharpMethodDeclaration>>();
+			for(CSharpResolveContext context : getFlattenedSuperContexts())
 			{
-				return deepGroup;
+				ContainerUtil.addIfNotNull(superGroups, context.findOperatorGroupByTokenType(type, !(context instanceof CSharpBaseResolveContext)));
 			}
-			return new CSharpCompositeElementGroupImpl<CSharpMethodDeclaration>(myElement.getProject(), Arrays.asList(thisGroup, deepGroup));
+			deepGroup = ConcurrencyUtil.cacheOrGet(myDeepOperatorGroups, type, ObjectUtils.notNull(mergeGroups(thisGroup, superGroups), NULL_GROUP));
 		}
+		return unwrapNull(deepGroup);
 	}
 
 	@Nullable
 	@Override
 	public CSharpElementGroup<CSharpConversionMethodDeclaration> findConversionMethodGroup(@NotNull DotNetTypeRef typeRef, boolean deep)
 	{
-		if(myConversionMap == null)
+		CSharpElementGroup<CSharpConversionMethodDeclaration> thisGroup = getConversionMap().get(typeRef);
+		if(!deep)
 		{
-			return deep ? getSuperContext().findConversionMethodGroup(typeRef, deep) : null;
+			return thisGroup;
 		}
-		else
-		{
-			CSharpElementGroup<CSharpConversionMethodDeclaration> deepGroup = deep ? getSuperContext().findConversionMethodGroup(typeRef,
-					deep) : null;
 
-			if(deepGroup == null)
-			{
-				return myConversionMap.get(typeRef);
-			}
-
-			CSharpElementGroup<CSharpConversionMethodDeclaration> thisGroup = myConversionMap.get(typeRef);
-			if(thisGroup == null)
+		Object deepGroup = myDeepConversionGroups.get(typeRef);
+		if(deepGroup == null)
+		{
+			List<CSharpElementGroup<CSharpConversionMethodDeclaration>> superGroups = new SmartList<CSharpElementGroup<CSharpConversionMethodDeclaration>>();
+			for(CSharpResolveContext context : getFlattenedSuperContexts())
 			{
-				return deepGroup;
+				ContainerUtil.addIfNotNull(superGroups, context.findConversionMethodGroup(typeRef, !(context instanceof CSharpBaseResolveContext)));
 			}
-			return new CSharpCompositeElementGroupImpl<CSharpConversionMethodDeclaration>(myElement.getProject(), Arrays.asList(thisGroup,
-					deepGroup));
+			deepGroup = ConcurrencyUtil.cacheOrGet(myDeepConversionGroups, typeRef, ObjectUtils.notNull(mergeGroups(thisGroup, superGroups),
+					NULL_GROUP));
 		}
+		return unwrapNull(deepGroup);
 	}
 
 	@Nullable
 	@Override
 	public CSharpElementGroup<CSharpMethodDeclaration> findExtensionMethodGroupByName(@NotNull String name)
 	{
-		if(myExtensionMap == null)
-		{
-			return null;
-		}
-		return myExtensionMap.get(name);
+		return getExtensionMap().get(name);
 	}
 
 	@Override
 	public boolean processExtensionMethodGroups(@NotNull Processor<CSharpElementGroup<CSharpMethodDeclaration>> processor)
 	{
-		return myExtensionMap == null || ContainerUtil.process(myExtensionMap.values(), processor);
+		return ContainerUtil.process(getExtensionMap().values(), processor);
 	}
 
 	@Override
 	@NotNull
 	public PsiElement[] findByName(@NotNull String name, boolean deep, @NotNull UserDataHolder holder)
 	{
-		PsiElement[] selectedElements;
-		if(myOtherElements == null)
+		if(!deep)
 		{
-			selectedElements = PsiElement.EMPTY_ARRAY;
+			return findByNameImpl(name);
 		}
-		else
+
+		// holder is not used by type contexts, result can be cached by name
+		PsiElement[] selectedElements = myDeepElementsByName.get(name);
+		if(selectedElements == null)
 		{
-			CSharpElementGroup<PsiElement> group = myOtherElements.get(name);
-			if(group == null)
-			{
-				selectedElements = PsiElement.EMPTY_ARRAY;
-			}
-			else
+			selectedElements = findByNameImpl(name);
+			for(CSharpResolveContext context : getFlattenedSuperContexts())
 			{
-				selectedElements = new PsiElement[]{group};
+				selectedElements = ArrayUtil.mergeArrays(selectedElements, context.findByName(name, !(context instanceof CSharpBaseResolveContext),
+						holder));
 			}
+			selectedElements = ConcurrencyUtil.cacheOrGet(myDeepElementsByName, name, selectedElements);
 		}
+		return selectedElements;
+	}
 
-		if(deep)
+	@NotNull
+	private PsiElement[] findByNameImpl(@NotNull String name)
+	{
+		CSharpElementGroup<PsiElement> group = getOtherElementGroup(name);
+		if(group == null)
 		{
-			selectedElements = ArrayUtil.mergeArrays(selectedElements, getSuperContext().findByName(name, deep, holder));
+			return PsiElement.EMPTY_ARRAY;
 		}
-		return selectedElements;
+		return new PsiElement[]{group};
 	}
 
 	@Override
 	public boolean processElements(@NotNull Processor<PsiElement> processor, boolean deep)
 	{
-		return processElementsImpl(processor) && (!deep || getSuperContext().processElements(processor, deep));
+		if(!processElementsImpl(processor))
+		{
+			return false;
+		}
+
+		if(deep)
+		{
+			for(CSharpResolveContext context : getFlattenedSuperContexts())
+			{
+				boolean result = context instanceof CSharpBaseResolveContext ? ((CSharpBaseResolveContext<?>) context).processElementsImpl(processor) :
+						context.processElements(processor, true);
+				if(!result)
+				{
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 
+	@RequiredReadAction
 	public boolean processElementsImpl(@NotNull Processor<PsiElement> processor)
 	{
-		return myOtherElements == null || ContainerUtil.process(myOtherElements.values(), processor);
+		for(String name : getCollector().myOtherElements.keySet())
+		{
+			CSharpElementGroup<PsiElement> group = getOtherElementGroup(name);
+			if(group != null && !processor.process(group))
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@NotNull
@@ -8,13 +8,18 @@ import org.mustbe.consulo.csharp.lang.psi.CSharpModifier;
 import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.CSharpUsingList;
 import org.mustbe.consulo.csharp.lang.psi.impl.partial.CSharpCompositeTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.impl.partial.CSharpPartialElementManager;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpGenericExtractor;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefKeyUtil;
 import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpResolveContext;
 import org.mustbe.consulo.dotnet.psi.DotNetGenericParameter;
 import org.mustbe.consulo.dotnet.psi.DotNetTypeDeclaration;
 import org.mustbe.consulo.dotnet.resolve.DotNetGenericExtractor;
 import org.mustbe.consulo.dotnet.resolve.DotNetNamespaceAsElement;
 import org.mustbe.consulo.dotnet.resolve.DotNetPsiSearcher;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.util.CachedValue;
@@ -22,6 +27,7 @@ import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.NotNullFunction;
+import com.intellij.util.containers.SLRUMap;
 
 /**
  * @author VISTALL
@@ -31,6 +37,11 @@ import com.intellij.util.NotNullFunction;
 public class CSharpResolveContextUtil
 {
 	private static final Key<CachedValue<CSharpResolveContext>> RESOLVE_CONTEXT = Key.create("resolve-context");
+	private static final Key<CachedValue<SLRUMap<Pair<GlobalSearchScope, String>, CSharpResolveContext>>> GENERIC_RESOLVE_CONTEXTS = Key.create
+			("generic-resolve-contexts");
+
+	private static final int GENERIC_CONTEXT_PROTECTED_SIZE = 16;
+	private static final int GENERIC_CONTEXT_PROBATIONAL_SIZE = 16;
 
 	@NotNull
 	public static CSharpResolveContext createContext(@NotNull DotNetGenericExtractor genericExtractor,
@@ -114,24 +125,19 @@ public class CSharpResolveContextUtil
 			}
 		}
 
-		return cacheTypeContextImpl(genericExtractor, typeDeclaration);
+		return cacheTypeContextImpl(genericExtractor, resolveScope, typeDeclaration);
 	}
 
 	@NotNull
 	@RequiredReadAction
 	private static CSharpResolveContext cacheTypeContextImpl(@NotNull DotNetGenericExtractor genericExtractor,
+			GlobalSearchScope resolveScope,
 			@NotNull final CSharpTypeDeclaration typeDeclaration)
 	{
 		if(genericExtractor == DotNetGenericExtractor.EMPTY)
 		{
-			CachedValue<CSharpResolveContext> provider = typeDeclaration.getUserData(RESOLVE_CONTEXT);
-			if(provider != null)
-			{
-				return provider.getValue();
-			}
-
-			CachedValue<CSharpResolveContext> cachedValue = CachedValuesManager.getManager(typeDeclaration.getProject()).createCachedValue(new
-																																				   CachedValueProvider<CSharpResolveContext>()
+			return CachedValuesManager.getManager(typeDeclaration.getProject()).getCachedValue(typeDeclaration, RESOLVE_CONTEXT,
+					new CachedValueProvider<CSharpResolveContext>()
 			{
 				@Nullable
 				@Override
@@ -139,16 +145,137 @@ public class CSharpResolveContextUtil
 				public Result<CSharpResolveContext> compute()
 				{
 					return Result.<CSharpResolveContext>create(new CSharpTypeResolveContext(typeDeclaration, DotNetGenericExtractor.EMPTY),
-							typeDeclaration, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+							getDependencies(typeDeclaration));
 				}
 			}, false);
-			typeDeclaration.putUserData(RESOLVE_CONTEXT, cachedValue);
-			return cachedValue.getValue();
 		}
 		else
 		{
-			return new CSharpTypeResolveContext(typeDeclaration, genericExtractor);
+			// shared context can not hold type refs of caller - they can be inside code block of other file
+			DotNetGenericExtractor scopeIndependentExtractor = toScopeIndependent(genericExtractor);
+			if(scopeIndependentExtractor == null)
+			{
+				return new CSharpTypeResolveContext(typeDeclaration, genericExtractor);
+			}
+			String key = buildExtractorKey((CSharpGenericExtractor) scopeIndependentExtractor);
+			if(key == null)
+			{
+				return new CSharpTypeResolveContext(typeDeclaration, genericExtractor);
+			}
+			// type arguments are bound to types from module of caller, other module can see other types with same names
+			Pair<GlobalSearchScope, String> extractorKey = Pair.create(resolveScope, key);
+
+			SLRUMap<Pair<GlobalSearchScope, String>, CSharpResolveContext> map = getGenericContextMap(typeDeclaration);
+			synchronized(map)
+			{
+				CSharpResolveContext context = map.get(extractorKey);
+				if(context != null)
+				{
+					return context;
+				}
+			}
+
+			CSharpResolveContext context = new CSharpTypeResolveContext(typeDeclaration, scopeIndependentExtractor);
+			synchronized(map)
+			{
+				CSharpResolveContext oldContext = map.get(extractorKey);
+				if(oldContext != null)
+				{
+					return oldContext;
+				}
+				map.put(extractorKey, context);
+			}
+			return context;
+		}
+	}
+
+	@NotNull
+	private static SLRUMap<Pair<GlobalSearchScope, String>, CSharpResolveContext> getGenericContextMap(
+			@NotNull final CSharpTypeDeclaration typeDeclaration)
+	{
+		return CachedValuesManager.getManager(typeDeclaration.getProject()).getCachedValue(typeDeclaration, GENERIC_RESOLVE_CONTEXTS,
+				new CachedValueProvider<SLRUMap<Pair<GlobalSearchScope, String>, CSharpResolveContext>>()
+		{
+			@Nullable
+			@Override
+			public Result<SLRUMap<Pair<GlobalSearchScope, String>, CSharpResolveContext>> compute()
+			{
+				SLRUMap<Pair<GlobalSearchScope, String>, CSharpResolveContext> map = new SLRUMap<Pair<GlobalSearchScope, String>,
+						CSharpResolveContext>(GENERIC_CONTEXT_PROTECTED_SIZE, GENERIC_CONTEXT_PROBATIONAL_SIZE);
+				return Result.create(map, getDependencies(typeDeclaration));
+			}
+		}, false);
+	}
+
+	/**
+	 * Composite type is reused while its partial declarations are not changed, so contexts of composite depend on its structure stamp.
+	 * Context also holds data of other files(super types, type arguments), so it depends on out of code block modification too
+	 */
+	@NotNull
+	private static Object[] getDependencies(@NotNull CSharpTypeDeclaration typeDeclaration)
+	{
+		if(typeDeclaration instanceof CSharpCompositeTypeDeclaration)
+		{
+			return new Object[]{
+					CSharpPartialElementManager.getInstance(typeDeclaration.getProject()).getStructureModificationTracker(
+							(CSharpCompositeTypeDeclaration) typeDeclaration),
+					PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT
+			};
+		}
+		return new Object[]{
+				typeDeclaration,
+				PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT
+		};
+	}
+
+	/**
+	 * @return copy of extractor with scope independent type refs(see {@link CSharpTypeRefKeyUtil#toScopeIndependent}), or null if extractor
+	 * contains type refs which depend on scope (generic parameters, lambdas, etc), in this case context can not be shared
+	 */
+	@Nullable
+	@RequiredReadAction
+	private static DotNetGenericExtractor toScopeIndependent(@NotNull DotNetGenericExtractor genericExtractor)
+	{
+		if(!(genericExtractor instanceof CSharpGenericExtractor))
+		{
+			return null;
+		}
+
+		DotNetGenericParameter[] genericParameters = ((CSharpGenericExtractor) genericExtractor).getGenericParameters();
+		DotNetTypeRef[] typeRefs = ((CSharpGenericExtractor) genericExtractor).getTypeRefs();
+		if(genericParameters.length == 0 || genericParameters.length != typeRefs.length)
+		{
+			return null;
+		}
+
+		DotNetTypeRef[] newTypeRefs = CSharpTypeRefKeyUtil.toScopeIndependent(typeRefs);
+		return newTypeRefs == null ? null : CSharpGenericExtractor.create(genericParameters, newTypeRefs);
+	}
+
+	/**
+	 * @return key of extractor, or null if any type ref has no key
+	 */
+	@Nullable
+	@RequiredReadAction
+	private static String buildExtractorKey(@NotNull CSharpGenericExtractor genericExtractor)
+	{
+		DotNetGenericParameter[] genericParameters = genericExtractor.getGenericParameters();
+		DotNetTypeRef[] typeRefs = genericExtractor.getTypeRefs();
+
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < genericParameters.length; i++)
+		{
+			if(i != 0)
+			{
+				builder.append(";");
+			}
+			builder.append(genericParameters[i].getName()).append("=");
+			if(!CSharpTypeRefKeyUtil.appendKey(builder, typeRefs[i]))
+			{
+				return null;
+			}
 		}
+		return builder.toString();
 	}
 
 	@NotNull
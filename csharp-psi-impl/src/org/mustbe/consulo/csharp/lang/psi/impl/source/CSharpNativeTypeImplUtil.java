@@ -9,7 +9,7 @@ import org.mustbe.consulo.csharp.lang.psi.CSharpNativeType;
 import org.mustbe.consulo.csharp.lang.psi.CSharpSoftTokens;
 import org.mustbe.consulo.csharp.lang.psi.CSharpTokens;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpStaticTypeRef;
-import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByQName;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefInterner;
 import org.mustbe.consulo.dotnet.DotNetTypes;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 import com.intellij.psi.tree.IElementType;
@@ -69,6 +69,6 @@ public class CSharpNativeTypeImplUtil
 
 		String q = ourElementToQTypes.get(elementType);
 		assert q != null : elementType.toString();
-		return new CSharpTypeRefByQName(q);
+		return CSharpTypeRefInterner.getInstance(nativeType.getProject()).getTypeRefByQName(q);
 	}
 }
@@ -22,7 +22,7 @@ import org.mustbe.consulo.csharp.lang.psi.CSharpElementVisitor;
 import org.mustbe.consulo.csharp.lang.psi.CSharpNullableType;
 import org.mustbe.consulo.csharp.lang.psi.CSharpTokens;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpGenericWrapperTypeRef;
-import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByQName;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefInterner;
 import org.mustbe.consulo.dotnet.DotNetTypes;
 import org.mustbe.consulo.dotnet.psi.DotNetType;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
@@ -54,7 +54,8 @@ public class CSharpNullableTypeImpl extends CSharpTypeElementImpl implements CSh
 		{
 			return DotNetTypeRef.ERROR_TYPE;
 		}
-		return new CSharpGenericWrapperTypeRef(new CSharpTypeRefByQName(DotNetTypes.System.Nullable$1), innerType.toTypeRef());
+		CSharpTypeRefInterner interner = CSharpTypeRefInterner.getInstance(getProject());
+		return interner.intern(new CSharpGenericWrapperTypeRef(interner.getTypeRefByQName(DotNetTypes.System.Nullable$1), innerType.toTypeRef()));
 	}
 
 	@Override
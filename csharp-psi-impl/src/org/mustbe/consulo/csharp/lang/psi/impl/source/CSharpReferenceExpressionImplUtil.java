@@ -43,6 +43,7 @@ import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.SimpleNamedScopePr
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.WeightUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.extensionResolver.ExtensionResolveScopeProcessor;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.genericInference.GenericInferenceUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.CallArgumentTypeRefSnapshot;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodCalcResult;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodResolver;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.arguments.NCallArgument;
@@ -53,10 +54,10 @@ import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpGeneric
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpGenericWrapperTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpLambdaResolveResult;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpLambdaTypeRef;
-import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByQName;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByTypeDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefFromGenericParameter;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefFromNamespace;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefInterner;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.wrapper.GenericUnwrapTool;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.util.CSharpResolveUtil;
 import org.mustbe.consulo.csharp.lang.psi.resolve.AttributeByNameSelector;
@@ -166,7 +167,8 @@ public class CSharpReferenceExpressionImplUtil
 				}
 				else
 				{
-					return new CSharpGenericWrapperTypeRef(new CSharpTypeRefByQName(DotNetTypes.System.Nullable$1), typeRef);
+					CSharpTypeRefInterner interner = CSharpTypeRefInterner.getInstance(referenceExpressionEx.getProject());
+					return interner.intern(new CSharpGenericWrapperTypeRef(interner.getTypeRefByQName(DotNetTypes.System.Nullable$1), typeRef));
 				}
 			default:
 
@@ -805,6 +807,10 @@ public class CSharpReferenceExpressionImplUtil
 				}
 
 				methodResolveResults = new ArrayList<Pair<MethodCalcResult, PsiElement>>();
+				CSharpCallArgument[] callArguments = callArgumentListOwner.getCallArguments();
+				CallArgumentTypeRefSnapshot snapshot = new CallArgumentTypeRefSnapshot(callArguments);
+				List<DotNetLikeMethodDeclaration> prunedMethods = null;
+				boolean hasValidResult = false;
 				for(ResolveResult result : resolveResults)
 				{
 					PsiElement maybeElementGroup = result.getElement();
@@ -814,26 +820,20 @@ public class CSharpReferenceExpressionImplUtil
 						{
 							if(psiElement instanceof DotNetLikeMethodDeclaration)
 							{
-								GenericInferenceUtil.GenericInferenceResult inferenceResult = psiElement.getUserData(GenericInferenceUtil
-										.INFERENCE_RESULT);
-
-								if(inferenceResult == null && !isConstructorKind(kind))
+								if(!MethodResolver.isPossiblyApplicable(callArguments, (DotNetLikeMethodDeclaration) psiElement))
 								{
-									inferenceResult = GenericInferenceUtil.inferenceGenericExtractor(element, callArgumentListOwner,
-											(DotNetLikeMethodDeclaration) psiElement);
-									psiElement = GenericUnwrapTool.extract((DotNetNamedElement) psiElement, inferenceResult.getExtractor());
+									if(prunedMethods == null)
+									{
+										prunedMethods = new SmartList<DotNetLikeMethodDeclaration>();
+									}
+									prunedMethods.add((DotNetLikeMethodDeclaration) psiElement);
+									continue;
 								}
 
-								val calcResult = MethodResolver.calc(callArgumentListOwner, (DotNetLikeMethodDeclaration) psiElement, element);
-
-								if(inferenceResult == null || inferenceResult.isSuccess())
-								{
-									methodResolveResults.add(Pair.create(calcResult, psiElement));
-								}
-								else
-								{
-									methodResolveResults.add(Pair.create(calcResult.dup(Short.MIN_VALUE), psiElement));
-								}
+								Pair<MethodCalcResult, PsiElement> pair = calcMethod(kind, element, callArgumentListOwner, snapshot,
+										(DotNetLikeMethodDeclaration) psiElement);
+								hasValidResult |= pair.getFirst().isValidResult();
+								methodResolveResults.add(pair);
 							}
 						}
 					}
@@ -847,18 +847,58 @@ public class CSharpReferenceExpressionImplUtil
 						{
 							CSharpLambdaResolveResult lambdaTypeResolveResult = (CSharpLambdaResolveResult) maybeLambdaResolveResult;
 
-							val calcResult = MethodResolver.calc(callArgumentListOwner, lambdaTypeResolveResult.getParameterInfos(), element);
+							val calcResult = MethodResolver.calc(snapshot, lambdaTypeResolveResult.getParameterInfos(), element);
 
 							methodResolveResults.add(Pair.create(calcResult, maybeElementGroup));
+							hasValidResult |= calcResult.isValidResult();
 						}
 					}
 				}
 
+				if(prunedMethods != null)
+				{
+					for(DotNetLikeMethodDeclaration prunedMethod : prunedMethods)
+					{
+						// if no valid results - calc pruned methods too, for better error reporting
+						methodResolveResults.add(hasValidResult ? Pair.<MethodCalcResult, PsiElement>create(MethodCalcResult.PRUNED,
+								prunedMethod) : calcMethod(kind, element, callArgumentListOwner, snapshot, prunedMethod));
+					}
+				}
+
 				return WeightUtil.sortAndReturn(methodResolveResults);
 		}
 		return ResolveResult.EMPTY_ARRAY;
 	}
 
+	@NotNull
+	@RequiredReadAction
+	private static Pair<MethodCalcResult, PsiElement> calcMethod(@NotNull ResolveToKind kind,
+			@NotNull PsiElement element,
+			@NotNull CSharpCallArgumentListOwner callArgumentListOwner,
+			@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull DotNetLikeMethodDeclaration methodDeclaration)
+	{
+		PsiElement psiElement = methodDeclaration;
+		GenericInferenceUtil.GenericInferenceResult inferenceResult = psiElement.getUserData(GenericInferenceUtil.INFERENCE_RESULT);
+
+		if(inferenceResult == null && !isConstructorKind(kind))
+		{
+			inferenceResult = GenericInferenceUtil.inferenceGenericExtractor(element, snapshot, callArgumentListOwner, methodDeclaration);
+			psiElement = GenericUnwrapTool.extract(methodDeclaration, inferenceResult.getExtractor());
+		}
+
+		val calcResult = MethodResolver.calc(snapshot, (DotNetLikeMethodDeclaration) psiElement, element);
+
+		if(inferenceResult == null || inferenceResult.isSuccess())
+		{
+			return Pair.create(calcResult, psiElement);
+		}
+		else
+		{
+			return Pair.create(calcResult.dup(Short.MIN_VALUE), psiElement);
+		}
+	}
+
 	@NotNull
 	@RequiredReadAction
 	public static ResolveResult[] processAnyMember(@NotNull CSharpResolveOptions options)
@@ -1029,6 +1069,8 @@ public class CSharpReferenceExpressionImplUtil
 
 				CSharpResolveUtil.walkUsing(p, targetToWalkChildren, null, resolveState);
 
+				p.processIndexedExtensionMethods();
+
 				return p.toResolveResults();
 			}
 			return memberProcessor.toResolveResults();
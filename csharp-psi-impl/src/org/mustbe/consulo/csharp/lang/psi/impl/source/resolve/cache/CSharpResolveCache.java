@@ -16,11 +16,13 @@
 
 package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.cache;
 
-import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.csharp.lang.psi.impl.CSharpInheritableSession;
+import org.mustbe.consulo.csharp.lang.psi.impl.CSharpPsiTreeChangePreprocessor;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.ServiceManager;
@@ -38,6 +40,7 @@ import com.intellij.psi.PsiPolyVariantReference;
 import com.intellij.psi.ResolveResult;
 import com.intellij.psi.impl.AnyPsiChangeListener;
 import com.intellij.psi.impl.PsiManagerImpl;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.reference.SoftReference;
 import com.intellij.util.containers.ConcurrentWeakHashMap;
 import com.intellij.util.containers.ContainerUtil;
@@ -48,6 +51,10 @@ import com.intellij.util.messages.MessageBus;
  * @since 18:06 26.10.2014
  * <p/>
  * This is variant of {@link com.intellij.psi.impl.source.resolve.ResolveCache} with 'resolveFromParent' and 'incompleteCode'
+ * <p/>
+ * With {@link #SCOPED_INVALIDATION_PROPERTY} physical maps are not cleared on each psi change. Each entry remember out of code block
+ * modification count, and modification count of topmost code block which contains reference. Edit inside code block drop only
+ * entries of this code block, edit outside code blocks drop all entries
  */
 public class CSharpResolveCache
 {
@@ -56,6 +63,19 @@ public class CSharpResolveCache
 	//boolean physical, boolean incompleteCode, boolean resolveFromParent, boolean isPoly
 	private final RecursionGuard myGuard = RecursionManager.createGuard("csharpResolveCache");
 
+	public static final String SCOPED_INVALIDATION_PROPERTY = "csharp.resolve.cache.scoped";
+
+	private final boolean myScopedInvalidation = Boolean.getBoolean(SCOPED_INVALIDATION_PROPERTY);
+	private final PsiModificationTracker myModificationTracker;
+	private final ConcurrentMap<PsiElement, Long> myCodeBlockModificationCounts = createWeakMap();
+	private final AtomicLong myCodeBlockModificationCount = new AtomicLong();
+
+	private final AtomicLong myEditCount = new AtomicLong();
+	private final AtomicLong myRetainedCount = new AtomicLong();
+	private final AtomicLong myDroppedCount = new AtomicLong();
+	private final AtomicLong myRetainedAfterEditCount = new AtomicLong();
+	private final AtomicLong myDroppedAfterEditCount = new AtomicLong();
+
 	public static CSharpResolveCache getInstance(Project project)
 	{
 		ProgressIndicatorProvider.checkCanceled(); // We hope this method is being called often enough to cancel daemon processes smoothly
@@ -91,8 +111,9 @@ public class CSharpResolveCache
 	{
 	}
 
-	public CSharpResolveCache(@NotNull MessageBus messageBus)
+	public CSharpResolveCache(@NotNull MessageBus messageBus, @NotNull PsiModificationTracker modificationTracker)
 	{
+		myModificationTracker = modificationTracker;
 		for(int i = 0; i < myMaps.length; i++)
 		{
 			myMaps[i] = createWeakMap();
@@ -102,7 +123,16 @@ public class CSharpResolveCache
 			@Override
 			public void beforePsiChanged(boolean isPhysical)
 			{
-				clearCache(isPhysical);
+				if(myScopedInvalidation && isPhysical)
+				{
+					physicalPsiChanged();
+					// non physical maps are cleared as before
+					clearCache(false);
+				}
+				else
+				{
+					clearCache(isPhysical);
+				}
 			}
 
 			@Override
@@ -137,6 +167,98 @@ public class CSharpResolveCache
 		}
 	}
 
+	/**
+	 * Called when psi was changed inside code block
+	 *
+	 * @param codeBlock topmost code block, see {@link CSharpPsiTreeChangePreprocessor#getTopmostCodeBlock(PsiElement)}
+	 */
+	public void codeBlockChanged(@NotNull PsiElement codeBlock)
+	{
+		if(myScopedInvalidation)
+		{
+			myCodeBlockModificationCounts.put(codeBlock, myCodeBlockModificationCount.incrementAndGet());
+		}
+	}
+
+	private void physicalPsiChanged()
+	{
+		long editCount = myEditCount.incrementAndGet();
+		long retained = myRetainedAfterEditCount.getAndSet(0);
+		long dropped = myDroppedAfterEditCount.getAndSet(0);
+		if(LOG.isDebugEnabled())
+		{
+			LOG.debug("Edit #" + (editCount - 1) + ": retained " + retained + ", dropped " + dropped + " resolve cache entries");
+		}
+	}
+
+	/**
+	 * @return count of cache hits for entries which survived at least one edit
+	 */
+	public long getRetainedCount()
+	{
+		return myRetainedCount.get();
+	}
+
+	/**
+	 * @return count of entries which was dropped after edit
+	 */
+	public long getDroppedCount()
+	{
+		return myDroppedCount.get();
+	}
+
+	@Nullable
+	private ResolveStamp createStamp(@NotNull PsiElement ref, boolean isPhysical)
+	{
+		if(!myScopedInvalidation || !isPhysical)
+		{
+			return null;
+		}
+		PsiElement codeBlock = CSharpPsiTreeChangePreprocessor.getTopmostCodeBlock(ref);
+		return new ResolveStamp(myModificationTracker.getOutOfCodeBlockModificationCount(), getCodeBlockModificationCount(codeBlock),
+				myEditCount.get());
+	}
+
+	private long getCodeBlockModificationCount(@Nullable PsiElement codeBlock)
+	{
+		if(codeBlock == null)
+		{
+			return 0;
+		}
+		Long count = myCodeBlockModificationCounts.get(codeBlock);
+		return count == null ? 0 : count;
+	}
+
+	@Nullable
+	private <TRef extends PsiElement, TResult> TResult getCachedResult(@NotNull TRef ref, @NotNull ConcurrentMap<TRef, Getter<TResult>> map)
+	{
+		Getter<TResult> reference = map.get(ref);
+		TResult result = reference == null ? null : reference.get();
+		if(result == null || !(reference instanceof ScopedGetter))
+		{
+			return result;
+		}
+
+		ResolveStamp stamp = ((ScopedGetter<TResult>) reference).myStamp;
+		if(stamp.myOutOfCodeBlockModificationCount == myModificationTracker.getOutOfCodeBlockModificationCount() &&
+				stamp.myCodeBlockModificationCount == getCodeBlockModificationCount(CSharpPsiTreeChangePreprocessor.getTopmostCodeBlock(ref)))
+		{
+			if(stamp.myEditCount != myEditCount.get())
+			{
+				myRetainedCount.incrementAndGet();
+				myRetainedAfterEditCount.incrementAndGet();
+			}
+			return result;
+		}
+
+		if(map.remove(ref, reference))
+		{
+			myDroppedCount.incrementAndGet();
+			myDroppedAfterEditCount.incrementAndGet();
+		}
+		return null;
+	}
+
 	@Nullable
 	private <TRef extends PsiElement, TResult> TResult resolve(@NotNull final TRef ref,
 			@NotNull final AbstractResolver<TRef, TResult> resolver,
@@ -150,29 +272,40 @@ public class CSharpResolveCache
 		ApplicationManager.getApplication().assertReadAccessAllowed();
 
 		ConcurrentMap<TRef, Getter<TResult>> map = getMap(isPhysical, incompleteCode, resolveFromParent, isPoly);
-		Getter<TResult> reference = map.get(ref);
-		TResult result = reference == null ? null : reference.get();
+		TResult result = getCachedResult(ref, map);
 		if(result != null)
 		{
 			return result;
 		}
 
-		RecursionGuard.StackStamp stamp = myGuard.markStack();
-		result = needToPreventRecursion ? myGuard.doPreventingRecursion(Quaternary.create(ref, incompleteCode, resolveFromParent, isPoly), true,
-				new Computable<TResult>()
+		ResolveStamp resolveStamp = createStamp(ref, isPhysical);
+
+		// all isInheritable checks inside one resolve share one memo table
+		final Computable<TResult> resolveComputable = new Computable<TResult>()
 		{
 			@Override
 			public TResult compute()
 			{
-				return resolver.resolve(ref, incompleteCode, resolveFromParent);
+				return CSharpInheritableSession.computeInSession(new Computable<TResult>()
+				{
+					@Override
+					public TResult compute()
+					{
+						return resolver.resolve(ref, incompleteCode, resolveFromParent);
+					}
+				});
 			}
-		}) : resolver.resolve(ref, incompleteCode, resolveFromParent);
+		};
+
+		RecursionGuard.StackStamp stamp = myGuard.markStack();
+		result = needToPreventRecursion ? myGuard.doPreventingRecursion(Quaternary.create(ref, incompleteCode, resolveFromParent, isPoly), true,
+				resolveComputable) : resolveComputable.compute();
 		PsiElement element = result instanceof ResolveResult ? ((ResolveResult) result).getElement() : null;
 		LOG.assertTrue(element == null || element.isValid(), result);
 
 		if(stamp.mayCacheNow())
 		{
-			cache(ref, map, result, isPoly);
+			cache(ref, map, result, isPoly, resolveStamp);
 		}
 		return result;
 	}
@@ -207,9 +340,8 @@ public class CSharpResolveCache
 			boolean resolveFromParent,
 			boolean isPoly)
 	{
-		Map<T, Getter<ResolveResult[]>> map = getMap(physical, incompleteCode, resolveFromParent, isPoly);
-		Getter<ResolveResult[]> reference = map.get(ref);
-		return reference == null ? null : reference.get();
+		ConcurrentMap<T, Getter<ResolveResult[]>> map = getMap(physical, incompleteCode, resolveFromParent, isPoly);
+		return getCachedResult(ref, map);
 	}
 
 	@Nullable
@@ -253,17 +385,50 @@ public class CSharpResolveCache
 		}
 	}
 
+	private static class ResolveStamp
+	{
+		private final long myOutOfCodeBlockModificationCount;
+		private final long myCodeBlockModificationCount;
+		private final long myEditCount;
+
+		private ResolveStamp(long outOfCodeBlockModificationCount, long codeBlockModificationCount, long editCount)
+		{
+			myOutOfCodeBlockModificationCount = outOfCodeBlockModificationCount;
+			myCodeBlockModificationCount = codeBlockModificationCount;
+			myEditCount = editCount;
+		}
+	}
+
+	private static class ScopedGetter<T> implements Getter<T>
+	{
+		private final Getter<T> myDelegate;
+		private final ResolveStamp myStamp;
+
+		private ScopedGetter(@NotNull Getter<T> delegate, @NotNull ResolveStamp stamp)
+		{
+			myDelegate = delegate;
+			myStamp = stamp;
+		}
+
+		@Override
+		public T get()
+		{
+			return myDelegate.get();
+		}
+	}
+
 	private static final Getter<ResolveResult[]> EMPTY_POLY_RESULT = new StaticGetter<ResolveResult[]>(ResolveResult.EMPTY_ARRAY);
 	private static final Getter<Object> NULL_RESULT = new StaticGetter<Object>(null);
 
 	private static <TRef extends PsiElement, TResult> void cache(@NotNull TRef ref,
 			@NotNull ConcurrentMap<TRef, Getter<TResult>> map,
 			TResult result,
-			boolean isPoly)
+			boolean isPoly,
+			@Nullable ResolveStamp stamp)
 	{
-		// optimization: less contention
+		// optimization: less contention, stamped entries always need new stamp
 		Getter<TResult> cached = map.get(ref);
-		if(cached != null && cached.get() == result)
+		if(stamp == null && cached != null && cached.get() == result)
 		{
 			return;
 		}
@@ -283,6 +448,11 @@ public class CSharpResolveCache
 		{
 			cached = new SoftGetter<TResult>(result);
 		}
+
+		if(stamp != null)
+		{
+			cached = new ScopedGetter<TResult>(cached, stamp);
+		}
 		map.put(ref, cached);
 	}
 }
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.extensionResolver;
+
+import gnu.trove.THashSet;
+
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpNativeType;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.csharp.lang.psi.CSharpStubElements;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUserType;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMethodDeclarationImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpNativeTypeImplUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpArrayTypeRef;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefByQName;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.CSharpMethodDeclStub;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.CSharpNamespaceDeclStub;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.CSharpTypeDeclStub;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.CSharpWithStringValueStub;
+import org.mustbe.consulo.dotnet.DotNetTypes;
+import org.mustbe.consulo.dotnet.psi.DotNetGenericParameter;
+import org.mustbe.consulo.dotnet.psi.DotNetParameter;
+import org.mustbe.consulo.dotnet.psi.DotNetType;
+import org.mustbe.consulo.dotnet.psi.DotNetTypeDeclaration;
+import org.mustbe.consulo.dotnet.resolve.DotNetGenericWrapperTypeRef;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.ArrayUtil;
+
+/**
+ * Receiver keys of extension method - erased qualified names which type of 'this' parameter can have('System.Collections.Generic.List'
+ * for 'this List<T> list'). While building stubs type can not be resolved, so keys are all qualified names which reference can be
+ * resolved to by enclosing namespaces and usings. Receivers which can not be described by name(generic parameters, arrays, nullable, etc)
+ * have key {@link #ANY_RECEIVER}
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class ExtensionReceiverKeyUtil
+{
+	public static final String ANY_RECEIVER = "*";
+
+	private static final String[] ANY_RECEIVER_KEYS = {ANY_RECEIVER};
+
+	private static final Key<Boolean> HAS_TYPE_IMPORT_STATEMENT = Key.create("has-type-import-statement");
+
+	/**
+	 * Calculate receiver keys while building stubs, dont call resolve
+	 *
+	 * @param parentStub stub of method parent - usings of enclosing namespaces and file are already built(they are before members)
+	 */
+	@NotNull
+	@RequiredReadAction
+	public static String[] calcReceiverKeys(@NotNull CSharpMethodDeclaration methodDeclaration, @Nullable StubElement<?> parentStub)
+	{
+		DotNetParameter[] parameters = methodDeclaration.getParameters();
+		if(parameters.length == 0)
+		{
+			return ANY_RECEIVER_KEYS;
+		}
+
+		DotNetType type = parameters[0].getType();
+		if(type instanceof CSharpNativeType)
+		{
+			String qName = CSharpNativeTypeImplUtil.ourElementToQTypes.get(((CSharpNativeType) type).getTypeElementType());
+			return qName == null ? ANY_RECEIVER_KEYS : new String[]{qName};
+		}
+		else if(type instanceof CSharpUserType)
+		{
+			CSharpReferenceExpression referenceExpression = ((CSharpUserType) type).getReferenceExpression();
+			String referenceText = getReferenceText(referenceExpression);
+			if(referenceText == null)
+			{
+				return ANY_RECEIVER_KEYS;
+			}
+
+			if(referenceExpression.getQualifier() == null)
+			{
+				for(DotNetGenericParameter genericParameter : methodDeclaration.getGenericParameters())
+				{
+					if(referenceText.equals(genericParameter.getName()))
+					{
+						return ANY_RECEIVER_KEYS;
+					}
+				}
+			}
+
+			Set<String> keys = new THashSet<String>();
+			keys.add(referenceText);
+			for(StubElement<?> stub = parentStub; stub != null; stub = stub.getParentStub())
+			{
+				// name can be alias or type imported by 'using static', we cant check it without resolve
+				if(hasTypeImportStatement(stub))
+				{
+					return ANY_RECEIVER_KEYS;
+				}
+
+				if(stub instanceof CSharpTypeDeclStub)
+				{
+					String vmQName = ((CSharpTypeDeclStub) stub).getVmQName();
+					if(vmQName != null)
+					{
+						keys.add(normalizeQName(vmQName) + "." + referenceText);
+					}
+				}
+				else if(stub instanceof CSharpNamespaceDeclStub)
+				{
+					String parentQName = ((CSharpNamespaceDeclStub) stub).getParentQName();
+					String name = ((CSharpNamespaceDeclStub) stub).getName();
+					String qName = StringUtil.isEmpty(parentQName) ? name : parentQName + "." + name;
+					// 'namespace A.B' - type can be from 'A.B' or from 'A'
+					for(String namespace = qName; !StringUtil.isEmpty(namespace); namespace = StringUtil.getPackageName(namespace))
+					{
+						keys.add(namespace + "." + referenceText);
+					}
+				}
+
+				StubElement<?> usingList = stub.findChildStubByType(CSharpStubElements.USING_LIST);
+				if(usingList != null)
+				{
+					for(StubElement<?> usingStub : usingList.getChildrenStubs())
+					{
+						if(usingStub.getStubType() == CSharpStubElements.USING_NAMESPACE_STATEMENT)
+						{
+							String namespace = ((CSharpWithStringValueStub<?>) usingStub).getReferenceText();
+							if(!StringUtil.isEmpty(namespace))
+							{
+								keys.add(namespace + "." + referenceText);
+							}
+						}
+					}
+				}
+			}
+			return ArrayUtil.toStringArray(keys);
+		}
+		return ANY_RECEIVER_KEYS;
+	}
+
+	/**
+	 * @return erased text of reference without type arguments('Generic.List' for 'Generic.List<T>'), or null if it is not simple type name
+	 */
+	@Nullable
+	@RequiredReadAction
+	private static String getReferenceText(@NotNull CSharpReferenceExpression referenceExpression)
+	{
+		String referenceName = referenceExpression.getReferenceName();
+		if(StringUtil.isEmpty(referenceName))
+		{
+			return null;
+		}
+
+		PsiElement qualifier = referenceExpression.getQualifier();
+		if(qualifier == null)
+		{
+			return referenceName;
+		}
+		if(qualifier instanceof CSharpReferenceExpression)
+		{
+			String qualifierText = getReferenceText((CSharpReferenceExpression) qualifier);
+			return qualifierText == null ? null : qualifierText + "." + referenceName;
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if stub has using list with type alias('using A = B;') or type import('using static A;'), result is cached in stub
+	 */
+	private static boolean hasTypeImportStatement(@NotNull StubElement<?> stub)
+	{
+		UserDataHolder dataHolder = stub instanceof UserDataHolder ? (UserDataHolder) stub : null;
+		Boolean value = dataHolder == null ? null : dataHolder.getUserData(HAS_TYPE_IMPORT_STATEMENT);
+		if(value != null)
+		{
+			return value;
+		}
+
+		value = Boolean.FALSE;
+		StubElement<?> usingList = stub.findChildStubByType(CSharpStubElements.USING_LIST);
+		if(usingList != null && (usingList.findChildStubByType(CSharpStubElements.TYPE_DEF_STATEMENT) != null || usingList.findChildStubByType
+				(CSharpStubElements.USING_TYPE_STATEMENT) != null))
+		{
+			value = Boolean.TRUE;
+		}
+
+		if(dataHolder != null)
+		{
+			dataHolder.putUserData(HAS_TYPE_IMPORT_STATEMENT, value);
+		}
+		return value;
+	}
+
+	@NotNull
+	@RequiredReadAction
+	public static String[] getReceiverKeys(@NotNull final CSharpMethodDeclaration methodDeclaration)
+	{
+		if(methodDeclaration instanceof CSharpMethodDeclarationImpl)
+		{
+			CSharpMethodDeclStub stub = ((CSharpMethodDeclarationImpl) methodDeclaration).getStub();
+			if(stub != null)
+			{
+				String[] receiverKeys = stub.getExtensionReceiverKeys();
+				return receiverKeys.length == 0 ? ANY_RECEIVER_KEYS : receiverKeys;
+			}
+		}
+
+		// source without stubs, msil wrappers and light elements - key is calculated once per method
+		return CachedValuesManager.getCachedValue(methodDeclaration, new CachedValueProvider<String[]>()
+		{
+			@Nullable
+			@Override
+			@RequiredReadAction
+			public Result<String[]> compute()
+			{
+				return Result.create(new String[]{calcReceiverKeyByTypeRef(methodDeclaration)},
+						PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+			}
+		});
+	}
+
+	@NotNull
+	@RequiredReadAction
+	private static String calcReceiverKeyByTypeRef(@NotNull CSharpMethodDeclaration methodDeclaration)
+	{
+		DotNetParameter[] parameters = methodDeclaration.getParameters();
+		if(parameters.length == 0)
+		{
+			return ANY_RECEIVER;
+		}
+
+		DotNetTypeRef typeRef = parameters[0].toTypeRef(false);
+		if(typeRef instanceof DotNetGenericWrapperTypeRef)
+		{
+			typeRef = ((DotNetGenericWrapperTypeRef) typeRef).getInnerTypeRef();
+		}
+
+		// type refs of msil wrappers are by qualified name - no resolve
+		if(typeRef instanceof CSharpTypeRefByQName)
+		{
+			return normalizeQName(((CSharpTypeRefByQName) typeRef).getVmQName());
+		}
+
+		PsiElement element = typeRef.resolve(methodDeclaration).getElement();
+		if(element instanceof DotNetTypeDeclaration)
+		{
+			return normalizeQName(((DotNetTypeDeclaration) element).getVmQName());
+		}
+		return ANY_RECEIVER;
+	}
+
+	/**
+	 * @return true if any receiver key of method is in keys of qualifier
+	 */
+	@RequiredReadAction
+	public static boolean isAcceptableReceiver(@NotNull CSharpMethodDeclaration methodDeclaration, @NotNull Set<String> qualifierKeys)
+	{
+		for(String key : getReceiverKeys(methodDeclaration))
+		{
+			if(qualifierKeys.contains(key))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return receiver keys of all types from supertype closure of qualifier, or null if qualifier can not be described by keys
+	 */
+	@Nullable
+	@RequiredReadAction
+	public static Set<String> collectQualifierKeys(@NotNull DotNetTypeRef qualifierTypeRef, @NotNull PsiElement scope)
+	{
+		if(qualifierTypeRef instanceof CSharpArrayTypeRef)
+		{
+			return null;
+		}
+
+		PsiElement element = qualifierTypeRef.resolve(scope).getElement();
+		if(!(element instanceof DotNetTypeDeclaration))
+		{
+			return null;
+		}
+
+		Set<String> keys = new THashSet<String>();
+		keys.add(ANY_RECEIVER);
+		keys.add(DotNetTypes.System.Object);
+		collectSuperKeys((DotNetTypeDeclaration) element, scope, keys, new THashSet<String>());
+		return keys;
+	}
+
+	@RequiredReadAction
+	private static void collectSuperKeys(@NotNull DotNetTypeDeclaration typeDeclaration,
+			@NotNull PsiElement scope,
+			@NotNull Set<String> keys,
+			@NotNull Set<String> processed)
+	{
+		String vmQName = typeDeclaration.getVmQName();
+		if(vmQName == null || !processed.add(vmQName))
+		{
+			return;
+		}
+
+		keys.add(normalizeQName(vmQName));
+
+		for(DotNetTypeRef extendTypeRef : typeDeclaration.getExtendTypeRefs())
+		{
+			PsiElement element = extendTypeRef.resolve(scope).getElement();
+			if(element instanceof DotNetTypeDeclaration)
+			{
+				collectSuperKeys((DotNetTypeDeclaration) element, scope, keys, processed);
+			}
+		}
+	}
+
+	/**
+	 * @return qualified name without generic markers and with '.' as separator of nested types('A.B' for 'A`1/B')
+	 */
+	@NotNull
+	private static String normalizeQName(@Nullable String vmQName)
+	{
+		if(StringUtil.isEmpty(vmQName))
+		{
+			return ANY_RECEIVER;
+		}
+
+		StringBuilder builder = new StringBuilder(vmQName.length());
+		for(int i = 0; i < vmQName.length(); i++)
+		{
+			char c = vmQName.charAt(i);
+			if(c == '`')
+			{
+				while(i + 1 < vmQName.length() && Character.isDigit(vmQName.charAt(i + 1)))
+				{
+					i++;
+				}
+			}
+			else
+			{
+				builder.append(c == '/' ? '.' : c);
+			}
+		}
+		return builder.toString();
+	}
+}
@@ -16,38 +16,56 @@
 
 package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.extensionResolver;
 
-import java.util.Collection;
+import gnu.trove.THashSet;
+
 import java.util.List;
+import java.util.Set;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
 import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgument;
 import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgumentListOwner;
 import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.CSharpModifier;
 import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUsingList;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUsingListChild;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUsingNamespaceStatement;
+import org.mustbe.consulo.csharp.lang.psi.CSharpUsingTypeStatement;
 import org.mustbe.consulo.csharp.lang.psi.impl.CSharpTypeUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.light.CSharpLightMethodDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.impl.light.CSharpLightParameterList;
+import org.mustbe.consulo.csharp.lang.psi.impl.msil.MsilToCSharpUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpElementGroupImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpResolveContextUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.AbstractScopeProcessor;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.genericInference.GenericInferenceUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.CallArgumentTypeRefSnapshot;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.wrapper.GenericUnwrapTool;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.util.CSharpResolveUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpIndexKeys;
 import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpElementGroup;
 import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpResolveContext;
 import org.mustbe.consulo.csharp.lang.psi.resolve.CSharpResolveSelector;
+import org.mustbe.consulo.dotnet.lang.psi.impl.stub.DotNetNamespaceStubUtil;
+import org.mustbe.consulo.dotnet.psi.DotNetLikeMethodDeclaration;
 import org.mustbe.consulo.dotnet.psi.DotNetParameter;
 import org.mustbe.consulo.dotnet.psi.DotNetParameterList;
 import org.mustbe.consulo.dotnet.psi.DotNetParameterListOwner;
+import org.mustbe.consulo.dotnet.psi.DotNetTypeDeclaration;
 import org.mustbe.consulo.dotnet.resolve.DotNetGenericExtractor;
+import org.mustbe.consulo.dotnet.resolve.DotNetNamespaceAsElement;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.pom.Navigatable;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementResolveResult;
 import com.intellij.psi.ResolveResult;
 import com.intellij.psi.ResolveState;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubIndex;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
@@ -69,6 +87,13 @@ public class ExtensionResolveScopeProcessor extends AbstractScopeProcessor
 
 	private ExtensionQualifierAsCallArgumentWrapper myArgumentWrapper;
 
+	private Set<String> myQualifierReceiverKeys;
+	private boolean myQualifierReceiverKeysCalculated;
+
+	private final Set<String> myNamespaces = new THashSet<String>();
+
+	private CallArgumentTypeRefSnapshot myArgumentsSnapshot;
+
 	public ExtensionResolveScopeProcessor(@NotNull DotNetTypeRef qualifierTypeRef,
 			@NotNull CSharpReferenceExpression expression,
 			boolean completion,
@@ -84,31 +109,136 @@ public class ExtensionResolveScopeProcessor extends AbstractScopeProcessor
 	@Override
 	public boolean execute(@NotNull PsiElement element, ResolveState state)
 	{
-		if(myCompletion)
+		DotNetGenericExtractor extractor = state.get(CSharpResolveUtil.EXTRACTOR);
+		assert extractor != null;
+
+		GlobalSearchScope resolveScope = myExpression.getResolveScope();
+
+		if(getQualifierReceiverKeys() != null)
 		{
-			DotNetGenericExtractor extractor = state.get(CSharpResolveUtil.EXTRACTOR);
-			assert extractor != null;
+			if(element instanceof DotNetNamespaceAsElement)
+			{
+				processNamespace(((DotNetNamespaceAsElement) element).getPresentableQName(), state);
+				return true;
+			}
+			else if(element instanceof CSharpUsingList)
+			{
+				for(CSharpUsingListChild statement : ((CSharpUsingList) element).getStatements())
+				{
+					if(statement instanceof CSharpUsingNamespaceStatement)
+					{
+						processNamespace(((CSharpUsingNamespaceStatement) statement).getReferenceText(), state);
+					}
+					else if(statement instanceof CSharpUsingTypeStatement)
+					{
+						PsiElement typeElement = ((CSharpUsingTypeStatement) statement).getTypeRef().resolve(myExpression).getElement();
+						if(typeElement != null)
+						{
+							processContext(CSharpResolveContextUtil.createContext(DotNetGenericExtractor.EMPTY, resolveScope, typeElement), state);
+						}
+					}
+				}
+				return true;
+			}
+		}
 
-			CSharpResolveContext context = CSharpResolveContextUtil.createContext(extractor, myExpression.getResolveScope(), element);
+		processContext(CSharpResolveContextUtil.createContext(extractor, resolveScope, element), state);
+		return true;
+	}
 
-			context.processExtensionMethodGroups(new Processor<CSharpElementGroup<CSharpMethodDeclaration>>()
+	/**
+	 * Extension methods from source are found by receiver index in {@link #processIndexedExtensionMethods()}, here only namespace is
+	 * remembered. Msil types are not indexed by receiver - their methods are checked by receiver keys of msil type refs
+	 */
+	private void processNamespace(@Nullable String qName, @NotNull final ResolveState state)
+	{
+		if(qName == null || !myNamespaces.add(qName))
+		{
+			return;
+		}
+
+		final GlobalSearchScope resolveScope = myExpression.getResolveScope();
+
+		StubIndex.getInstance().processElements(CSharpIndexKeys.TYPE_WITH_EXTENSION_METHODS_INDEX, DotNetNamespaceStubUtil.getIndexableNamespace
+				(qName), myExpression.getProject(), resolveScope, DotNetTypeDeclaration.class, new Processor<DotNetTypeDeclaration>()
+		{
+			@Override
+			public boolean process(DotNetTypeDeclaration typeDeclaration)
+			{
+				if(typeDeclaration instanceof CSharpTypeDeclaration)
+				{
+					return true;
+				}
+
+				PsiElement wrappedDeclaration = MsilToCSharpUtil.wrap(typeDeclaration);
+
+				processContext(CSharpResolveContextUtil.createContext(DotNetGenericExtractor.EMPTY, resolveScope, wrappedDeclaration), state);
+				return true;
+			}
+		});
+	}
+
+	/**
+	 * Process extension methods from source which are declared in visited namespaces, and receiver of which can be qualifier type.
+	 * Must be called after walking namespaces and usings
+	 */
+	@RequiredReadAction
+	public void processIndexedExtensionMethods()
+	{
+		Set<String> qualifierReceiverKeys = getQualifierReceiverKeys();
+		if(qualifierReceiverKeys == null || myNamespaces.isEmpty())
+		{
+			return;
+		}
+
+		final String referenceName = myCompletion ? null : myExpression.getReferenceName();
+		final Set<DotNetLikeMethodDeclaration> processed = new THashSet<DotNetLikeMethodDeclaration>();
+
+		for(String receiverKey : qualifierReceiverKeys)
+		{
+			StubIndex.getInstance().processElements(CSharpIndexKeys.EXTENSION_METHOD_BY_RECEIVER_INDEX, receiverKey, myExpression.getProject(),
+					myExpression.getResolveScope(), DotNetLikeMethodDeclaration.class, new Processor<DotNetLikeMethodDeclaration>()
 			{
 				@Override
-				public boolean process(CSharpElementGroup<CSharpMethodDeclaration> elementGroup)
+				@RequiredReadAction
+				public boolean process(DotNetLikeMethodDeclaration methodDeclaration)
 				{
-					Collection<CSharpMethodDeclaration> elements = elementGroup.getElements();
-					groupIteration:for(CSharpMethodDeclaration psiElement : elements)
+					if(!(methodDeclaration instanceof CSharpMethodDeclaration) || !processed.add(methodDeclaration))
 					{
-						GenericInferenceUtil.GenericInferenceResult inferenceResult = inferenceGenericExtractor(psiElement);
+						return true;
+					}
 
-						DotNetTypeRef firstParameterTypeRef = getFirstTypeRefOrParameter(psiElement, inferenceResult.getExtractor());
+					if(referenceName != null && !referenceName.equals(methodDeclaration.getName()))
+					{
+						return true;
+					}
 
-						if(!CSharpTypeUtil.isInheritableWithImplicit(firstParameterTypeRef, myQualifierTypeRef, myExpression))
-						{
-							continue;
-						}
+					PsiElement parent = methodDeclaration.getParent();
+					if(!(parent instanceof CSharpTypeDeclaration) || !myNamespaces.contains(StringUtil.notNullize(((CSharpTypeDeclaration) parent)
+							.getPresentableParentQName())))
+					{
+						return true;
+					}
 
-						addElement(transform(psiElement, inferenceResult));
+					processMethod((CSharpMethodDeclaration) methodDeclaration);
+					return true;
+				}
+			});
+		}
+	}
+
+	private void processContext(@NotNull CSharpResolveContext context, @NotNull ResolveState state)
+	{
+		if(myCompletion)
+		{
+			context.processExtensionMethodGroups(new Processor<CSharpElementGroup<CSharpMethodDeclaration>>()
+			{
+				@Override
+				public boolean process(CSharpElementGroup<CSharpMethodDeclaration> elementGroup)
+				{
+					for(CSharpMethodDeclaration psiElement : elementGroup.getElements())
+					{
+						processMethod(psiElement);
 					}
 					return true;
 				}
@@ -119,62 +249,101 @@ public class ExtensionResolveScopeProcessor extends AbstractScopeProcessor
 			CSharpResolveSelector selector = state.get(CSharpResolveUtil.SELECTOR);
 			if(selector == null)
 			{
-				return true;
+				return;
 			}
 
-			DotNetGenericExtractor extractor = state.get(CSharpResolveUtil.EXTRACTOR);
-			assert extractor != null;
-
-			CSharpResolveContext context = CSharpResolveContextUtil.createContext(extractor, myExpression.getResolveScope(), element);
-
 			PsiElement[] psiElements = selector.doSelectElement(context, false);
 
 			for(PsiElement e : psiElements)
 			{
 				CSharpElementGroup<?> elementGroup = (CSharpElementGroup<?>) e;
 
-				groupIteration:for(PsiElement psiElement : elementGroup.getElements())
+				for(PsiElement psiElement : elementGroup.getElements())
 				{
-					CSharpMethodDeclaration methodDeclaration = (CSharpMethodDeclaration) psiElement;
+					processMethod((CSharpMethodDeclaration) psiElement);
+				}
+			}
+		}
+	}
 
-					// dont need add twice or more
-					for(CSharpMethodDeclaration resolvedElement : myResolvedElements)
-					{
-						if(resolvedElement.isEquivalentTo(methodDeclaration))
-						{
-							continue groupIteration;
-						}
-					}
+	private void processMethod(@NotNull CSharpMethodDeclaration methodDeclaration)
+	{
+		if(!myCompletion)
+		{
+			// dont need add twice or more
+			for(CSharpMethodDeclaration resolvedElement : myResolvedElements)
+			{
+				if(resolvedElement.isEquivalentTo(methodDeclaration))
+				{
+					return;
+				}
+			}
+		}
 
-					GenericInferenceUtil.GenericInferenceResult inferenceResult = inferenceGenericExtractor(methodDeclaration);
+		if(!isAcceptableReceiver(methodDeclaration))
+		{
+			return;
+		}
 
-					DotNetTypeRef firstParameterTypeRef = getFirstTypeRefOrParameter(methodDeclaration, inferenceResult.getExtractor());
+		GenericInferenceUtil.GenericInferenceResult inferenceResult = inferenceGenericExtractor(methodDeclaration);
 
-					if(!CSharpTypeUtil.isInheritableWithImplicit(firstParameterTypeRef, myQualifierTypeRef, myExpression))
-					{
-						continue;
-					}
+		DotNetTypeRef firstParameterTypeRef = getFirstTypeRefOrParameter(methodDeclaration, inferenceResult.getExtractor());
 
-					myResolvedElements.add(transform(methodDeclaration, inferenceResult));
-				}
-			}
+		if(!CSharpTypeUtil.isInheritableWithImplicit(firstParameterTypeRef, myQualifierTypeRef, myExpression))
+		{
+			return;
 		}
 
-		return true;
+		if(myCompletion)
+		{
+			addElement(transform(methodDeclaration, inferenceResult));
+		}
+		else
+		{
+			myResolvedElements.add(transform(methodDeclaration, inferenceResult));
+		}
+	}
+
+	/**
+	 * Fast check by receiver keys, before generic inference and inheritance check
+	 */
+	private boolean isAcceptableReceiver(@NotNull CSharpMethodDeclaration methodDeclaration)
+	{
+		Set<String> qualifierReceiverKeys = getQualifierReceiverKeys();
+		return qualifierReceiverKeys == null || ExtensionReceiverKeyUtil.isAcceptableReceiver(methodDeclaration, qualifierReceiverKeys);
+	}
+
+	/**
+	 * @return receiver keys of qualifier, or null if qualifier can not be described by keys - then all extension methods are walked
+	 */
+	@Nullable
+	private Set<String> getQualifierReceiverKeys()
+	{
+		if(!myQualifierReceiverKeysCalculated)
+		{
+			myQualifierReceiverKeys = ExtensionReceiverKeyUtil.collectQualifierKeys(myQualifierTypeRef, myExpression);
+			myQualifierReceiverKeysCalculated = true;
+		}
+		return myQualifierReceiverKeys;
 	}
 
 	@NotNull
 	public GenericInferenceUtil.GenericInferenceResult inferenceGenericExtractor(CSharpMethodDeclaration methodDeclaration)
 	{
-		val arguments = myCallArgumentListOwner == null ? CSharpCallArgument.EMPTY_ARRAY : myCallArgumentListOwner.getCallArguments();
+		if(myArgumentsSnapshot == null)
+		{
+			val arguments = myCallArgumentListOwner == null ? CSharpCallArgument.EMPTY_ARRAY : myCallArgumentListOwner.getCallArguments();
+
+			CSharpCallArgument[] newArguments = new CSharpCallArgument[arguments.length + 1];
+			System.arraycopy(arguments, 0, newArguments, 1, arguments.length);
 
-		CSharpCallArgument[] newArguments = new CSharpCallArgument[arguments.length + 1];
-		System.arraycopy(arguments, 0, newArguments, 1, arguments.length);
+			newArguments[0] = myArgumentWrapper;
 
-		newArguments[0] = myArgumentWrapper;
+			myArgumentsSnapshot = new CallArgumentTypeRefSnapshot(newArguments);
+		}
 
 		val typeArgumentRefs = myExpression.getTypeArgumentListRefs();
-		return GenericInferenceUtil.inferenceGenericExtractor(newArguments, typeArgumentRefs, myExpression, methodDeclaration);
+		return GenericInferenceUtil.inferenceGenericExtractor(myArgumentsSnapshot, typeArgumentRefs, myExpression, methodDeclaration);
 	}
 
 	@NotNull
@@ -12,6 +12,7 @@ import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
 import org.mustbe.consulo.csharp.lang.psi.impl.CSharpTypeUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpLambdaExpressionImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpLambdaExpressionImplUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.CallArgumentTypeRefSnapshot;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.MethodResolver;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.arguments.NCallArgument;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpGenericExtractor;
@@ -26,6 +27,7 @@ import org.mustbe.consulo.dotnet.resolve.DotNetGenericExtractor;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeResolveResult;
 import org.mustbe.consulo.dotnet.util.ArrayUtil2;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
@@ -71,14 +73,22 @@ public class GenericInferenceUtil
 			@NotNull CSharpCallArgumentListOwner callArgumentListOwner,
 			@NotNull DotNetLikeMethodDeclaration methodDeclaration)
 	{
-		CSharpCallArgument[] arguments = callArgumentListOwner.getCallArguments();
+		return inferenceGenericExtractor(referenceElement, new CallArgumentTypeRefSnapshot(callArgumentListOwner.getCallArguments()),
+				callArgumentListOwner, methodDeclaration);
+	}
 
+	@NotNull
+	public static GenericInferenceResult inferenceGenericExtractor(@NotNull PsiElement referenceElement,
+			@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull CSharpCallArgumentListOwner callArgumentListOwner,
+			@NotNull DotNetLikeMethodDeclaration methodDeclaration)
+	{
 		DotNetTypeRef[] typeArgumentListRef = DotNetTypeRef.EMPTY_ARRAY;
 		if(referenceElement instanceof CSharpReferenceExpression)
 		{
 			typeArgumentListRef = ((CSharpReferenceExpression) referenceElement).getTypeArgumentListRefs();
 		}
-		return inferenceGenericExtractor(arguments, typeArgumentListRef, callArgumentListOwner, methodDeclaration);
+		return inferenceGenericExtractor(snapshot, typeArgumentListRef, callArgumentListOwner, methodDeclaration);
 	}
 
 	@NotNull
@@ -86,6 +96,15 @@ public class GenericInferenceUtil
 			@NotNull DotNetTypeRef[] typeArgumentListRefs,
 			@NotNull PsiElement scope,
 			@NotNull DotNetLikeMethodDeclaration methodDeclaration)
+	{
+		return inferenceGenericExtractor(new CallArgumentTypeRefSnapshot(callArguments), typeArgumentListRefs, scope, methodDeclaration);
+	}
+
+	@NotNull
+	public static GenericInferenceResult inferenceGenericExtractor(@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull DotNetTypeRef[] typeArgumentListRefs,
+			@NotNull PsiElement scope,
+			@NotNull DotNetLikeMethodDeclaration methodDeclaration)
 	{
 		DotNetGenericParameter[] genericParameters = methodDeclaration.getGenericParameters();
 		if(genericParameters.length == 0 || typeArgumentListRefs.length > 0)
@@ -95,7 +114,7 @@ public class GenericInferenceUtil
 			return new GenericInferenceResult(genericParameters.length == typeArgumentListRefs.length, extractor);
 		}
 
-		List<NCallArgument> methodCallArguments = MethodResolver.buildCallArguments(callArguments, methodDeclaration, scope);
+		List<NCallArgument> methodCallArguments = MethodResolver.buildCallArguments(snapshot, methodDeclaration, scope);
 
 		if(methodCallArguments.isEmpty())
 		{
@@ -112,7 +131,7 @@ public class GenericInferenceUtil
 				continue;
 			}
 
-			DotNetTypeRef expressionTypeRef = unwrapPossibleGenericTypeRefs(nCallArgument, parameterTypeRef, map, scope);
+			DotNetTypeRef expressionTypeRef = unwrapPossibleGenericTypeRefs(snapshot, nCallArgument, parameterTypeRef, map, scope);
 
 			DotNetTypeResolveResult parameterTypeResolveResult = parameterTypeRef.resolve(scope);
 			DotNetTypeResolveResult expressionTypeResolveResult = expressionTypeRef.resolve(scope);
@@ -249,7 +268,8 @@ public class GenericInferenceUtil
 	}
 
 	@NotNull
-	private static DotNetTypeRef unwrapPossibleGenericTypeRefs(@NotNull NCallArgument nCallArgument,
+	private static DotNetTypeRef unwrapPossibleGenericTypeRefs(@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull NCallArgument nCallArgument,
 			@NotNull DotNetTypeRef parameterTypeRef,
 			@NotNull THashMap<DotNetGenericParameter, DotNetTypeRef> map,
 			@NotNull PsiElement scope)
@@ -262,7 +282,7 @@ public class GenericInferenceUtil
 			return expressionTypeRef;
 		}
 
-		DotNetExpression argumentExpression = callArgument.getArgumentExpression();
+		final DotNetExpression argumentExpression = callArgument.getArgumentExpression();
 		if(!(argumentExpression instanceof CSharpLambdaExpressionImpl))
 		{
 			return expressionTypeRef;
@@ -272,19 +292,28 @@ public class GenericInferenceUtil
 				(), DotNetTypeRef.AUTO_TYPE);
 		if(CSharpTypeUtil.isInheritable(parameterTypeRef, baseTypeRefOfLambda, scope))
 		{
-			//TODO [VISTALL] find another way to duplicate expression
-			final PsiFile fileCopy = (PsiFile) argumentExpression.getContainingFile().copy();
+			DotNetGenericExtractor extractor = CSharpGenericExtractor.create(map);
+			final DotNetTypeRef newParameterTypeRef = GenericUnwrapTool.exchangeTypeRef(parameterTypeRef, extractor, scope);
 
-			PsiElement elementAt = fileCopy.findElementAt(argumentExpression.getTextOffset());
-			CSharpLambdaExpressionImpl copy = PsiTreeUtil.getParentOfType(elementAt, CSharpLambdaExpressionImpl.class);
+			// lambda typed only once for each target type
+			return snapshot.getLambdaTypeRef(callArgument, newParameterTypeRef, new Computable<DotNetTypeRef>()
+			{
+				@Override
+				public DotNetTypeRef compute()
+				{
+					//TODO [VISTALL] find another way to duplicate expression
+					final PsiFile fileCopy = (PsiFile) argumentExpression.getContainingFile().copy();
 
-			assert copy != null;
+					PsiElement elementAt = fileCopy.findElementAt(argumentExpression.getTextOffset());
+					CSharpLambdaExpressionImpl copy = PsiTreeUtil.getParentOfType(elementAt, CSharpLambdaExpressionImpl.class);
 
-			DotNetGenericExtractor extractor = CSharpGenericExtractor.create(map);
-			DotNetTypeRef newParameterTypeRef = GenericUnwrapTool.exchangeTypeRef(parameterTypeRef, extractor, scope);
-			copy.putUserData(CSharpLambdaExpressionImplUtil.TYPE_REF_OF_LAMBDA, newParameterTypeRef);
+					assert copy != null;
 
-			return copy.toTypeRefForInference();
+					copy.putUserData(CSharpLambdaExpressionImplUtil.TYPE_REF_OF_LAMBDA, newParameterTypeRef);
+
+					return copy.toTypeRefForInference();
+				}
+			});
 		}
 
 		return expressionTypeRef;
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving;
+
+import gnu.trove.THashMap;
+
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgument;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefKeyUtil;
+import org.mustbe.consulo.dotnet.psi.DotNetExpression;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.util.Computable;
+
+/**
+ * Type refs of call arguments of one call site. Shared between all overload candidates, each argument type ref is calculated
+ * only once. Lambda arguments retyped against target delegate type are cached by target
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CallArgumentTypeRefSnapshot
+{
+	@NotNull
+	private final CSharpCallArgument[] myCallArguments;
+	@NotNull
+	private final DotNetTypeRef[] myTypeRefs;
+
+	private Map<CSharpCallArgument, Map<String, DotNetTypeRef>> myLambdaTypeRefs;
+
+	public CallArgumentTypeRefSnapshot(@NotNull CSharpCallArgument[] callArguments)
+	{
+		myCallArguments = callArguments;
+		myTypeRefs = new DotNetTypeRef[callArguments.length];
+	}
+
+	@NotNull
+	public CSharpCallArgument[] getCallArguments()
+	{
+		return myCallArguments;
+	}
+
+	@NotNull
+	@RequiredReadAction
+	public DotNetTypeRef getTypeRef(int index)
+	{
+		DotNetTypeRef typeRef = myTypeRefs[index];
+		if(typeRef == null)
+		{
+			DotNetExpression argumentExpression = myCallArguments[index].getArgumentExpression();
+			typeRef = argumentExpression == null ? DotNetTypeRef.ERROR_TYPE : argumentExpression.toTypeRef(false);
+			myTypeRefs[index] = typeRef;
+		}
+		return typeRef;
+	}
+
+	@NotNull
+	@RequiredReadAction
+	public DotNetTypeRef getTypeRef(@NotNull CSharpCallArgument callArgument)
+	{
+		for(int i = 0; i < myCallArguments.length; i++)
+		{
+			if(myCallArguments[i] == callArgument)
+			{
+				return getTypeRef(i);
+			}
+		}
+
+		DotNetExpression argumentExpression = callArgument.getArgumentExpression();
+		return argumentExpression == null ? DotNetTypeRef.ERROR_TYPE : argumentExpression.toTypeRef(false);
+	}
+
+	/**
+	 * Return type ref of lambda argument retyped against target type. If target type have no scope independent key - dont cache it
+	 */
+	@NotNull
+	@RequiredReadAction
+	public DotNetTypeRef getLambdaTypeRef(@NotNull CSharpCallArgument callArgument,
+			@NotNull DotNetTypeRef targetTypeRef,
+			@NotNull Computable<DotNetTypeRef> computable)
+	{
+		String key = CSharpTypeRefKeyUtil.getKey(targetTypeRef);
+		if(key == null)
+		{
+			return computable.compute();
+		}
+
+		if(myLambdaTypeRefs == null)
+		{
+			myLambdaTypeRefs = new THashMap<CSharpCallArgument, Map<String, DotNetTypeRef>>();
+		}
+
+		Map<String, DotNetTypeRef> map = myLambdaTypeRefs.get(callArgument);
+		if(map == null)
+		{
+			myLambdaTypeRefs.put(callArgument, map = new THashMap<String, DotNetTypeRef>());
+		}
+
+		DotNetTypeRef typeRef = map.get(key);
+		if(typeRef == null)
+		{
+			map.put(key, typeRef = computable.compute());
+		}
+		return typeRef;
+	}
+}
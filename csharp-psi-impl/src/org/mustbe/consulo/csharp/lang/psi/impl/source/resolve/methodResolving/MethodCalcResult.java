@@ -15,6 +15,10 @@ import com.intellij.openapi.util.UserDataHolderBase;
 public class MethodCalcResult extends UserDataHolderBase
 {
 	public static final MethodCalcResult VALID = new MethodCalcResult(true, WeightUtil.MAX_WEIGHT, Collections.<NCallArgument>emptyList());
+	/**
+	 * Result for candidates which was pruned by {@link MethodResolver#isPossiblyApplicable}, always sorted after calculated results
+	 */
+	public static final MethodCalcResult PRUNED = new MethodCalcResult(false, Integer.MIN_VALUE / 2, Collections.<NCallArgument>emptyList());
 
 	private final boolean myValid;
 	private final int myWeight;
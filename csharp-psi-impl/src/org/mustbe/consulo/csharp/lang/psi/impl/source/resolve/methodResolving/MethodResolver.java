@@ -2,11 +2,13 @@ package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgument;
 import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgumentListOwner;
+import org.mustbe.consulo.csharp.lang.psi.CSharpModifier;
 import org.mustbe.consulo.csharp.lang.psi.CSharpNamedCallArgument;
 import org.mustbe.consulo.csharp.lang.psi.CSharpSimpleParameterInfo;
 import org.mustbe.consulo.csharp.lang.psi.impl.CSharpTypeUtil;
@@ -25,6 +27,7 @@ import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 import org.mustbe.consulo.dotnet.util.ArrayUtil2;
 import com.intellij.openapi.util.Comparing;
 import com.intellij.psi.PsiElement;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.SmartList;
 
 /**
@@ -33,6 +36,85 @@ import com.intellij.util.SmartList;
  */
 public class MethodResolver
 {
+	private static final AtomicLong ourPrefilterCheckedCount = new AtomicLong();
+	private static final AtomicLong ourPrefilterPrunedCount = new AtomicLong();
+
+	/**
+	 * Cheap check by arity and names of arguments, without calculating types. Return false only if {@link #calc} will return
+	 * invalid result: too many positional arguments without params parameter, named argument for unknown parameter,
+	 * or required parameter without argument
+	 */
+	public static boolean isPossiblyApplicable(@NotNull CSharpCallArgument[] callArguments, @NotNull DotNetParameterListOwner parameterListOwner)
+	{
+		ourPrefilterCheckedCount.incrementAndGet();
+
+		DotNetParameter[] parameters = parameterListOwner.getParameters();
+		DotNetParameter lastParameter = ArrayUtil.getLastElement(parameters);
+		boolean hasParams = lastParameter != null && lastParameter.hasModifier(CSharpModifier.PARAMS);
+
+		boolean[] covered = new boolean[parameters.length];
+		for(int i = 0; i < callArguments.length; i++)
+		{
+			CSharpCallArgument argument = callArguments[i];
+			if(argument instanceof CSharpNamedCallArgument)
+			{
+				int index = indexOfParameter(parameters, ((CSharpNamedCallArgument) argument).getName());
+				if(index == -1)
+				{
+					ourPrefilterPrunedCount.incrementAndGet();
+					return false;
+				}
+				covered[index] = true;
+			}
+			else if(i < parameters.length)
+			{
+				covered[i] = true;
+			}
+			else if(!hasParams)
+			{
+				ourPrefilterPrunedCount.incrementAndGet();
+				return false;
+			}
+		}
+
+		for(int i = 0; i < parameters.length; i++)
+		{
+			if(covered[i] || hasParams && i == parameters.length - 1)
+			{
+				continue;
+			}
+
+			if(parameters[i].getInitializer() == null)
+			{
+				ourPrefilterPrunedCount.incrementAndGet();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOfParameter(@NotNull DotNetParameter[] parameters, @Nullable String name)
+	{
+		for(int i = 0; i < parameters.length; i++)
+		{
+			if(Comparing.equal(parameters[i].getName(), name))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public static long getPrefilterCheckedCount()
+	{
+		return ourPrefilterCheckedCount.get();
+	}
+
+	public static long getPrefilterPrunedCount()
+	{
+		return ourPrefilterPrunedCount.get();
+	}
+
 	@NotNull
 	private static List<NCallArgument> buildCallArguments(@NotNull DotNetTypeRef[] callArgumentTypeRefs, @NotNull DotNetTypeRef[] parameterTypeRefs)
 	{
@@ -53,11 +135,19 @@ public class MethodResolver
 			@NotNull DotNetParameterListOwner parameterListOwner,
 			@NotNull PsiElement scope)
 	{
-		return buildCallArguments(callArguments, scope, new MethodParameterResolveContext(parameterListOwner, scope));
+		return buildCallArguments(new CallArgumentTypeRefSnapshot(callArguments), parameterListOwner, scope);
 	}
 
 	@NotNull
-	private static List<NCallArgument> buildCallArguments(@NotNull CSharpCallArgument[] callArguments,
+	public static List<NCallArgument> buildCallArguments(@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull DotNetParameterListOwner parameterListOwner,
+			@NotNull PsiElement scope)
+	{
+		return buildCallArguments(snapshot, scope, new MethodParameterResolveContext(parameterListOwner, scope));
+	}
+
+	@NotNull
+	private static List<NCallArgument> buildCallArguments(@NotNull CallArgumentTypeRefSnapshot snapshot,
 			@NotNull PsiElement scope,
 			@NotNull ParameterResolveContext<?> context)
 	{
@@ -65,29 +155,22 @@ public class MethodResolver
 
 		List<CSharpCallArgument> paramsArguments = new SmartList<CSharpCallArgument>();
 
-		int i = 0;
-		for(CSharpCallArgument argument : callArguments)
+		CSharpCallArgument[] callArguments = snapshot.getCallArguments();
+		for(int i = 0; i < callArguments.length; i++)
 		{
-			DotNetTypeRef expressionTypeRef = DotNetTypeRef.ERROR_TYPE;
+			CSharpCallArgument argument = callArguments[i];
+			DotNetTypeRef expressionTypeRef = snapshot.getTypeRef(i);
 			String name;
 
-			DotNetExpression argumentExpression = argument.getArgumentExpression();
-			if(argumentExpression != null)
-			{
-				expressionTypeRef = argumentExpression.toTypeRef(false);
-			}
-
 			if(argument instanceof CSharpNamedCallArgument)
 			{
 				name = ((CSharpNamedCallArgument) argument).getName();
 
 				list.add(new NNamedCallArgument(expressionTypeRef, argument, context.getParameterByName(name), name));
-
-				i++;
 			}
 			else
 			{
-				Object parameter = context.getParameterByIndex(i ++);
+				Object parameter = context.getParameterByIndex(i);
 				if(parameter == null)
 				{
 					DotNetParameter paramsParameter = context.getParamsParameter();
@@ -164,7 +247,7 @@ public class MethodResolver
 		// if we have params arguments add to list it
 		if(!paramsArguments.isEmpty())
 		{
-			list.add(new NParamsCallArgument(paramsArguments, context.getParamsParameter()));
+			list.add(new NParamsCallArgument(paramsArguments, snapshot, context.getParamsParameter()));
 		}
 		else
 		{
@@ -253,12 +336,29 @@ public class MethodResolver
 		return calc(list, scope);
 	}
 
+	@NotNull
+	public static MethodCalcResult calc(@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull DotNetParameterListOwner parameterListOwner,
+			@NotNull PsiElement scope)
+	{
+		List<NCallArgument> list = buildCallArguments(snapshot, parameterListOwner, scope);
+		return calc(list, scope);
+	}
+
 	@NotNull
 	public static MethodCalcResult calc(@NotNull CSharpCallArgumentListOwner callArgumentListOwner,
 			@NotNull CSharpSimpleParameterInfo[] p,
 			@NotNull PsiElement scope)
 	{
-		List<NCallArgument> list = buildCallArguments(callArgumentListOwner.getCallArguments(), scope, new SimpleParameterResolveContext(p));
+		return calc(new CallArgumentTypeRefSnapshot(callArgumentListOwner.getCallArguments()), p, scope);
+	}
+
+	@NotNull
+	public static MethodCalcResult calc(@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@NotNull CSharpSimpleParameterInfo[] p,
+			@NotNull PsiElement scope)
+	{
+		List<NCallArgument> list = buildCallArguments(snapshot, scope, new SimpleParameterResolveContext(p));
 		return calc(list, scope);
 	}
 
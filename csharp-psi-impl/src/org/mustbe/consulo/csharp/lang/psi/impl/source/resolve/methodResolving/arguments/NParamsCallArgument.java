@@ -1,6 +1,5 @@
 package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.arguments;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -8,8 +7,8 @@ import org.consulo.lombok.annotations.LazyInstance;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.mustbe.consulo.csharp.lang.psi.CSharpCallArgument;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.methodResolving.CallArgumentTypeRefSnapshot;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpArrayTypeRef;
-import org.mustbe.consulo.dotnet.psi.DotNetExpression;
 import org.mustbe.consulo.dotnet.psi.DotNetParameter;
 import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
 
@@ -21,11 +20,16 @@ public class NParamsCallArgument extends NCallArgument
 {
 	@NotNull
 	private final List<CSharpCallArgument> myCallArguments;
+	@NotNull
+	private final CallArgumentTypeRefSnapshot mySnapshot;
 
-	public NParamsCallArgument(@NotNull List<CSharpCallArgument> callArguments, @Nullable DotNetParameter parameter)
+	public NParamsCallArgument(@NotNull List<CSharpCallArgument> callArguments,
+			@NotNull CallArgumentTypeRefSnapshot snapshot,
+			@Nullable DotNetParameter parameter)
 	{
 		super(DotNetTypeRef.ERROR_TYPE, null, parameter);
 		myCallArguments = callArguments;
+		mySnapshot = snapshot;
 	}
 
 	@NotNull
@@ -34,18 +38,15 @@ public class NParamsCallArgument extends NCallArgument
 	public DotNetTypeRef getTypeRef()
 	{
 		assert !myCallArguments.isEmpty();
-		List<DotNetTypeRef> typeRefs = new ArrayList<DotNetTypeRef>(myCallArguments.size());
-		for(CSharpCallArgument expression : myCallArguments)
+		for(CSharpCallArgument callArgument : myCallArguments)
 		{
-			DotNetExpression argumentExpression = expression.getArgumentExpression();
-			if(argumentExpression == null)
+			if(callArgument.getArgumentExpression() == null)
 			{
 				continue;
 			}
-			typeRefs.add(argumentExpression.toTypeRef(false));
+			return new CSharpArrayTypeRef(mySnapshot.getTypeRef(callArgument), 0);
 		}
-
-		return new CSharpArrayTypeRef(typeRefs.get(0), 0);
+		return new CSharpArrayTypeRef(DotNetTypeRef.ERROR_TYPE, 0);
 	}
 
 	@NotNull
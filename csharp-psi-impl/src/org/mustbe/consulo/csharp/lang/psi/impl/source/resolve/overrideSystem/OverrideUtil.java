@@ -1,17 +1,30 @@
 package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.overrideSystem;
 
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import gnu.trove.TObjectHashingStrategy;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
 
 import org.consulo.lombok.annotations.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mustbe.consulo.csharp.lang.psi.CSharpArrayMethodDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpConstructorDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpConversionMethodDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.CSharpElementCompareUtil;
+import org.mustbe.consulo.csharp.lang.psi.CSharpEventDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpFieldDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.CSharpModifier;
+import org.mustbe.consulo.csharp.lang.psi.CSharpPropertyDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.impl.msil.CSharpTransform;
 import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpElementGroupImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.resolve.CSharpResolveContextUtil;
@@ -90,11 +103,34 @@ public class OverrideUtil
 			@NotNull Collection<PsiElement> elements,
 			@NotNull OverrideProcessor overrideProcessor)
 	{
-		List<PsiElement> copyElements = new ArrayList<PsiElement>(elements);
+		// elements can be equal only if they have equal key, that why we compare elements only inside one group
+		Map<String, List<PsiElement>> elementsByKey = new THashMap<String, List<PsiElement>>();
+		String[] keys = new String[elements.size()];
+		int index = 0;
+		for(PsiElement element : elements)
+		{
+			String key = getOverrideKey(element);
+			keys[index++] = key;
+			if(key == null)
+			{
+				continue;
+			}
+
+			List<PsiElement> list = elementsByKey.get(key);
+			if(list == null)
+			{
+				elementsByKey.put(key, list = new SmartList<PsiElement>());
+			}
+			list.add(element);
+		}
 
+		Set<PsiElement> removedElements = new THashSet<PsiElement>(TObjectHashingStrategy.IDENTITY);
+
+		index = 0;
 		for(PsiElement element : elements)
 		{
-			if(!copyElements.contains(element))
+			String key = keys[index++];
+			if(removedElements.contains(element))
 			{
 				continue;
 			}
@@ -109,7 +145,8 @@ public class OverrideUtil
 
 				DotNetType typeForImplement = virtualImplementOwner.getTypeForImplement();
 
-				for(PsiElement tempIterateElement : elements)
+				List<PsiElement> sameKeyElements = key == null ? Collections.<PsiElement>emptyList() : elementsByKey.get(key);
+				for(PsiElement tempIterateElement : sameKeyElements)
 				{
 					// skip self
 					if(tempIterateElement == element)
@@ -123,18 +160,27 @@ public class OverrideUtil
 						{
 							return PsiElement.EMPTY_ARRAY;
 						}
-						copyElements.remove(tempIterateElement);
+						removedElements.add(tempIterateElement);
 					}
 				}
 
 				// if he have hide impl, remove it
 				if(typeForImplement != null)
 				{
-					copyElements.remove(element);
+					removedElements.add(element);
 				}
 			}
 		}
 
+		List<PsiElement> copyElements = new ArrayList<PsiElement>(elements.size());
+		for(PsiElement element : elements)
+		{
+			if(!removedElements.contains(element))
+			{
+				copyElements.add(element);
+			}
+		}
+
 		List<PsiElement> groupElements = new SmartList<PsiElement>();
 		List<PsiElement> elseElements = new SmartList<PsiElement>();
 
@@ -170,6 +216,54 @@ public class OverrideUtil
 		}
 	}
 
+	/**
+	 * Only count of parameters is used - parameter types are not calculated
+	 *
+	 * @return key which is equal for all elements which can be equal by {@link CSharpElementCompareUtil#isEqual(PsiElement, PsiElement, int,
+	 * PsiElement)}, or null if element can not be equal to another element
+	 */
+	@Nullable
+	private static String getOverrideKey(@NotNull PsiElement element)
+	{
+		if(element instanceof CSharpPropertyDeclaration)
+		{
+			return "property:" + ((CSharpPropertyDeclaration) element).getName();
+		}
+		else if(element instanceof CSharpEventDeclaration)
+		{
+			return "event:" + ((CSharpEventDeclaration) element).getName();
+		}
+		else if(element instanceof CSharpFieldDeclaration)
+		{
+			return "field:" + ((CSharpFieldDeclaration) element).getName();
+		}
+		else if(element instanceof CSharpTypeDeclaration)
+		{
+			return "type:" + ((CSharpTypeDeclaration) element).getName() + ":" + ((CSharpTypeDeclaration) element).getGenericParametersCount();
+		}
+		else if(element instanceof CSharpConstructorDeclaration)
+		{
+			CSharpConstructorDeclaration constructorDeclaration = (CSharpConstructorDeclaration) element;
+			return "constructor:" + constructorDeclaration.hasModifier(DotNetModifier.STATIC) + ":" + constructorDeclaration.isDeConstructor() + ":" +
+					constructorDeclaration.getParameters().length;
+		}
+		else if(element instanceof CSharpArrayMethodDeclaration)
+		{
+			return "index:" + ((CSharpArrayMethodDeclaration) element).getParameters().length;
+		}
+		else if(element instanceof CSharpConversionMethodDeclaration)
+		{
+			return "conversion:" + ((CSharpConversionMethodDeclaration) element).getParameters().length;
+		}
+		else if(element instanceof CSharpMethodDeclaration)
+		{
+			CSharpMethodDeclaration methodDeclaration = (CSharpMethodDeclaration) element;
+			return "method:" + methodDeclaration.getName() + ":" + methodDeclaration.getGenericParametersCount() + ":" + methodDeclaration
+					.getParameters().length;
+		}
+		return null;
+	}
+
 	@NotNull
 	private static String getNameForGroup(List<PsiElement> elements)
 	{
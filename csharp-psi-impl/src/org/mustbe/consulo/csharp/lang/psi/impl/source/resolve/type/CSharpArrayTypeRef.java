@@ -92,11 +92,13 @@ public class CSharpArrayTypeRef extends DotNetTypeRef.Adapter implements DotNetA
 
 	private final DotNetTypeRef myInnerType;
 	private final int myDimensions;
+	private final int myHashCode;
 
 	public CSharpArrayTypeRef(DotNetTypeRef innerType, int dimensions)
 	{
 		myInnerType = innerType;
 		myDimensions = dimensions;
+		myHashCode = 31 * innerType.hashCode() + dimensions;
 	}
 
 	@NotNull
@@ -147,4 +149,26 @@ public class CSharpArrayTypeRef extends DotNetTypeRef.Adapter implements DotNetA
 	{
 		return myDimensions;
 	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(o == this)
+		{
+			return true;
+		}
+		// lazy type refs are bound to own scope - compare them by identity
+		if(getClass() != CSharpArrayTypeRef.class || o == null || o.getClass() != CSharpArrayTypeRef.class)
+		{
+			return false;
+		}
+		CSharpArrayTypeRef another = (CSharpArrayTypeRef) o;
+		return myHashCode == another.myHashCode && myDimensions == another.myDimensions && myInnerType.equals(another.myInnerType);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return myHashCode;
+	}
 }
@@ -74,4 +74,16 @@ public class CSharpGenericExtractor implements DotNetGenericExtractor
 
 		return ArrayUtil2.safeGet(myTypeRefs, index);
 	}
+
+	@NotNull
+	public DotNetGenericParameter[] getGenericParameters()
+	{
+		return myGenericParameters;
+	}
+
+	@NotNull
+	public DotNetTypeRef[] getTypeRefs()
+	{
+		return myTypeRefs;
+	}
 }
@@ -16,6 +16,8 @@
 
 package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type;
 
+import java.util.Arrays;
+
 import org.jetbrains.annotations.NotNull;
 import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
 import org.mustbe.consulo.dotnet.psi.DotNetGenericParameter;
@@ -34,11 +36,13 @@ public class CSharpGenericWrapperTypeRef implements DotNetGenericWrapperTypeRef
 {
 	private final DotNetTypeRef myInnerTypeRef;
 	private final DotNetTypeRef[] myArguments;
+	private final int myHashCode;
 
 	public CSharpGenericWrapperTypeRef(DotNetTypeRef innerTypeRef, DotNetTypeRef... rArguments)
 	{
 		myInnerTypeRef = innerTypeRef;
 		myArguments = rArguments;
+		myHashCode = 31 * innerTypeRef.hashCode() + Arrays.hashCode(rArguments);
 	}
 
 	@NotNull
@@ -128,4 +132,27 @@ public class CSharpGenericWrapperTypeRef implements DotNetGenericWrapperTypeRef
 	{
 		return myArguments;
 	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(o == this)
+		{
+			return true;
+		}
+		// lazy type refs are bound to own scope - compare them by identity
+		if(getClass() != CSharpGenericWrapperTypeRef.class || o == null || o.getClass() != CSharpGenericWrapperTypeRef.class)
+		{
+			return false;
+		}
+		CSharpGenericWrapperTypeRef another = (CSharpGenericWrapperTypeRef) o;
+		return myHashCode == another.myHashCode && myInnerTypeRef.equals(another.myInnerTypeRef) && Arrays.equals(myArguments,
+				another.myArguments);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return myHashCode;
+	}
 }
@@ -25,6 +25,15 @@ public class CSharpTypeRefByQName extends DotNetTypeRef.Adapter
 		myQualifiedName = qualifiedName;
 	}
 
+	/**
+	 * @return qualified name with generic marker(for example System.Collections.Generic.List`1)
+	 */
+	@NotNull
+	public String getVmQName()
+	{
+		return myQualifiedName;
+	}
+
 	@NotNull
 	@Override
 	public String getQualifiedText()
@@ -53,4 +62,23 @@ public class CSharpTypeRefByQName extends DotNetTypeRef.Adapter
 
 		return new CSharpReferenceTypeRef.Result<DotNetTypeDeclaration>(type, DotNetGenericExtractor.EMPTY);
 	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(o == this)
+		{
+			return true;
+		}
+		// lazy type refs are bound to own scope - compare them by identity
+		return getClass() == CSharpTypeRefByQName.class && o != null && o.getClass() == CSharpTypeRefByQName.class && myQualifiedName.equals((
+				(CSharpTypeRefByQName) o).myQualifiedName);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		// string caches own hash code
+		return myQualifiedName.hashCode();
+	}
 }
@@ -73,4 +73,16 @@ public class CSharpTypeRefByTypeDeclaration extends DotNetTypeRef.Adapter
 		}
 		return new CSharpReferenceTypeRef.Result<PsiElement>(myElement, myExtractor);
 	}
+
+	@NotNull
+	public DotNetTypeDeclaration getElement()
+	{
+		return myElement;
+	}
+
+	@NotNull
+	public DotNetGenericExtractor getExtractor()
+	{
+		return myExtractor;
+	}
 }
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type;
+
+import java.util.concurrent.ConcurrentMap;
+
+import org.consulo.lombok.annotations.ProjectService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.lazy.CSharpLazyTypeRefByQName;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+
+/**
+ * Canonical instances of type refs. Type refs which do not depend on scope({@link CSharpTypeRefByQName}, and {@link CSharpArrayTypeRef},
+ * {@link CSharpGenericWrapperTypeRef} of them) are hash-consed - equal type refs are same instance, and canonical tree is built from
+ * canonical children. Values are weak - unused instances are collected.
+ * <p/>
+ * {@link CSharpLazyTypeRefByQName} caches resolve result for own scope, canonical instances of it are shared by scopes with same resolve scope,
+ * and dropped on out of code block modification or roots change
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+@ProjectService
+public class CSharpTypeRefInterner
+{
+	private static class ArrayKey
+	{
+		private final DotNetTypeRef myInnerTypeRef;
+		private final int myDimensions;
+
+		private ArrayKey(@NotNull DotNetTypeRef innerTypeRef, int dimensions)
+		{
+			myInnerTypeRef = innerTypeRef;
+			myDimensions = dimensions;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			// children are canonical - compare by identity
+			return o instanceof ArrayKey && ((ArrayKey) o).myInnerTypeRef == myInnerTypeRef && ((ArrayKey) o).myDimensions == myDimensions;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * System.identityHashCode(myInnerTypeRef) + myDimensions;
+		}
+	}
+
+	private static class GenericWrapperKey
+	{
+		private final DotNetTypeRef myInnerTypeRef;
+		private final DotNetTypeRef[] myArguments;
+		private final int myHashCode;
+
+		private GenericWrapperKey(@NotNull DotNetTypeRef innerTypeRef, @NotNull DotNetTypeRef[] arguments)
+		{
+			myInnerTypeRef = innerTypeRef;
+			myArguments = arguments;
+
+			int hashCode = System.identityHashCode(innerTypeRef);
+			for(DotNetTypeRef argument : arguments)
+			{
+				hashCode = 31 * hashCode + System.identityHashCode(argument);
+			}
+			myHashCode = hashCode;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof GenericWrapperKey))
+			{
+				return false;
+			}
+			GenericWrapperKey another = (GenericWrapperKey) o;
+			if(another.myInnerTypeRef != myInnerTypeRef || another.myArguments.length != myArguments.length)
+			{
+				return false;
+			}
+			for(int i = 0; i < myArguments.length; i++)
+			{
+				if(another.myArguments[i] != myArguments[i])
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return myHashCode;
+		}
+	}
+
+	private final ConcurrentMap<Object, DotNetTypeRef> myTypeRefs = ContainerUtil.createConcurrentWeakValueMap();
+
+	private final CachedValue<ConcurrentMap<Pair<GlobalSearchScope, String>, CSharpLazyTypeRefByQName>> myLazyTypeRefs;
+
+	public CSharpTypeRefInterner(@NotNull final Project project)
+	{
+		myLazyTypeRefs = CachedValuesManager.getManager(project).createCachedValue(new CachedValueProvider<ConcurrentMap<Pair<GlobalSearchScope,
+				String>, CSharpLazyTypeRefByQName>>()
+		{
+			@Nullable
+			@Override
+			public Result<ConcurrentMap<Pair<GlobalSearchScope, String>, CSharpLazyTypeRefByQName>> compute()
+			{
+				ConcurrentMap<Pair<GlobalSearchScope, String>, CSharpLazyTypeRefByQName> map = ContainerUtil.newConcurrentMap();
+				return Result.create(map, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT, ProjectRootManager.getInstance(project));
+			}
+		}, false);
+	}
+
+	@NotNull
+	public DotNetTypeRef getTypeRefByQName(@NotNull String qualifiedName)
+	{
+		DotNetTypeRef typeRef = myTypeRefs.get(qualifiedName);
+		if(typeRef != null)
+		{
+			return typeRef;
+		}
+		return ContainerUtil.cacheOrGet(myTypeRefs, qualifiedName, new CSharpTypeRefByQName(qualifiedName));
+	}
+
+	/**
+	 * @return canonical array type ref if inner type ref is scope independent, otherwise new array type ref. Array type ref is created only if
+	 * there no canonical instance
+	 */
+	@NotNull
+	public DotNetTypeRef getArrayTypeRef(@NotNull DotNetTypeRef innerTypeRef, int dimensions)
+	{
+		DotNetTypeRef internedInnerTypeRef = internImpl(innerTypeRef);
+		if(internedInnerTypeRef == null)
+		{
+			return new CSharpArrayTypeRef(innerTypeRef, dimensions);
+		}
+
+		ArrayKey key = new ArrayKey(internedInnerTypeRef, dimensions);
+		DotNetTypeRef internedTypeRef = myTypeRefs.get(key);
+		if(internedTypeRef != null)
+		{
+			return internedTypeRef;
+		}
+		return ContainerUtil.cacheOrGet(myTypeRefs, key, new CSharpArrayTypeRef(internedInnerTypeRef, dimensions));
+	}
+
+	/**
+	 * @return canonical instance if type ref is scope independent, otherwise type ref itself
+	 */
+	@NotNull
+	public DotNetTypeRef intern(@NotNull DotNetTypeRef typeRef)
+	{
+		DotNetTypeRef internedTypeRef = internImpl(typeRef);
+		return internedTypeRef == null ? typeRef : internedTypeRef;
+	}
+
+	@Nullable
+	private DotNetTypeRef internImpl(@NotNull DotNetTypeRef typeRef)
+	{
+		Class<? extends DotNetTypeRef> typeRefClass = typeRef.getClass();
+		if(typeRefClass == CSharpTypeRefByQName.class)
+		{
+			return ContainerUtil.cacheOrGet(myTypeRefs, ((CSharpTypeRefByQName) typeRef).getVmQName(), typeRef);
+		}
+		else if(typeRefClass == CSharpArrayTypeRef.class)
+		{
+			CSharpArrayTypeRef arrayTypeRef = (CSharpArrayTypeRef) typeRef;
+
+			DotNetTypeRef innerTypeRef = arrayTypeRef.getInnerTypeRef();
+			DotNetTypeRef internedInnerTypeRef = internImpl(innerTypeRef);
+			if(internedInnerTypeRef == null)
+			{
+				return null;
+			}
+
+			ArrayKey key = new ArrayKey(internedInnerTypeRef, arrayTypeRef.getDimensions());
+			DotNetTypeRef internedTypeRef = myTypeRefs.get(key);
+			if(internedTypeRef != null)
+			{
+				return internedTypeRef;
+			}
+
+			DotNetTypeRef newTypeRef = innerTypeRef == internedInnerTypeRef ? typeRef : new CSharpArrayTypeRef(internedInnerTypeRef,
+					arrayTypeRef.getDimensions());
+			return ContainerUtil.cacheOrGet(myTypeRefs, key, newTypeRef);
+		}
+		else if(typeRefClass == CSharpGenericWrapperTypeRef.class)
+		{
+			CSharpGenericWrapperTypeRef wrapperTypeRef = (CSharpGenericWrapperTypeRef) typeRef;
+
+			DotNetTypeRef innerTypeRef = wrapperTypeRef.getInnerTypeRef();
+			DotNetTypeRef internedInnerTypeRef = internImpl(innerTypeRef);
+			if(internedInnerTypeRef == null)
+			{
+				return null;
+			}
+
+			DotNetTypeRef[] arguments = wrapperTypeRef.getArgumentTypeRefs();
+			DotNetTypeRef[] internedArguments = new DotNetTypeRef[arguments.length];
+			boolean changed = innerTypeRef != internedInnerTypeRef;
+			for(int i = 0; i < arguments.length; i++)
+			{
+				DotNetTypeRef internedArgument = internImpl(arguments[i]);
+				if(internedArgument == null)
+				{
+					return null;
+				}
+				internedArguments[i] = internedArgument;
+				changed |= internedArgument != arguments[i];
+			}
+
+			GenericWrapperKey key = new GenericWrapperKey(internedInnerTypeRef, internedArguments);
+			DotNetTypeRef internedTypeRef = myTypeRefs.get(key);
+			if(internedTypeRef != null)
+			{
+				return internedTypeRef;
+			}
+
+			DotNetTypeRef newTypeRef = changed ? new CSharpGenericWrapperTypeRef(internedInnerTypeRef, internedArguments) : typeRef;
+			return ContainerUtil.cacheOrGet(myTypeRefs, key, newTypeRef);
+		}
+		return null;
+	}
+
+	/**
+	 * @return lazy type ref, which is shared by all scopes with same resolve scope
+	 */
+	@NotNull
+	@RequiredReadAction
+	public CSharpLazyTypeRefByQName getLazyTypeRefByQName(@NotNull PsiElement scope, @NotNull String qualifiedName)
+	{
+		return getLazyTypeRefByQName(scope, scope.getResolveScope(), qualifiedName);
+	}
+
+	/**
+	 * @param resolveScope resolve scope of scope element, if caller already has it
+	 */
+	@NotNull
+	public CSharpLazyTypeRefByQName getLazyTypeRefByQName(@NotNull PsiElement scope,
+			@NotNull GlobalSearchScope resolveScope,
+			@NotNull String qualifiedName)
+	{
+		ConcurrentMap<Pair<GlobalSearchScope, String>, CSharpLazyTypeRefByQName> map = myLazyTypeRefs.getValue();
+
+		Pair<GlobalSearchScope, String> key = Pair.create(resolveScope, qualifiedName);
+		CSharpLazyTypeRefByQName typeRef = map.get(key);
+		if(typeRef != null)
+		{
+			return typeRef;
+		}
+		return ContainerUtil.cacheOrGet(map, key, new CSharpLazyTypeRefByQName(scope, qualifiedName));
+	}
+}
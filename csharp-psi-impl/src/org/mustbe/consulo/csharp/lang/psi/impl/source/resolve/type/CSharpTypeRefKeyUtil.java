@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpReferenceExpression;
+import org.mustbe.consulo.dotnet.psi.DotNetTypeDeclaration;
+import org.mustbe.consulo.dotnet.resolve.DotNetGenericExtractor;
+import org.mustbe.consulo.dotnet.resolve.DotNetGenericWrapperTypeRef;
+import org.mustbe.consulo.dotnet.resolve.DotNetTypeRef;
+import com.intellij.psi.PsiElement;
+
+/**
+ * Canonical text keys for type refs which do not depend on scope. Two type refs with equal keys resolve to same type,
+ * type refs which depend on scope(generic parameters, lambdas, pointers, etc) have no key
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class CSharpTypeRefKeyUtil
+{
+	@Nullable
+	@RequiredReadAction
+	public static String getKey(@NotNull DotNetTypeRef typeRef)
+	{
+		StringBuilder builder = new StringBuilder();
+		if(!appendKey(builder, typeRef))
+		{
+			return null;
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return type ref which is same type as type ref, but does not hold elements of source code(reference expressions of code blocks),
+	 * or null if type ref depends on scope
+	 */
+	@Nullable
+	@RequiredReadAction
+	public static DotNetTypeRef toScopeIndependent(@Nullable DotNetTypeRef typeRef)
+	{
+		if(typeRef instanceof CSharpTypeRefByQName)
+		{
+			return typeRef.getClass() == CSharpTypeRefByQName.class ? typeRef : new CSharpTypeRefByQName(((CSharpTypeRefByQName) typeRef).getVmQName());
+		}
+		else if(typeRef instanceof CSharpTypeRefByTypeDeclaration)
+		{
+			return ((CSharpTypeRefByTypeDeclaration) typeRef).getExtractor() == DotNetGenericExtractor.EMPTY ? typeRef : null;
+		}
+		else if(typeRef instanceof CSharpReferenceTypeRef)
+		{
+			CSharpReferenceExpression referenceExpression = ((CSharpReferenceTypeRef) typeRef).getReferenceExpression();
+			PsiElement element = referenceExpression.resolve();
+			if(!(element instanceof DotNetTypeDeclaration))
+			{
+				return null;
+			}
+			DotNetTypeRef[] arguments = toScopeIndependent(referenceExpression.getTypeArgumentListRefs());
+			if(arguments == null)
+			{
+				return null;
+			}
+			DotNetTypeRef innerTypeRef = new CSharpTypeRefByTypeDeclaration((DotNetTypeDeclaration) element);
+			return arguments.length == 0 ? innerTypeRef : new CSharpGenericWrapperTypeRef(innerTypeRef, arguments);
+		}
+		else if(typeRef instanceof CSharpArrayTypeRef)
+		{
+			DotNetTypeRef innerTypeRef = toScopeIndependent(((CSharpArrayTypeRef) typeRef).getInnerTypeRef());
+			return innerTypeRef == null ? null : new CSharpArrayTypeRef(innerTypeRef, ((CSharpArrayTypeRef) typeRef).getDimensions());
+		}
+		else if(typeRef instanceof DotNetGenericWrapperTypeRef)
+		{
+			DotNetTypeRef innerTypeRef = toScopeIndependent(((DotNetGenericWrapperTypeRef) typeRef).getInnerTypeRef());
+			DotNetTypeRef[] arguments = innerTypeRef == null ? null : toScopeIndependent(((DotNetGenericWrapperTypeRef) typeRef).getArgumentTypeRefs());
+			return arguments == null ? null : new CSharpGenericWrapperTypeRef(innerTypeRef, arguments);
+		}
+		return null;
+	}
+
+	@Nullable
+	@RequiredReadAction
+	public static DotNetTypeRef[] toScopeIndependent(@NotNull DotNetTypeRef[] typeRefs)
+	{
+		DotNetTypeRef[] newTypeRefs = new DotNetTypeRef[typeRefs.length];
+		for(int i = 0; i < typeRefs.length; i++)
+		{
+			DotNetTypeRef typeRef = toScopeIndependent(typeRefs[i]);
+			if(typeRef == null)
+			{
+				return null;
+			}
+			newTypeRefs[i] = typeRef;
+		}
+		return newTypeRefs;
+	}
+
+	@RequiredReadAction
+	public static boolean appendKey(@NotNull StringBuilder builder, @Nullable DotNetTypeRef typeRef)
+	{
+		if(typeRef instanceof CSharpTypeRefByQName)
+		{
+			builder.append(((CSharpTypeRefByQName) typeRef).getVmQName());
+			return true;
+		}
+		else if(typeRef instanceof CSharpTypeRefByTypeDeclaration)
+		{
+			if(((CSharpTypeRefByTypeDeclaration) typeRef).getExtractor() != DotNetGenericExtractor.EMPTY)
+			{
+				return false;
+			}
+			builder.append(((CSharpTypeRefByTypeDeclaration) typeRef).getElement().getVmQName());
+			return true;
+		}
+		else if(typeRef instanceof CSharpReferenceTypeRef)
+		{
+			CSharpReferenceExpression referenceExpression = ((CSharpReferenceTypeRef) typeRef).getReferenceExpression();
+			PsiElement element = referenceExpression.resolve();
+			if(!(element instanceof DotNetTypeDeclaration))
+			{
+				return false;
+			}
+			builder.append(((DotNetTypeDeclaration) element).getVmQName());
+			return appendArgumentsKey(builder, referenceExpression.getTypeArgumentListRefs());
+		}
+		else if(typeRef instanceof CSharpArrayTypeRef)
+		{
+			if(!appendKey(builder, ((CSharpArrayTypeRef) typeRef).getInnerTypeRef()))
+			{
+				return false;
+			}
+			builder.append("[").append(((CSharpArrayTypeRef) typeRef).getDimensions()).append("]");
+			return true;
+		}
+		else if(typeRef instanceof DotNetGenericWrapperTypeRef)
+		{
+			if(!appendKey(builder, ((DotNetGenericWrapperTypeRef) typeRef).getInnerTypeRef()))
+			{
+				return false;
+			}
+			return appendArgumentsKey(builder, ((DotNetGenericWrapperTypeRef) typeRef).getArgumentTypeRefs());
+		}
+		return false;
+	}
+
+	@RequiredReadAction
+	private static boolean appendArgumentsKey(@NotNull StringBuilder builder, @NotNull DotNetTypeRef[] argumentTypeRefs)
+	{
+		if(argumentTypeRefs.length == 0)
+		{
+			return true;
+		}
+
+		builder.append("<");
+		for(int i = 0; i < argumentTypeRefs.length; i++)
+		{
+			if(i != 0)
+			{
+				builder.append(",");
+			}
+			if(!appendKey(builder, argumentTypeRefs[i]))
+			{
+				return false;
+			}
+		}
+		builder.append(">");
+		return true;
+	}
+}
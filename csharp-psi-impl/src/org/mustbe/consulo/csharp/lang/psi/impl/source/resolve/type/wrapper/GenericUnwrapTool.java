@@ -33,6 +33,7 @@ import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpErrorTy
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpPointerTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpRefTypeRef;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpReferenceTypeRef;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.CSharpTypeRefInterner;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.type.lazy.CSharpLazyGenericWrapperTypeRef;
 import org.mustbe.consulo.dotnet.psi.DotNetGenericParameter;
 import org.mustbe.consulo.dotnet.psi.DotNetLikeMethodDeclaration;
@@ -283,7 +284,8 @@ public class GenericUnwrapTool
 		else if(typeRef instanceof CSharpArrayTypeRef)
 		{
 			CSharpArrayTypeRef arrayType = (CSharpArrayTypeRef) typeRef;
-			return new CSharpArrayTypeRef(exchangeTypeRef(arrayType.getInnerTypeRef(), func, scope), arrayType.getDimensions());
+			return CSharpTypeRefInterner.getInstance(scope.getProject()).getArrayTypeRef(exchangeTypeRef(arrayType.getInnerTypeRef(), func, scope),
+					arrayType.getDimensions());
 		}
 		else if(typeRef instanceof CSharpReferenceTypeRef)
 		{
@@ -41,15 +41,18 @@ public class CSharpMethodDeclStub extends MemberStub<CSharpMethodDeclaration>
 	public static final int DE_CONSTRUCTOR_MASK = 1 << 2;
 
 	private final int myOperatorIndex;
+	private final String[] myExtensionReceiverKeys;
 
 	public CSharpMethodDeclStub(StubElement parent,
 			@Nullable StringRef name,
 			@Nullable StringRef qname,
 			int otherModifierMask,
-			int operatorIndex)
+			int operatorIndex,
+			@NotNull String[] extensionReceiverKeys)
 	{
 		super(parent, CSharpStubElements.METHOD_DECLARATION, name, qname, otherModifierMask);
 		myOperatorIndex = operatorIndex;
+		myExtensionReceiverKeys = extensionReceiverKeys;
 	}
 
 	public CSharpMethodDeclStub(StubElement parent,
@@ -61,6 +64,7 @@ public class CSharpMethodDeclStub extends MemberStub<CSharpMethodDeclaration>
 	{
 		super(parent, elementType, name, qname, otherModifierMask);
 		myOperatorIndex = operatorIndex;
+		myExtensionReceiverKeys = ArrayUtil.EMPTY_STRING_ARRAY;
 	}
 
 	public int getOperatorIndex()
@@ -68,6 +72,15 @@ public class CSharpMethodDeclStub extends MemberStub<CSharpMethodDeclaration>
 		return myOperatorIndex;
 	}
 
+	/**
+	 * @see org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.extensionResolver.ExtensionReceiverKeyUtil
+	 */
+	@NotNull
+	public String[] getExtensionReceiverKeys()
+	{
+		return myExtensionReceiverKeys;
+	}
+
 	@Nullable
 	public IElementType getOperator()
 	{
@@ -16,19 +16,28 @@
 
 package org.mustbe.consulo.csharp.lang.psi.impl.stub.elementTypes;
 
+import gnu.trove.THashSet;
+import gnu.trove.TIntArrayList;
+
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mustbe.consulo.csharp.lang.CSharpLanguage;
 import org.mustbe.consulo.csharp.lang.CSharpLanguageVersionWrapper;
 import org.mustbe.consulo.csharp.lang.CSharpMacroLanguage;
 import org.mustbe.consulo.csharp.lang.psi.CSharpMacroDefine;
 import org.mustbe.consulo.csharp.lang.psi.CSharpMacroRecursiveElementVisitor;
+import org.mustbe.consulo.csharp.lang.psi.CSharpMacroTokens;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpFileImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMacroBlockStartImpl;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMacroBlockStopImpl;
@@ -48,6 +57,7 @@ import com.intellij.lang.PsiBuilderFactory;
 import com.intellij.lang.PsiParser;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.FileViewProvider;
@@ -55,10 +65,13 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.StubBuilder;
 import com.intellij.psi.impl.source.CharTableImpl;
+import com.intellij.psi.impl.source.tree.TreeUtil;
 import com.intellij.psi.stubs.DefaultStubBuilder;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.tree.IStubFileElementType;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 
 /**
  * @author VISTALL
@@ -66,6 +79,114 @@ import com.intellij.psi.tree.IStubFileElementType;
  */
 public class CSharpFileStubElementType extends IStubFileElementType<CSharpFileStub>
 {
+	/**
+	 * Text of macro file without c# fragments(each fragment is replaced by one separator char), and offsets of directive runs.
+	 * Disabled blocks depend only on it and defined variables, so they are stored in offsets of this text, and edit of c# code
+	 * do not reevaluate directives
+	 */
+	private static class DirectiveText
+	{
+		private static final char FRAGMENT_SEPARATOR = '\n';
+		private static final int FILE_END = -1;
+		private static final int NOT_DIRECTIVE = -2;
+
+		private final String myText;
+		private final int[] myRealStarts;
+		private final int[] myDirectiveStarts;
+		private final int myFileLength;
+
+		private DirectiveText(@NotNull PsiFile macroFile)
+		{
+			StringBuilder builder = new StringBuilder();
+			TIntArrayList realStarts = new TIntArrayList();
+			TIntArrayList directiveStarts = new TIntArrayList();
+
+			boolean inRun = false;
+			for(ASTNode leaf = TreeUtil.findFirstLeaf(macroFile.getNode()); leaf != null; leaf = TreeUtil.nextLeaf(leaf))
+			{
+				if(leaf.getElementType() == CSharpMacroTokens.CSHARP_FRAGMENT)
+				{
+					if(inRun)
+					{
+						builder.append(FRAGMENT_SEPARATOR);
+						inRun = false;
+					}
+					continue;
+				}
+
+				if(!inRun)
+				{
+					realStarts.add(leaf.getStartOffset());
+					directiveStarts.add(builder.length());
+					inRun = true;
+				}
+				builder.append(leaf.getChars());
+			}
+			if(inRun)
+			{
+				builder.append(FRAGMENT_SEPARATOR);
+			}
+
+			myText = builder.toString();
+			myRealStarts = realStarts.toNativeArray();
+			myDirectiveStarts = directiveStarts.toNativeArray();
+			myFileLength = macroFile.getTextLength();
+		}
+
+		/**
+		 * @return offset in directive text, or {@link #NOT_DIRECTIVE} if offset is inside c# fragment
+		 */
+		private int toDirectiveOffset(int realOffset)
+		{
+			if(realOffset == myFileLength)
+			{
+				return FILE_END;
+			}
+
+			int index = findRun(myRealStarts, realOffset);
+			if(index < 0)
+			{
+				return NOT_DIRECTIVE;
+			}
+
+			int directiveOffset = myDirectiveStarts[index] + realOffset - myRealStarts[index];
+			// separator position is end of run
+			int runEnd = index + 1 < myDirectiveStarts.length ? myDirectiveStarts[index + 1] - 1 : myText.length() - 1;
+			return directiveOffset > runEnd ? NOT_DIRECTIVE : directiveOffset;
+		}
+
+		private int toRealOffset(int directiveOffset)
+		{
+			if(directiveOffset == FILE_END)
+			{
+				return myFileLength;
+			}
+
+			int index = findRun(myDirectiveStarts, directiveOffset);
+			return myRealStarts[index] + directiveOffset - myDirectiveStarts[index];
+		}
+
+		private static int findRun(@NotNull int[] starts, int offset)
+		{
+			int index = Arrays.binarySearch(starts, offset);
+			return index >= 0 ? index : -index - 2;
+		}
+	}
+
+	private static class DisabledBlocks
+	{
+		private final String myDirectiveText;
+		// pairs of offsets in directive text by defined variables
+		private final Map<Set<String>, int[]> myRanges = new ConcurrentHashMap<Set<String>, int[]>();
+
+		private DisabledBlocks(@NotNull String directiveText)
+		{
+			myDirectiveText = directiveText;
+		}
+	}
+
+	private static final Key<DisabledBlocks> DISABLED_BLOCKS = Key.create("csharp-disabled-blocks");
+
 	static
 	{
 		CharTableImpl.addStringsFromClassToStatics(DotNetTypes.class);
@@ -125,11 +246,66 @@ public class CSharpFileStubElementType extends IStubFileElementType<CSharpFileSt
 	@NotNull
 	public static List<TextRange> collectDisabledBlocks(PsiFile macroFile, @NotNull DotNetSimpleModuleExtension<?> extension)
 	{
-		return collectDisabledBlocks(macroFile, extension.getVariables());
+		return getCachedDisabledBlocks(macroFile, extension.getVariables());
+	}
+
+	@NotNull
+	private static List<TextRange> getCachedDisabledBlocks(@NotNull PsiFile macroFile, @NotNull List<String> variables)
+	{
+		DirectiveText directiveText = getDirectiveText(macroFile);
+
+		DisabledBlocks disabledBlocks = macroFile.getUserData(DISABLED_BLOCKS);
+		if(disabledBlocks == null || !disabledBlocks.myDirectiveText.equals(directiveText.myText))
+		{
+			disabledBlocks = new DisabledBlocks(directiveText.myText);
+			macroFile.putUserData(DISABLED_BLOCKS, disabledBlocks);
+		}
+
+		Set<String> key = new THashSet<String>(variables);
+		int[] offsets = disabledBlocks.myRanges.get(key);
+		if(offsets != null)
+		{
+			List<TextRange> textRanges = new ArrayList<TextRange>(offsets.length / 2);
+			for(int i = 0; i < offsets.length; i += 2)
+			{
+				textRanges.add(new TextRange(directiveText.toRealOffset(offsets[i]), directiveText.toRealOffset(offsets[i + 1])));
+			}
+			return textRanges;
+		}
+
+		List<TextRange> textRanges = collectDisabledBlocksImpl(macroFile, variables);
+
+		offsets = new int[textRanges.size() * 2];
+		for(int i = 0; i < textRanges.size(); i++)
+		{
+			TextRange textRange = textRanges.get(i);
+			offsets[i * 2] = directiveText.toDirectiveOffset(textRange.getStartOffset());
+			offsets[i * 2 + 1] = directiveText.toDirectiveOffset(textRange.getEndOffset());
+			if(offsets[i * 2] == DirectiveText.NOT_DIRECTIVE || offsets[i * 2 + 1] == DirectiveText.NOT_DIRECTIVE)
+			{
+				return textRanges;
+			}
+		}
+		disabledBlocks.myRanges.put(key, offsets);
+		return textRanges;
+	}
+
+	@NotNull
+	private static DirectiveText getDirectiveText(@NotNull final PsiFile macroFile)
+	{
+		return CachedValuesManager.getCachedValue(macroFile, new CachedValueProvider<DirectiveText>()
+		{
+			@Nullable
+			@Override
+			public Result<DirectiveText> compute()
+			{
+				return Result.create(new DirectiveText(macroFile), macroFile);
+			}
+		});
 	}
 
 	@NotNull
-	private static List<TextRange> collectDisabledBlocks(PsiFile templateFile, @NotNull final List<String> baseVariables)
+	private static List<TextRange> collectDisabledBlocksImpl(PsiFile templateFile, @NotNull final List<String> baseVariables)
 	{
 		final Ref<List<TextRange>> listRef = Ref.create();
 		final Ref<List<String>> redefined = Ref.create();
@@ -275,7 +451,7 @@ public class CSharpFileStubElementType extends IStubFileElementType<CSharpFileSt
 	@Override
 	public int getStubVersion()
 	{
-		return 63;
+		return 66;
 	}
 
 	@NotNull
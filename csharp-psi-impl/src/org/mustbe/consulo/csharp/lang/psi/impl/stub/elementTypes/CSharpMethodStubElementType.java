@@ -22,6 +22,7 @@ import org.jetbrains.annotations.NotNull;
 import org.mustbe.consulo.RequiredReadAction;
 import org.mustbe.consulo.csharp.lang.psi.CSharpMethodDeclaration;
 import org.mustbe.consulo.csharp.lang.psi.impl.source.CSharpMethodDeclarationImpl;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.extensionResolver.ExtensionReceiverKeyUtil;
 import org.mustbe.consulo.csharp.lang.psi.impl.stub.CSharpMethodDeclStub;
 import org.mustbe.consulo.csharp.lang.psi.impl.stub.index.CSharpIndexKeys;
 import org.mustbe.consulo.dotnet.lang.psi.impl.stub.DotNetNamespaceStubUtil;
@@ -31,6 +32,7 @@ import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
+import com.intellij.util.ArrayUtil;
 import com.intellij.util.BitUtil;
 import com.intellij.util.io.StringRef;
 
@@ -66,7 +68,12 @@ public class CSharpMethodStubElementType extends CSharpAbstractStubElementType<C
 		StringRef parentQName = StringRef.fromNullableString(methodDeclaration.getPresentableParentQName());
 		int otherModifierMask = CSharpMethodDeclStub.getOtherModifierMask(methodDeclaration);
 		int operatorIndex = CSharpMethodDeclStub.getOperatorIndex(methodDeclaration);
-		return new CSharpMethodDeclStub(stubElement, name, parentQName, otherModifierMask, operatorIndex);
+		String[] extensionReceiverKeys = ArrayUtil.EMPTY_STRING_ARRAY;
+		if(BitUtil.isSet(otherModifierMask, CSharpMethodDeclStub.EXTENSION_MASK))
+		{
+			extensionReceiverKeys = ExtensionReceiverKeyUtil.calcReceiverKeys(methodDeclaration, stubElement);
+		}
+		return new CSharpMethodDeclStub(stubElement, name, parentQName, otherModifierMask, operatorIndex, extensionReceiverKeys);
 	}
 
 	@Override
@@ -76,6 +83,12 @@ public class CSharpMethodStubElementType extends CSharpAbstractStubElementType<C
 		stubOutputStream.writeName(stub.getParentQName());
 		stubOutputStream.writeInt(stub.getOtherModifierMask());
 		stubOutputStream.writeInt(stub.getOperatorIndex());
+		String[] extensionReceiverKeys = stub.getExtensionReceiverKeys();
+		stubOutputStream.writeVarInt(extensionReceiverKeys.length);
+		for(String extensionReceiverKey : extensionReceiverKeys)
+		{
+			stubOutputStream.writeName(extensionReceiverKey);
+		}
 	}
 
 	@NotNull
@@ -86,7 +99,12 @@ public class CSharpMethodStubElementType extends CSharpAbstractStubElementType<C
 		StringRef qname = stubInputStream.readName();
 		int otherModifierMask = stubInputStream.readInt();
 		int operatorIndex = stubInputStream.readInt();
-		return new CSharpMethodDeclStub(stubElement, name, qname, otherModifierMask, operatorIndex);
+		String[] extensionReceiverKeys = new String[stubInputStream.readVarInt()];
+		for(int i = 0; i < extensionReceiverKeys.length; i++)
+		{
+			extensionReceiverKeys[i] = StringRef.toString(stubInputStream.readName());
+		}
+		return new CSharpMethodDeclStub(stubElement, name, qname, otherModifierMask, operatorIndex, extensionReceiverKeys);
 	}
 
 	@Override
@@ -111,6 +129,11 @@ public class CSharpMethodStubElementType extends CSharpAbstractStubElementType<C
 			if(BitUtil.isSet(stub.getOtherModifierMask(), CSharpMethodDeclStub.EXTENSION_MASK))
 			{
 				indexSink.occurrence(CSharpIndexKeys.EXTENSION_METHOD_BY_NAME_INDEX, name);
+
+				for(String extensionReceiverKey : stub.getExtensionReceiverKeys())
+				{
+					indexSink.occurrence(CSharpIndexKeys.EXTENSION_METHOD_BY_RECEIVER_INDEX, extensionReceiverKey);
+				}
 			}
 		}
 	}
@@ -22,6 +22,9 @@ import gnu.jel.Evaluator;
 import gnu.jel.Library;
 
 import java.util.List;
+import java.util.Map;
+
+import com.intellij.util.containers.ContainerUtil;
 
 /**
  * @author VISTALL
@@ -38,11 +41,19 @@ public class MacroEvaluator
 		}
 	}, null);
 
+	// compilation generate bytecode, and it's very expensive - cache it by expression text
+	private static final Map<String, CompiledExpression> ourCompiledCache = ContainerUtil.createConcurrentSoftValueMap();
+
 	public static boolean evaluate(String text, List<String> variables)
 	{
 		try
 		{
-			CompiledExpression compile = Evaluator.compile(text, ourLibrary);
+			CompiledExpression compile = ourCompiledCache.get(text);
+			if(compile == null)
+			{
+				compile = Evaluator.compile(text, ourLibrary);
+				ourCompiledCache.put(text, compile);
+			}
 			return compile.evaluate_boolean(new Object[]{new MacroValueProvider(variables)});
 		}
 		catch(Throwable throwable)
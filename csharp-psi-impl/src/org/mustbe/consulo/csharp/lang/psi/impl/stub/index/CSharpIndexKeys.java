@@ -41,6 +41,8 @@ public interface CSharpIndexKeys
 	StubIndexKey<String, DotNetLikeMethodDeclaration> METHOD_INDEX = StubIndexKey.createIndexKey("csharp.method.index");
 	StubIndexKey<String, DotNetLikeMethodDeclaration> EXTENSION_METHOD_BY_NAME_INDEX =
 			StubIndexKey.createIndexKey("csharp.extension.method.by.name.index");
+	StubIndexKey<String, DotNetLikeMethodDeclaration> EXTENSION_METHOD_BY_RECEIVER_INDEX =
+			StubIndexKey.createIndexKey("csharp.extension.method.by.receiver.index");
 
 	StubIndexKey<String, DotNetTypeDeclaration> TYPE_WITH_EXTENSION_METHODS_INDEX =
 			StubIndexKey.createIndexKey("csharp.type.with.extensions.index");
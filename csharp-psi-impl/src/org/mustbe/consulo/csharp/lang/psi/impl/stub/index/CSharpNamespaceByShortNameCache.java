@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.stub.index;
+
+import gnu.trove.THashSet;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.consulo.lombok.annotations.ProjectService;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
+import org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.util.CSharpMethodImplUtil;
+import org.mustbe.consulo.csharp.lang.psi.impl.stub.elementTypes.CSharpTypeStubElementType;
+import org.mustbe.consulo.dotnet.lang.psi.impl.stub.MsilHelper;
+import org.mustbe.consulo.dotnet.psi.DotNetNamedElement;
+import org.mustbe.consulo.dotnet.psi.DotNetTypeDeclaration;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
+import com.intellij.util.ThreeState;
+import com.intellij.util.containers.MultiMap;
+
+/**
+ * Keys of {@link CSharpIndexKeys#TYPE_BY_QNAME_INDEX} by short name(without generic marker), and names of extension methods, for auto import.
+ * Built in background from index keys only, names from changed files added by stubs.
+ * Keys of removed types are not removed - types are checked by index in scope of query
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+@ProjectService
+public class CSharpNamespaceByShortNameCache extends CSharpStubIndexCache<CSharpNamespaceByShortNameCache.Data>
+{
+	protected static class Data
+	{
+		private final MultiMap<String, String> myTypeKeysByShortName = MultiMap.createSet();
+		private final Set<String> myExtensionMethodNames = new THashSet<String>();
+	}
+
+	public CSharpNamespaceByShortNameCache(@NotNull Project project)
+	{
+		super(project);
+	}
+
+	/**
+	 * @return namespaces of types with short name in scope, or null if cache is not built yet - caller must search by indexes
+	 */
+	@Nullable
+	@RequiredReadAction
+	public Set<String> getTypeNamespaces(@NotNull String shortName, @NotNull GlobalSearchScope scope)
+	{
+		String[] keys;
+		synchronized(this)
+		{
+			Data data = getData();
+			if(data == null)
+			{
+				return null;
+			}
+			Collection<String> collection = data.myTypeKeysByShortName.get(shortName);
+			keys = collection.toArray(new String[collection.size()]);
+		}
+
+		Set<String> namespaces = new THashSet<String>();
+		for(String key : keys)
+		{
+			ProgressManager.checkCanceled();
+
+			int index = key.lastIndexOf('.');
+			if(index <= 0)
+			{
+				continue;
+			}
+
+			CommonProcessors.FindFirstProcessor<DotNetTypeDeclaration> processor = new CommonProcessors.FindFirstProcessor<DotNetTypeDeclaration>();
+			StubIndex.getInstance().processElements(CSharpIndexKeys.TYPE_BY_QNAME_INDEX, key, myProject, scope, DotNetTypeDeclaration.class,
+					processor);
+			if(processor.isFound())
+			{
+				namespaces.add(key.substring(0, index));
+			}
+		}
+		return namespaces;
+	}
+
+	/**
+	 * @return {@link ThreeState#UNSURE} if cache is not built yet
+	 */
+	@NotNull
+	@RequiredReadAction
+	public ThreeState hasExtensionMethod(@NotNull String name)
+	{
+		synchronized(this)
+		{
+			Data data = getData();
+			if(data == null)
+			{
+				return ThreeState.UNSURE;
+			}
+			return ThreeState.fromBoolean(data.myExtensionMethodNames.contains(name));
+		}
+	}
+
+	@NotNull
+	@Override
+	@RequiredReadAction
+	protected Data build(@NotNull ProgressIndicator indicator)
+	{
+		final Data data = new Data();
+		GlobalSearchScope scope = GlobalSearchScope.allScope(myProject);
+
+		StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_BY_QNAME_INDEX, new Processor<String>()
+		{
+			@Override
+			public boolean process(String key)
+			{
+				addTypeKey(data, key);
+				return true;
+			}
+		}, scope, null);
+
+		indicator.checkCanceled();
+
+		StubIndex.getInstance().processAllKeys(CSharpIndexKeys.EXTENSION_METHOD_BY_NAME_INDEX, new CommonProcessors.CollectProcessor<String>(data
+				.myExtensionMethodNames), scope, null);
+		return data;
+	}
+
+	@Override
+	@RequiredReadAction
+	protected void updateFile(@NotNull final Data data, @NotNull VirtualFile file)
+	{
+		processFileMembers(file, new Processor<DotNetNamedElement>()
+		{
+			@Override
+			public boolean process(DotNetNamedElement element)
+			{
+				String name = element.getName();
+				if(StringUtil.isEmpty(name))
+				{
+					return true;
+				}
+
+				if(element instanceof CSharpTypeDeclaration)
+				{
+					addTypeKey(data, CSharpTypeStubElementType.getNameWithNamespaceForIndexing(((CSharpTypeDeclaration) element)
+							.getPresentableParentQName(), name));
+				}
+				else if(CSharpMethodImplUtil.isExtensionMethod(element))
+				{
+					data.myExtensionMethodNames.add(name);
+				}
+				return true;
+			}
+		});
+	}
+
+	private static void addTypeKey(@NotNull Data data, @NotNull String key)
+	{
+		String shortName = MsilHelper.cutGenericMarker(StringUtil.getShortName(key));
+		data.myTypeKeysByShortName.putValue(shortName, key);
+	}
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.stub.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.CSharpFileType;
+import org.mustbe.consulo.dotnet.psi.DotNetMemberOwner;
+import org.mustbe.consulo.dotnet.psi.DotNetNamedElement;
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.progress.util.ReadTask;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootAdapter;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.messages.MessageBusConnection;
+
+/**
+ * Base of project caches built from stub indexes. Data is built in background read action, callers get last built data - it can be stale
+ * while rebuild is running, and null before first build.
+ * <p/>
+ * Changed C# files(out of code block modification, or change outside of editor) are dirty - subclass updates entries of them.
+ * Roots change, exit of dumb mode, change of content directory or too many dirty files schedule full rebuild.
+ * All access to data must be synchronized on cache
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public abstract class CSharpStubIndexCache<T>
+{
+	private static final int MAX_DIRTY_FILES = 50;
+
+	protected final Project myProject;
+
+	private final Set<VirtualFile> myDirtyFiles = ContainerUtil.newConcurrentSet();
+	private final AtomicLong myInvalidationCount = new AtomicLong();
+
+	// null if never built
+	private T myData;
+	private long myBuiltInvalidationCount = -1;
+	private volatile boolean myBuildScheduled;
+
+	protected CSharpStubIndexCache(@NotNull Project project)
+	{
+		myProject = project;
+
+		MessageBusConnection connection = project.getMessageBus().connect(project);
+		connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootAdapter()
+		{
+			@Override
+			public void rootsChanged(ModuleRootEvent event)
+			{
+				myInvalidationCount.incrementAndGet();
+			}
+		});
+		connection.subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener()
+		{
+			@Override
+			public void enteredDumbMode()
+			{
+			}
+
+			@Override
+			public void exitDumbMode()
+			{
+				myInvalidationCount.incrementAndGet();
+			}
+		});
+		connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter()
+		{
+			@Override
+			public void after(@NotNull List<? extends VFileEvent> events)
+			{
+				for(VFileEvent event : events)
+				{
+					VirtualFile file = event instanceof VFileCopyEvent ? ((VFileCopyEvent) event).findCreatedFile() : event.getFile();
+					if(file == null)
+					{
+						continue;
+					}
+
+					if(file.isDirectory())
+					{
+						if(ProjectRootManager.getInstance(myProject).getFileIndex().isInContent(file))
+						{
+							myInvalidationCount.incrementAndGet();
+						}
+					}
+					else if(file.getFileType() == CSharpFileType.INSTANCE)
+					{
+						addDirtyFile(file);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Called on out of code block modification of file
+	 *
+	 * @param file changed file, or null if file is unknown - cache will be rebuilt
+	 */
+	public void fileChanged(@Nullable PsiFile file)
+	{
+		VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+		if(virtualFile == null)
+		{
+			myInvalidationCount.incrementAndGet();
+		}
+		else
+		{
+			addDirtyFile(virtualFile);
+		}
+	}
+
+	private void addDirtyFile(@NotNull VirtualFile file)
+	{
+		myDirtyFiles.add(file);
+		if(myDirtyFiles.size() > MAX_DIRTY_FILES)
+		{
+			// rebuild will see all of them
+			myDirtyFiles.clear();
+			myInvalidationCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Build data from indexes, called inside read action in background
+	 */
+	@NotNull
+	@RequiredReadAction
+	protected abstract T build(@NotNull ProgressIndicator indicator);
+
+	/**
+	 * Replace entries of file, called under lock of cache. File can be invalid or deleted
+	 */
+	@RequiredReadAction
+	protected abstract void updateFile(@NotNull T data, @NotNull VirtualFile file);
+
+	/**
+	 * @return last built data with applied dirty files, or null if data is not built yet. Schedules rebuild if data is out of date
+	 */
+	@Nullable
+	@RequiredReadAction
+	protected synchronized T getData()
+	{
+		if(myBuiltInvalidationCount != myInvalidationCount.get())
+		{
+			scheduleBuild();
+		}
+
+		if(myData == null)
+		{
+			return null;
+		}
+
+		if(!myDirtyFiles.isEmpty())
+		{
+			for(VirtualFile virtualFile : new ArrayList<VirtualFile>(myDirtyFiles))
+			{
+				ProgressManager.checkCanceled();
+
+				// running build can read index before change of file, keep file dirty - update is applied again to new data
+				if(!myBuildScheduled)
+				{
+					myDirtyFiles.remove(virtualFile);
+				}
+				updateFile(myData, virtualFile);
+			}
+		}
+		return myData;
+	}
+
+	private void scheduleBuild()
+	{
+		if(myBuildScheduled)
+		{
+			return;
+		}
+		myBuildScheduled = true;
+
+		ProgressIndicatorUtils.scheduleWithWriteActionPriority(new ReadTask()
+		{
+			@Override
+			public void computeInReadAction(@NotNull ProgressIndicator indicator)
+			{
+				if(myProject.isDisposed() || DumbService.isDumb(myProject))
+				{
+					myBuildScheduled = false;
+					return;
+				}
+
+				// changes after this point will schedule next build
+				long invalidationCount = myInvalidationCount.get();
+
+				T data;
+				try
+				{
+					data = build(indicator);
+				}
+				catch(ProcessCanceledException e)
+				{
+					myInvalidationCount.incrementAndGet();
+					throw e;
+				}
+
+				synchronized(CSharpStubIndexCache.this)
+				{
+					myData = data;
+					myBuiltInvalidationCount = invalidationCount;
+					myBuildScheduled = false;
+				}
+			}
+
+			@Override
+			public void onCanceled(@NotNull ProgressIndicator indicator)
+			{
+				// will be rescheduled on next request
+				myBuildScheduled = false;
+			}
+		});
+	}
+
+	/**
+	 * Process named members of file(types, methods, nested members) by stubs, without loading of tree if stubs are available
+	 */
+	@RequiredReadAction
+	protected boolean processFileMembers(@NotNull VirtualFile virtualFile, @NotNull Processor<DotNetNamedElement> processor)
+	{
+		PsiFile file = virtualFile.isValid() ? PsiManager.getInstance(myProject).findFile(virtualFile) : null;
+		return !(file instanceof DotNetMemberOwner) || processMembers((DotNetMemberOwner) file, processor);
+	}
+
+	@RequiredReadAction
+	private static boolean processMembers(@NotNull DotNetMemberOwner owner, @NotNull Processor<DotNetNamedElement> processor)
+	{
+		for(DotNetNamedElement member : owner.getMembers())
+		{
+			if(!processor.process(member))
+			{
+				return false;
+			}
+
+			if(member instanceof DotNetMemberOwner && !processMembers((DotNetMemberOwner) member, processor))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
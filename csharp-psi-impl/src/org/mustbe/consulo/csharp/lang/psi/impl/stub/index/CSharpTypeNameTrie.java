@@ -0,0 +1,318 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.stub.index;
+
+import gnu.trove.TCharObjectHashMap;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.consulo.lombok.annotations.ProjectService;
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.RequiredReadAction;
+import org.mustbe.consulo.csharp.lang.psi.CSharpTypeDeclaration;
+import org.mustbe.consulo.dotnet.lang.psi.impl.stub.MsilHelper;
+import org.mustbe.consulo.dotnet.psi.DotNetNamedElement;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.IdFilter;
+
+/**
+ * Names from {@link CSharpIndexKeys#TYPE_INDEX} in two level trie. First level - first char of name hump,
+ * second level - next char of hump or first char of any later hump. Any name which camel hump or word start
+ * matcher can match by pattern, is inside node of first two pattern chars, final check must be done by matcher.
+ * <p/>
+ * Trie is built in background, names from changed files added incrementally by stubs.
+ * Before first build all methods fall back to index keys search.
+ * Names of removed types are not removed, and names are not filtered by scope - callers must check elements by {@link TypeIndex}
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+@ProjectService
+public class CSharpTypeNameTrie extends CSharpStubIndexCache<CSharpTypeNameTrie.Data>
+{
+	private static class Node
+	{
+		private final Set<String> myNames = new THashSet<String>();
+		private final TCharObjectHashMap<Set<String>> myChildren = new TCharObjectHashMap<Set<String>>();
+	}
+
+	protected static class Data
+	{
+		private final TCharObjectHashMap<Node> myRoot = new TCharObjectHashMap<Node>();
+		private final Set<String> myAllNames = new THashSet<String>();
+		// names from project files, same as keys by project id filter without non project items
+		private final Set<String> myProjectNames = new THashSet<String>();
+		private final Map<String, Set<String>> myNamesByShortName = new THashMap<String, Set<String>>();
+	}
+
+	public CSharpTypeNameTrie(@NotNull Project project)
+	{
+		super(project);
+	}
+
+	/**
+	 * Process names from project files which can be matched by pattern. For empty pattern, or pattern with wildcards - all names
+	 */
+	@RequiredReadAction
+	public boolean processCandidates(@NotNull String pattern, @NotNull GlobalSearchScope scope, @NotNull Processor<String> processor)
+	{
+		List<String> candidates;
+		synchronized(this)
+		{
+			Data data = getData();
+			if(data == null)
+			{
+				return StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_INDEX, processor, scope, IdFilter.getProjectIdFilter(myProject,
+						false));
+			}
+
+			Collection<String> names = null;
+			if(pattern.isEmpty() || !isSimplePattern(pattern))
+			{
+				names = data.myAllNames;
+			}
+			else
+			{
+				Node node = data.myRoot.get(Character.toLowerCase(pattern.charAt(0)));
+				if(node != null)
+				{
+					names = pattern.length() == 1 ? node.myNames : node.myChildren.get(Character.toLowerCase(pattern.charAt(1)));
+				}
+			}
+
+			candidates = new ArrayList<String>();
+			if(names != null)
+			{
+				for(String name : names)
+				{
+					if(data.myProjectNames.contains(name))
+					{
+						candidates.add(name);
+					}
+				}
+			}
+		}
+
+		for(String candidate : candidates)
+		{
+			if(!processor.process(candidate))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return names from project and library files which equal to shortName without generic marker ('List' -> 'List', 'List`1')
+	 */
+	@NotNull
+	@RequiredReadAction
+	public Set<String> getNamesByShortName(@NotNull final String shortName, @NotNull GlobalSearchScope scope)
+	{
+		synchronized(this)
+		{
+			Data data = getData();
+			if(data != null)
+			{
+				Set<String> names = data.myNamesByShortName.get(shortName);
+				return names == null ? Collections.<String>emptySet() : new THashSet<String>(names);
+			}
+		}
+
+		final Set<String> names = new THashSet<String>();
+		StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_INDEX, new Processor<String>()
+		{
+			@Override
+			public boolean process(String name)
+			{
+				if(shortName.equals(MsilHelper.cutGenericMarker(name)))
+				{
+					names.add(name);
+				}
+				return true;
+			}
+		}, scope, IdFilter.getProjectIdFilter(myProject, true));
+		return names;
+	}
+
+	@NotNull
+	@Override
+	@RequiredReadAction
+	protected Data build(@NotNull ProgressIndicator indicator)
+	{
+		final Data data = new Data();
+		GlobalSearchScope scope = GlobalSearchScope.allScope(myProject);
+
+		StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_INDEX, new Processor<String>()
+		{
+			@Override
+			public boolean process(String name)
+			{
+				addName(data, name, false);
+				return true;
+			}
+		}, scope, IdFilter.getProjectIdFilter(myProject, true));
+
+		indicator.checkCanceled();
+
+		StubIndex.getInstance().processAllKeys(CSharpIndexKeys.TYPE_INDEX, new Processor<String>()
+		{
+			@Override
+			public boolean process(String name)
+			{
+				addName(data, name, true);
+				return true;
+			}
+		}, scope, IdFilter.getProjectIdFilter(myProject, false));
+		return data;
+	}
+
+	@Override
+	@RequiredReadAction
+	protected void updateFile(@NotNull final Data data, @NotNull VirtualFile file)
+	{
+		final boolean projectFile = ProjectRootManager.getInstance(myProject).getFileIndex().isInContent(file);
+
+		processFileMembers(file, new Processor<DotNetNamedElement>()
+		{
+			@Override
+			public boolean process(DotNetNamedElement element)
+			{
+				if(element instanceof CSharpTypeDeclaration)
+				{
+					String name = element.getName();
+					if(!StringUtil.isEmpty(name))
+					{
+						addName(data, name, projectFile);
+					}
+				}
+				return true;
+			}
+		});
+	}
+
+	private static void addName(@NotNull Data data, @NotNull String name, boolean projectName)
+	{
+		if(projectName)
+		{
+			data.myProjectNames.add(name);
+		}
+
+		if(!data.myAllNames.add(name))
+		{
+			return;
+		}
+
+		String shortName = MsilHelper.cutGenericMarker(name);
+		Set<String> names = data.myNamesByShortName.get(shortName);
+		if(names == null)
+		{
+			data.myNamesByShortName.put(shortName, names = new THashSet<String>(1));
+		}
+		names.add(name);
+
+		for(int i = 0; i < name.length(); i++)
+		{
+			if(!isHumpStart(name, i))
+			{
+				continue;
+			}
+
+			char first = Character.toLowerCase(name.charAt(i));
+			Node node = data.myRoot.get(first);
+			if(node == null)
+			{
+				data.myRoot.put(first, node = new Node());
+			}
+			node.myNames.add(name);
+
+			if(i + 1 < name.length())
+			{
+				addToChild(node, name.charAt(i + 1), name);
+			}
+
+			for(int j = i + 2; j < name.length(); j++)
+			{
+				if(isHumpStart(name, j))
+				{
+					addToChild(node, name.charAt(j), name);
+				}
+			}
+		}
+	}
+
+	private static void addToChild(@NotNull Node node, char c, @NotNull String name)
+	{
+		char key = Character.toLowerCase(c);
+		Set<String> names = node.myChildren.get(key);
+		if(names == null)
+		{
+			node.myChildren.put(key, names = new THashSet<String>());
+		}
+		names.add(name);
+	}
+
+	/**
+	 * Hump start is more wide than word start of name matcher - any uppercase char, digit after non digit, or letter after non letter
+	 */
+	private static boolean isHumpStart(@NotNull String name, int index)
+	{
+		if(index == 0)
+		{
+			return true;
+		}
+
+		char c = name.charAt(index);
+		char prev = name.charAt(index - 1);
+		if(Character.isUpperCase(c))
+		{
+			return true;
+		}
+		if(Character.isDigit(c))
+		{
+			return !Character.isDigit(prev);
+		}
+		return Character.isLetter(c) && !Character.isLetterOrDigit(prev);
+	}
+
+	private static boolean isSimplePattern(@NotNull String pattern)
+	{
+		for(int i = 0; i < pattern.length(); i++)
+		{
+			if(!Character.isLetterOrDigit(pattern.charAt(i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2015 must-be.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.mustbe.consulo.csharp.lang.psi.impl.stub.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.mustbe.consulo.dotnet.psi.DotNetLikeMethodDeclaration;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndexExtension;
+import com.intellij.psi.stubs.StubIndexKey;
+
+/**
+ * Extension methods by receiver key, see {@link org.mustbe.consulo.csharp.lang.psi.impl.source.resolve.extensionResolver.ExtensionReceiverKeyUtil}
+ *
+ * @author agent
+ * @since 18.10.2026
+ */
+public class ExtensionMethodByReceiverIndex extends StringStubIndexExtension<DotNetLikeMethodDeclaration>
+{
+	public static ExtensionMethodByReceiverIndex getInstance()
+	{
+		return StubIndexExtension.EP_NAME.findExtension(ExtensionMethodByReceiverIndex.class);
+	}
+
+	@NotNull
+	@Override
+	public StubIndexKey<String, DotNetLikeMethodDeclaration> getKey()
+	{
+		return CSharpIndexKeys.EXTENSION_METHOD_BY_RECEIVER_INDEX;
+	}
+}